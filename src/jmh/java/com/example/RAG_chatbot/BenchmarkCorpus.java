@@ -0,0 +1,82 @@
+package com.example.RAG_chatbot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/** Deterministic synthetic inputs shared by the benchmarks (wiki-like Markdown/HTML, repository trees). */
+public final class BenchmarkCorpus {
+
+    private static final String[] WORDS = {
+            "sipariş", "kaydı", "durum", "tutar", "alanlarını", "taşır", "uçuş", "planı", "olayı",
+            "kuyruğa", "yazılır", "OrderCreated", "customerId", "veri", "modeli", "servis", "istek",
+            "cevap", "şema", "güncellenir", "the", "event", "is", "published", "after", "commit"};
+
+    private BenchmarkCorpus() {
+    }
+
+    /** Markdown with front matter, nested headings, paragraphs, lists and fenced code; about {@code chars} long. */
+    public static String markdown(int chars, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        StringBuilder sb = new StringBuilder(chars + 4096);
+        sb.append("---\ntitle: Veri Modelleri\ntags: [wiki]\n---\n");
+        for (int s = 0; sb.length() < chars; s++) {
+            sb.append("# Modül ").append(s).append("\r\n\r\n");
+            for (int sub = 0; sub < 1 + rnd.nextInt(4); sub++) {
+                sb.append("## Bölüm ").append(s).append('.').append(sub).append("\n");
+                for (int p = 0; p < 1 + rnd.nextInt(3); p++) {
+                    sentence(sb, rnd, 8 + rnd.nextInt(60));
+                    sb.append("  \n\n");
+                }
+                if (rnd.nextInt(3) == 0) {
+                    for (int i = 0; i < 3; i++) sb.append("- ").append(WORDS[rnd.nextInt(WORDS.length)]).append('\n');
+                    sb.append('\n');
+                }
+                if (rnd.nextInt(5) == 0) sb.append("```json\n{\"id\": 1,\t\"status\": \"NEW\"}\n```\n\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    /** The same kind of content rendered as a wiki HTML page. */
+    public static String html(int chars, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        StringBuilder sb = new StringBuilder(chars + 4096);
+        sb.append("<html><head><title>Wiki</title><style>p{margin:0}</style></head><body><nav>menu</nav>");
+        for (int s = 0; sb.length() < chars; s++) {
+            sb.append("<h1>Modül ").append(s).append("</h1>");
+            for (int p = 0; p < 1 + rnd.nextInt(4); p++) {
+                sb.append("<p>");
+                sentence(sb, rnd, 8 + rnd.nextInt(60));
+                sb.append("</p>\n");
+            }
+            sb.append("<ul>");
+            for (int i = 0; i < 3; i++) sb.append("<li>").append(WORDS[rnd.nextInt(WORDS.length)]).append("</li>");
+            sb.append("</ul><pre>{\"id\": 1}</pre>\n");
+        }
+        return sb.append("<script>var x = 1;</script></body></html>").toString();
+    }
+
+    /** Repository-like relative paths, 1-6 directories deep, mixed extensions. */
+    public static List<String> paths(int n, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        String[] dirs = {"src", "docs", "river-x", "events", "data-models", "node_modules", "lib", "v2", ".git", "assets"};
+        String[] exts = {"md", "txt", "java", "pdf", "html", "json", "png", "MD"};
+        List<String> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            StringBuilder sb = new StringBuilder();
+            int depth = 1 + rnd.nextInt(6);
+            for (int d = 0; d < depth; d++) sb.append(dirs[rnd.nextInt(dirs.length)]).append('/');
+            out.add(sb.append("file-").append(i).append('.').append(exts[rnd.nextInt(exts.length)]).toString());
+        }
+        return out;
+    }
+
+    public static void sentence(StringBuilder sb, SplittableRandom rnd, int words) {
+        for (int w = 0; w < words; w++) {
+            if (w > 0) sb.append(rnd.nextInt(12) == 0 ? ", " : " ");
+            sb.append(WORDS[rnd.nextInt(WORDS.length)]);
+        }
+        sb.append('.');
+    }
+}
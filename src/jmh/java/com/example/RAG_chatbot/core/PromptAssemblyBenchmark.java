@@ -0,0 +1,75 @@
+package com.example.RAG_chatbot.core;
+
+import com.example.RAG_chatbot.BenchmarkCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/** Per-request work after retrieval: context packing ({@link ContextPacker}), prompt text and the usedChunks payload ({@link PromptBuilder}). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptAssemblyBenchmark {
+
+    /** Number of retrieved chunks (topK, or the candidate count with a larger budget). */
+    @Param({"5", "20"})
+    int hits;
+
+    private List<Document> docs;
+    private final ContextPacker packer = new ContextPacker(2048, 16, 0.8);
+
+    @Setup
+    public void setup() {
+        SplittableRandom rnd = new SplittableRandom(11);
+        docs = new ArrayList<>(hits);
+        for (int i = 0; i < hits; i++) {
+            // ~768 token'lık chunk: paragraflar ve satır sonları ile
+            StringBuilder sb = new StringBuilder("## Bölüm ").append(i).append('\n');
+            while (sb.length() < 2800) {
+                BenchmarkCorpus.sentence(sb, rnd, 12 + rnd.nextInt(30));
+                sb.append(rnd.nextInt(4) == 0 ? "\n\n" : " ");
+            }
+            Map<String, Object> meta = new HashMap<>();
+            meta.put("source", "gitlab://gitlab.example.com/wiki@main");
+            meta.put("chunk_index", String.valueOf(i));
+            meta.put("offset", String.valueOf(i * 2800));
+            meta.put("length", String.valueOf(sb.length()));
+            meta.put("retrieved_by", i % 2 == 0 ? "vector" : "bm25");
+            docs.add(new Document("doc-" + i, sb.toString(), meta));
+        }
+    }
+
+    @Benchmark
+    public ContextPacker.Packed pack() {
+        return packer.pack(docs);
+    }
+
+    @Benchmark
+    public String buildPrompt() {
+        return PromptBuilder.prompt("Sipariş kaydı hangi alanları taşır?", packer.pack(docs).passages());
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> usedChunks() {
+        return PromptBuilder.usedChunks(docs);
+    }
+}
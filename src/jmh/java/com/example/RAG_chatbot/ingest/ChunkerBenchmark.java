@@ -0,0 +1,76 @@
+package com.example.RAG_chatbot.ingest;
+
+import com.example.RAG_chatbot.BenchmarkCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ingest step 2: normalized text to chunks. Both runners share {@link Chunker}; it is measured
+ * at the default budget and at a small one (many more units and cuts), against the fixed
+ * 2000/200 character windows the file runner used before as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkerBenchmark {
+
+    @Param({"65536", "1048576"})
+    int size;
+
+    private String text;
+    private final Chunker standard = new Chunker(768, 384);
+    private final Chunker small = new Chunker(128, 32);
+
+    @Setup
+    public void setup() {
+        text = new TextNormalizer().normalizePlain(BenchmarkCorpus.markdown(size, 3));
+    }
+
+    @Benchmark
+    public List<Chunker.Chunk> structured() {
+        return standard.chunk(text);
+    }
+
+    @Benchmark
+    public List<Chunker.Chunk> structuredSmallBudget() {
+        return small.chunk(text);
+    }
+
+    /** Materializing the chunk strings, as the runners do when building documents. */
+    @Benchmark
+    public void structuredWithText(Blackhole bh) {
+        for (Chunker.Chunk c : standard.chunk(text)) bh.consume(c.text());
+    }
+
+    @Benchmark
+    public void charWindows(Blackhole bh) {
+        int start = 0;
+        while (start < text.length()) {
+            int end = Math.min(text.length(), start + 2000);
+            String part = text.substring(start, end);
+            Matcher m = Pattern.compile("^#+\\s+(.+)$", Pattern.MULTILINE).matcher(part);
+            bh.consume(m.find() ? m.group(1).trim() : null);
+            bh.consume(part);
+            if (end == text.length()) break;
+            start = Math.max(0, end - 200);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.RAG_chatbot.ingest;
+
+import com.example.RAG_chatbot.BenchmarkCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Repository tree filtering with the default GitLab include globs plus typical excludes, against
+ * the old per-path {@code Pattern.compile} translation as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathFilterBenchmark {
+
+    @Param({"10000", "100000"})
+    int paths;
+
+    private static final List<String> INCLUDE = List.of("**/*.md", "**/*.txt", "**/*.html", "**/*.pdf");
+    private static final List<String> EXCLUDE = List.of(".git/**", "**/node_modules/**", "**/build/**");
+
+    private List<String> tree;
+    private PathFilter filter;
+
+    @Setup
+    public void setup() {
+        tree = BenchmarkCorpus.paths(paths, 42);
+        filter = PathFilter.compile("", INCLUDE, EXCLUDE);
+    }
+
+    @Benchmark
+    public int filterTree() {
+        int hits = 0;
+        for (String p : tree) if (filter.accepts(p)) hits++;
+        return hits;
+    }
+
+    /** The pre-rewrite GitLabIngestRunner.micromatch: one Pattern.compile per glob per path. */
+    @Benchmark
+    public int legacyRegex() {
+        int hits = 0;
+        for (String p : tree) if (!legacyMatch(p, EXCLUDE, false) && legacyMatch(p, INCLUDE, true)) hits++;
+        return hits;
+    }
+
+    /** Compile cost paid once per ingest run. */
+    @Benchmark
+    public PathFilter compile() {
+        return PathFilter.compile("",
+                List.of("**/*.md", "**/*.txt", "**/*.html", "**/*.pdf", "docs/**/api-?.json"),
+                List.of(".git/**", "**/node_modules/**", "**/build/**"));
+    }
+
+    private static boolean legacyMatch(String path, List<String> globs, boolean defaultIfEmpty) {
+        if (globs.isEmpty()) return defaultIfEmpty;
+        for (String g : globs) {
+            String r = "^" + g.trim().replace(".", "\\.")
+                    .replace("**/", "(.*/)?")
+                    .replace("**", ".*")
+                    .replace("*", "[^/]*") + "$";
+            if (Pattern.compile(r, Pattern.CASE_INSENSITIVE).matcher(path).matches()) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.RAG_chatbot.ingest;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PDF text extraction: one stripper over the whole document ({@code threads=1}) against
+ * page-parallel workers, each with its own parsed copy. Only helps with more than one core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PdfExtractionBenchmark {
+
+    @Param({"1", "4"})
+    int threads;
+
+    @Param({"200"})
+    int pages;
+
+    private byte[] pdf;
+    private PdfTextExtractor extractor;
+
+    @Setup
+    public void setup() throws IOException {
+        pdf = pdf(pages, 40);
+        extractor = new PdfTextExtractor(threads, 256L << 20, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        extractor.close();
+    }
+
+    @Benchmark
+    public String extractText() throws Exception {
+        return extractor.extractText(pdf);
+    }
+
+    private static byte[] pdf(int pages, int linesPerPage) throws IOException {
+        try (PDDocument doc = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int p = 1; p <= pages; p++) {
+                PDPage page = new PDPage();
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA, 10);
+                    cs.setLeading(12);
+                    cs.newLineAtOffset(40, 750);
+                    cs.showText("Page " + p + " header");
+                    for (int l = 0; l < linesPerPage; l++) {
+                        cs.newLine();
+                        cs.showText("Order record " + p + "." + l + " carries id, status and amount fields.");
+                    }
+                    cs.endText();
+                }
+            }
+            doc.save(out);
+            return out.toByteArray();
+        }
+    }
+}
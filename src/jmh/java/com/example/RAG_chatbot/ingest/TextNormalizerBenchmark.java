@@ -0,0 +1,66 @@
+package com.example.RAG_chatbot.ingest;
+
+import com.example.RAG_chatbot.BenchmarkCorpus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest step 1: raw file bytes to normalized text. {@code legacyRegexChain} is the pre-rewrite
+ * replaceAll chain, kept as the baseline for the single pass; run with {@code -prof gc} to
+ * compare allocation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextNormalizerBenchmark {
+
+    /** Input size in characters. */
+    @Param({"65536", "1048576"})
+    int size;
+
+    private final TextNormalizer norm = new TextNormalizer();
+    private byte[] markdown;
+    private byte[] html;
+    private String markdownText;
+
+    @Setup
+    public void setup() {
+        markdown = BenchmarkCorpus.markdown(size, 1).getBytes(StandardCharsets.UTF_8);
+        markdownText = new String(markdown, StandardCharsets.UTF_8);
+        html = BenchmarkCorpus.html(size, 2).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String normalizeMarkdown() {
+        return norm.normalizePlain(markdown);
+    }
+
+    @Benchmark
+    public String htmlToText() {
+        return norm.htmlToText(html);
+    }
+
+    @Benchmark
+    public String legacyRegexChain() {
+        return markdownText.replace("\uFEFF", "")
+                .replaceAll("\\p{C}", " ")
+                .replaceAll("[ \\t\\x0B\\f\\r]+", " ")
+                .replaceAll("\\n{3,}", "\n\n")
+                .trim();
+    }
+}
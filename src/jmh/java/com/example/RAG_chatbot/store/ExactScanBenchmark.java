@@ -0,0 +1,89 @@
+package com.example.RAG_chatbot.store;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw {@link ExactScanIndex} throughput (queries/s) over a mapped matrix, without document
+ * read-back. {@code threads=1} is the per-core rate; for {@code threads=0} (all cores) divide
+ * the score by the core count. The scalar fallback is measured with
+ * {@code -jvmArgsAppend -Drag.simd=false}; the log line of the setup shows which path ran.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExactScanBenchmark {
+
+    @Param({"100000", "1000000"})
+    int vectors;
+
+    @Param({"384"})
+    int dim;
+
+    @Param({"1", "0"})
+    int threads;
+
+    private static final int QUERIES = 64;
+
+    private Path dir;
+    private FloatMatrixFile matrix;
+    private ExactScanIndex index;
+    private float[][] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        SplittableRandom rnd = new SplittableRandom(13);
+        dir = Files.createTempDirectory("exact-bench");
+        matrix = FloatMatrixFile.create(dir.resolve("vectors.f32"), dim);
+        float[] v = new float[dim];
+        for (int i = 0; i < vectors; i++) {
+            for (int d = 0; d < dim; d++) v[d] = (float) (rnd.nextDouble() * 2 - 1);
+            matrix.append(MappedVectorStore.normalize(v));
+        }
+        queries = new float[QUERIES][dim];
+        for (float[] q : queries) {
+            for (int d = 0; d < dim; d++) q[d] = (float) (rnd.nextDouble() * 2 - 1);
+            System.arraycopy(MappedVectorStore.normalize(q), 0, q, 0, dim);
+        }
+        index = new ExactScanIndex(matrix, threads);
+        System.out.println("[ExactScanBenchmark] " + index.describe());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        index.close();
+        matrix.close();
+        Files.deleteIfExists(dir.resolve("vectors.f32"));
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public TopK search() {
+        float[] q = queries[next];
+        next = (next + 1) % QUERIES;
+        TopK top = new TopK(5);
+        index.search(q, top, 0f, row -> true);
+        return top;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.RAG_chatbot.store;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@code similaritySearch} end to end (query embedding, index search, document read-back) on a
+ * {@link MappedVectorStore} filled with clustered unit vectors. The embedding model is a table
+ * lookup, so only the store is measured. Other indexes: {@code -p index=hnsw,int8,binary}.
+ * The filtered cases select 10% (one tag) and 1% (one directory) of the rows via the
+ * metadata bitmaps and should cost roughly that share of the unfiltered scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class VectorSearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    int vectors;
+
+    @Param({"384"})
+    int dim;
+
+    @Param({"exact"})
+    String index;
+
+    @Param({"5"})
+    int topK;
+
+    private static final int QUERIES = 256;
+
+    private Path dir;
+    private MappedVectorStore store;
+    private List<SearchRequest> requests;
+    private List<SearchRequest> tagRequests;
+    private List<SearchRequest> dirRequests;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        SplittableRandom rnd = new SplittableRandom(7);
+        float[][] centres = new float[64][dim];
+        for (float[] c : centres) for (int d = 0; d < dim; d++) c[d] = (float) (rnd.nextDouble() * 2 - 1);
+
+        float[][] queries = new float[QUERIES][];
+        requests = new ArrayList<>(QUERIES);
+        tagRequests = new ArrayList<>(QUERIES);
+        dirRequests = new ArrayList<>(QUERIES);
+        FilterExpressionBuilder f = new FilterExpressionBuilder();
+        for (int q = 0; q < QUERIES; q++) {
+            queries[q] = near(centres[rnd.nextInt(centres.length)], rnd);
+            requests.add(SearchRequest.builder().query("q" + q).topK(topK).similarityThreshold(0.0).build());
+            tagRequests.add(SearchRequest.builder().query("q" + q).topK(topK).similarityThreshold(0.0)
+                    .filterExpression(f.eq("fm:tags", "t" + (q % 10)).build()).build());
+            String dir = "bench/d" + (q % 100) + "/";
+            dirRequests.add(SearchRequest.builder().query("q" + q).topK(topK).similarityThreshold(0.0)
+                    .filterExpression(f.and(f.gte("repo_path", dir), f.lt("repo_path", dir + '\uffff')).build()).build());
+        }
+
+        dir = Files.createTempDirectory("vector-bench");
+        store = new MappedVectorStore(new QueryTable(queries, dim), dir, IndexOptions.of(index));
+        List<Document> docs = new ArrayList<>(10_000);
+        List<float[]> embeddings = new ArrayList<>(10_000);
+        for (int i = 0; i < vectors; i++) {
+            docs.add(new Document("doc-" + i, "Sipariş kaydı " + i + " durum ve tutar alanlarını taşır.",
+                    Map.of("source", "bench://" + (i % 100), "chunk_index", String.valueOf(i),
+                            "repo_path", "bench/d" + (i % 100) + "/doc" + i + ".md", "fm:tags", "[t" + (i % 10) + "]")));
+            embeddings.add(near(centres[rnd.nextInt(centres.length)], rnd));
+            if (docs.size() == 10_000 || i == vectors - 1) {
+                store.addEmbedded(docs, embeddings);
+                docs.clear();
+                embeddings.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    @Benchmark
+    public List<Document> similaritySearch() {
+        SearchRequest req = requests.get(next);
+        next = (next + 1) % QUERIES;
+        return store.similaritySearch(req);
+    }
+
+    @Benchmark
+    public List<Document> filteredTenPercent() {
+        SearchRequest req = tagRequests.get(next);
+        next = (next + 1) % QUERIES;
+        return store.similaritySearch(req);
+    }
+
+    @Benchmark
+    public List<Document> filteredOnePercent() {
+        SearchRequest req = dirRequests.get(next);
+        next = (next + 1) % QUERIES;
+        return store.similaritySearch(req);
+    }
+
+    private float[] near(float[] centre, SplittableRandom rnd) {
+        float[] v = new float[dim];
+        for (int d = 0; d < dim; d++) v[d] = centre[d] + (float) ((rnd.nextDouble() - 0.5) * 0.6);
+        return v;
+    }
+
+    /** "q&lt;n&gt;" -> the n-th precomputed query vector. */
+    private static final class QueryTable implements EmbeddingModel {
+
+        private final float[][] queries;
+        private final int dim;
+
+        QueryTable(float[][] queries, int dim) {
+            this.queries = queries;
+            this.dim = dim;
+        }
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> out = new ArrayList<>();
+            List<String> texts = request.getInstructions();
+            for (int i = 0; i < texts.size(); i++) out.add(new Embedding(vector(texts.get(i)), i));
+            return new EmbeddingResponse(out);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return vector(document.getText());
+        }
+
+        @Override
+        public int dimensions() {
+            return dim;
+        }
+
+        private float[] vector(String text) {
+            return queries[Integer.parseInt(text.substring(1))];
+        }
+    }
+}
@@ -3,8 +3,10 @@ package com.example.RAG_chatbot;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class RagChatbotApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(RagChatbotApplication.class, args);
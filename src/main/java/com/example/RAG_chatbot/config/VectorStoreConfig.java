@@ -1,17 +1,46 @@
 package com.example.RAG_chatbot.config;
 
+import com.example.RAG_chatbot.core.QueryEmbeddingCache;
+import com.example.RAG_chatbot.store.Bm25Index;
+import com.example.RAG_chatbot.store.GenerationalVectorStore;
+import com.example.RAG_chatbot.store.IndexOptions;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.SimpleVectorStore;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.nio.file.Paths;
 
 @Configuration
 public class VectorStoreConfig {
 
     @Bean
-    public VectorStore vectorStore(EmbeddingModel embeddingModel) {
-        // Uygulama kapanınca bellekteki veri silinir; POC için ideal
-        return SimpleVectorStore.builder(embeddingModel).build();
+    public VectorStore vectorStore(EmbeddingModel ollamaEmbeddingModel, QueryEmbeddingCache queryCache,
+                                   Environment env) throws IOException {
+        // Sorgu embedding'leri cache'ten; doküman batch'leri doğrudan modele gider
+        EmbeddingModel embeddingModel = queryCache.wrap(ollamaEmbeddingModel);
+        String type = env.getProperty("app.vectorstore.type", "mapped").trim();
+        if ("simple".equalsIgnoreCase(type)) {
+            // Uygulama kapanınca bellekteki veri silinir; POC için ideal
+            return SimpleVectorStore.builder(embeddingModel).build();
+        }
+        // Diskte kalıcı, memory-mapped index: restart sonrası yeniden embed gerekmez.
+        // Re-ingest yeni bir generation kurar ve atomik olarak yerine koyar (bkz. IndexRefresher)
+        return new GenerationalVectorStore(embeddingModel,
+                Paths.get(env.getProperty("app.vectorstore.dir", "vector_index")),
+                IndexOptions.from(env));
+    }
+
+    /**
+     * Lexical index for hybrid retrieval next to an in-place store ({@code simple}). The
+     * generational store keeps one BM25 index per generation and swaps it with the vectors
+     * (see {@link GenerationalVectorStore#withCurrent}); this bean stays empty then.
+     */
+    @Bean
+    public Bm25Index bm25Index() {
+        return new Bm25Index();
     }
 }
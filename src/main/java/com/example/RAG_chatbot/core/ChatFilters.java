@@ -0,0 +1,93 @@
+package com.example.RAG_chatbot.core;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Translates the {@code filters} object of a chat request into a store filter expression.
+ *
+ * <pre>{"path": "river-x/events/**", "tag": ["crew", "ops"], "section": "...", "source": "..."}</pre>
+ * Each field takes a string or a list (any of them matches); fields are combined with AND.
+ * {@code path} is an exact repo path or a prefix ending in {@code /**}, which becomes a string
+ * range the store answers from its sorted bitmap index. {@code tag} matches front matter tags.
+ */
+public final class ChatFilters {
+
+    private static final Map<String, String> KEYS = Map.of(
+            "path", "repo_path",
+            "tag", "fm:tags",
+            "section", "section_id",
+            "source", "source");
+
+    private ChatFilters() {}
+
+    /** Null for no (or an empty) filter; {@link IllegalArgumentException} for an invalid one. */
+    public static Filter.Expression parse(Object filters) {
+        if (filters == null) return null;
+        if (!(filters instanceof Map<?, ?> map)) throw new IllegalArgumentException("filters must be an object");
+        Filter.Expression out = null;
+        for (Map.Entry<?, ?> e : map.entrySet()) {
+            String field = String.valueOf(e.getKey());
+            String key = KEYS.get(field);
+            if (key == null) throw new IllegalArgumentException("unknown filter '" + field + "', expected one of " + KEYS.keySet());
+            List<String> values = strings(field, e.getValue());
+            if (values.isEmpty()) continue;
+            Filter.Expression expr = "path".equals(field) ? paths(values) : in(key, values);
+            out = out == null ? expr : new Filter.Expression(Filter.ExpressionType.AND, out, expr);
+        }
+        return out;
+    }
+
+    private static Filter.Expression paths(List<String> globs) {
+        Filter.Expression out = null;
+        List<String> exact = new ArrayList<>();
+        for (String glob : globs) {
+            String g = glob.startsWith("/") ? glob.substring(1) : glob;
+            String prefix = g.endsWith("/**") ? g.substring(0, g.length() - 2) : null;
+            String literal = prefix == null ? g : prefix;
+            if (literal.indexOf('*') >= 0 || literal.indexOf('?') >= 0) {
+                throw new IllegalArgumentException("path supports an exact path or a 'dir/**' prefix: " + glob);
+            }
+            if (prefix == null) {
+                exact.add(g);
+                continue;
+            }
+            // prefix ≤ path < prefix + U+FFFF: sıralı değerlerde tek bir aralık
+            Filter.Expression range = new Filter.Expression(Filter.ExpressionType.AND,
+                    new Filter.Expression(Filter.ExpressionType.GTE, new Filter.Key("repo_path"), new Filter.Value(prefix)),
+                    new Filter.Expression(Filter.ExpressionType.LT, new Filter.Key("repo_path"), new Filter.Value(prefix + '\uffff')));
+            out = or(out, range);
+        }
+        if (!exact.isEmpty()) out = or(out, in("repo_path", exact));
+        return out;
+    }
+
+    private static Filter.Expression in(String key, List<String> values) {
+        return values.size() == 1
+                ? new Filter.Expression(Filter.ExpressionType.EQ, new Filter.Key(key), new Filter.Value(values.get(0)))
+                : new Filter.Expression(Filter.ExpressionType.IN, new Filter.Key(key), new Filter.Value(values));
+    }
+
+    private static Filter.Expression or(Filter.Expression a, Filter.Expression b) {
+        return a == null ? b : new Filter.Expression(Filter.ExpressionType.OR, a, b);
+    }
+
+    private static List<String> strings(String field, Object value) {
+        List<String> out = new ArrayList<>();
+        if (value instanceof String s) {
+            if (!s.isBlank()) out.add(s.trim());
+        } else if (value instanceof Collection<?> c) {
+            for (Object o : c) {
+                if (!(o instanceof String s)) throw new IllegalArgumentException(field + " values must be strings");
+                if (!s.isBlank()) out.add(s.trim());
+            }
+        } else if (value != null) {
+            throw new IllegalArgumentException(field + " must be a string or a list of strings");
+        }
+        return out;
+    }
+}
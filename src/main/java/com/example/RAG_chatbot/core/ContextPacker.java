@@ -0,0 +1,250 @@
+package com.example.RAG_chatbot.core;
+
+import com.example.RAG_chatbot.ingest.Chunker;
+import org.springframework.ai.document.Document;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Turns ranked hits into the CONTEXT passages of the prompt, spending as few tokens as possible.
+ *
+ * <ol>
+ *   <li>Hits from the same file (and PDF page) whose {@code offset}/{@code length} spans
+ *       overlap or are at most {@code mergeGap} characters apart are merged into one
+ *       contiguous passage, so overlapping text is sent once and neighbours read as one.</li>
+ *   <li>A passage whose word 3-grams are mostly ({@code duplicateThreshold}) contained in a
+ *       better-ranked passage is dropped (the same section copied into several files).</li>
+ *   <li>Passages are packed in rank order into {@code maxTokens}; the first one that does not
+ *       fit is cut between words if enough budget is left, and packing stops there.</li>
+ * </ol>
+ * Token counts use the ingest estimate ({@link Chunker#estimateTokens}) on the whitespace-collapsed
+ * text that actually goes into the prompt.
+ */
+public final class ContextPacker {
+
+    /** One CONTEXT entry; {@code chunks} are the merged chunk indexes in document order. */
+    public record Passage(String source, List<String> chunks, String text, int tokens, int rank) {}
+
+    /** Per-request accounting; {@code tokensIn} is what the hits would cost joined verbatim. */
+    public record Stats(int hits, int passages, int merged, int duplicates, int truncated, int dropped,
+                        int tokensIn, int tokensOut) {
+        public int tokensSaved() {
+            return tokensIn - tokensOut;
+        }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("hits", hits);
+            m.put("passages", passages);
+            m.put("merged", merged);
+            m.put("duplicates", duplicates);
+            m.put("truncated", truncated);
+            m.put("dropped", dropped);
+            m.put("tokensIn", tokensIn);
+            m.put("tokensOut", tokensOut);
+            m.put("tokensSaved", tokensSaved());
+            return m;
+        }
+    }
+
+    public record Packed(List<Passage> passages, Stats stats) {}
+
+    private static final int MIN_TRUNCATED_TOKENS = 64;
+
+    private final int maxTokens;
+    private final int mergeGap;
+    private final double duplicateThreshold;
+
+    public ContextPacker(int maxTokens, int mergeGap, double duplicateThreshold) {
+        this.maxTokens = Math.max(1, maxTokens);
+        this.mergeGap = Math.max(0, mergeGap);
+        this.duplicateThreshold = duplicateThreshold;
+    }
+
+    /** Builds a packer from {@code app.context.*} properties. */
+    public static ContextPacker fromEnv(Environment env) {
+        return new ContextPacker(
+                Integer.parseInt(env.getProperty("app.context.maxTokens", "2048")),
+                Integer.parseInt(env.getProperty("app.context.mergeGap", "16")),
+                Double.parseDouble(env.getProperty("app.context.duplicateThreshold", "0.8")));
+    }
+
+    private record Span(int rank, String source, String chunk, int start, int end, String text) {}
+
+    public Packed pack(List<Document> hits) {
+        int tokensIn = 0;
+        // dosya (+ sayfa) bazında grupla; offset'i olmayan hit tek başına kalır
+        Map<String, List<Span>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < hits.size(); i++) {
+            Document d = hits.get(i);
+            String text = d.getText() == null ? "" : d.getText();
+            String collapsed = collapse(text);
+            tokensIn += Chunker.estimateTokens(collapsed, 0, collapsed.length());
+            String source = meta(d, "source", "txt");
+            int offset = intMeta(d, "offset");
+            String group = offset < 0 ? "#" + i
+                    : source + "|" + meta(d, "repo_path", "") + "|" + meta(d, "page", "");
+            groups.computeIfAbsent(group, k -> new ArrayList<>())
+                    .add(new Span(i, source, meta(d, "chunk_index", "?"), Math.max(0, offset),
+                            Math.max(0, offset) + text.length(), text));
+        }
+
+        List<Passage> passages = new ArrayList<>();
+        int merged = 0;
+        for (List<Span> group : groups.values()) {
+            group.sort(Comparator.comparingInt(Span::start));
+            Span first = group.get(0);
+            StringBuilder sb = new StringBuilder(first.text());
+            List<String> chunks = new ArrayList<>(List.of(first.chunk()));
+            int end = first.end(), rank = first.rank();
+            for (int k = 1; k < group.size(); k++) {
+                Span s = group.get(k);
+                if (s.start() <= end + mergeGap) {
+                    // örtüşen kısmı atla, yalnızca yeni kuyruğu ekle
+                    if (s.end() > end) {
+                        if (s.start() >= end) sb.append('\n').append(s.text());
+                        else sb.append(s.text(), end - s.start(), s.text().length());
+                        end = s.end();
+                    }
+                    chunks.add(s.chunk());
+                    rank = Math.min(rank, s.rank());
+                    merged++;
+                } else {
+                    passages.add(passage(first.source(), chunks, sb, rank));
+                    sb = new StringBuilder(s.text());
+                    chunks = new ArrayList<>(List.of(s.chunk()));
+                    end = s.end();
+                    rank = s.rank();
+                }
+            }
+            passages.add(passage(first.source(), chunks, sb, rank));
+        }
+        passages.sort(Comparator.comparingInt(Passage::rank));
+
+        // neredeyse aynı pasajlar: daha iyi sıradaki kalır
+        List<Passage> unique = new ArrayList<>();
+        List<Set<Long>> kept = new ArrayList<>();
+        int duplicates = 0;
+        for (Passage p : passages) {
+            Set<Long> shingles = shingles(p.text());
+            boolean duplicate = false;
+            for (Set<Long> k : kept) {
+                if (containment(shingles, k) >= duplicateThreshold) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (duplicate) {
+                duplicates++;
+                continue;
+            }
+            unique.add(p);
+            kept.add(shingles);
+        }
+
+        List<Passage> packed = new ArrayList<>();
+        int budget = maxTokens, truncated = 0;
+        for (Passage p : unique) {
+            if (p.tokens() <= budget) {
+                packed.add(p);
+                budget -= p.tokens();
+                continue;
+            }
+            if (budget >= MIN_TRUNCATED_TOKENS || packed.isEmpty()) {
+                packed.add(truncate(p, budget));
+                truncated++;
+            }
+            break;
+        }
+        int tokensOut = packed.stream().mapToInt(Passage::tokens).sum();
+        Stats stats = new Stats(hits.size(), packed.size(), merged, duplicates, truncated,
+                unique.size() - packed.size(), tokensIn, tokensOut);
+        return new Packed(packed, stats);
+    }
+
+    private static Passage passage(String source, List<String> chunks, CharSequence text, int rank) {
+        String collapsed = collapse(text);
+        return new Passage(source, List.copyOf(chunks), collapsed,
+                Chunker.estimateTokens(collapsed, 0, collapsed.length()), rank);
+    }
+
+    /** Longest word-boundary prefix of the passage within {@code budget} tokens. */
+    private static Passage truncate(Passage p, int budget) {
+        String t = p.text();
+        int cut = 0, tokens = 0, i = 0;
+        while (i < t.length()) {
+            int ws = i;
+            while (i < t.length() && t.charAt(i) != ' ') i++;
+            int wt = Chunker.estimateTokens(t, ws, i);
+            if (tokens + wt > budget) break;
+            tokens += wt;
+            cut = i;
+            i++;
+        }
+        return new Passage(p.source(), p.chunks(), t.substring(0, cut), tokens, p.rank());
+    }
+
+    /** Same as {@code replaceAll("\\s+", " ").trim()}, which the prompt always applied. */
+    static String collapse(CharSequence s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean space = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = !sb.isEmpty();
+                continue;
+            }
+            if (space) sb.append(' ');
+            space = false;
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /** Hashes of lower-cased word 3-grams (single words for very short passages). */
+    private static Set<Long> shingles(String text) {
+        String[] words = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        List<String> w = new ArrayList<>(words.length);
+        for (String x : words) if (!x.isEmpty()) w.add(x);
+        Set<Long> out = new HashSet<>();
+        int n = w.size() < 3 ? 1 : 3;
+        for (int i = 0; i + n <= w.size(); i++) {
+            long h = 1125899906842597L;
+            for (int k = 0; k < n; k++) h = 31 * h + w.get(i + k).hashCode();
+            out.add(h);
+        }
+        return out;
+    }
+
+    /** Share of {@code a}'s shingles that also occur in {@code b}. */
+    private static double containment(Set<Long> a, Set<Long> b) {
+        if (a.isEmpty()) return 1;
+        int common = 0;
+        for (Long x : a) if (b.contains(x)) common++;
+        return (double) common / a.size();
+    }
+
+    private static String meta(Document d, String key, String def) {
+        Object v = d.getMetadata().get(key);
+        return v == null ? def : Objects.toString(v, def);
+    }
+
+    private static int intMeta(Document d, String key) {
+        Object v = d.getMetadata().get(key);
+        if (v instanceof Number n) return n.intValue();
+        try {
+            return v == null ? -1 : Integer.parseInt(v.toString().trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.RAG_chatbot.core;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for chat questions: concurrent requests with the same normalized question
+ * (and the same metadata filter, if any) share one retrieval and one generation.
+ *
+ * The first request (leader) runs the work; requests arriving while it is in flight wait for
+ * its result (or its exception) instead of starting their own. The entry is removed when the
+ * work finishes, so a later request computes again (or hits the answer cache).
+ *
+ * Streaming answers are shared the same way: every caller gets a view of one replaying token
+ * stream, so a late joiner first receives the tokens already generated. The LLM call starts
+ * with the first subscriber and is cancelled only when every subscriber has gone. If no view
+ * is ever subscribed, discarding the last one releases the LLM slot.
+ */
+final class InFlightAnswers {
+
+    private final Map<String, CompletableFuture<Map<String, Object>>> answers = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<SharedStream>> streams = new ConcurrentHashMap<>();
+    private final Counter coalescedAnswers;
+    private final Counter coalescedStreams;
+
+    InFlightAnswers(MeterRegistry registry) {
+        this.coalescedAnswers = Counter.builder("rag.chat.coalesced").tag("mode", "blocking")
+                .description("Aynı soru zaten işlenirken ona katılan istekler").register(registry);
+        this.coalescedStreams = Counter.builder("rag.chat.coalesced").tag("mode", "stream")
+                .description("Aynı soru zaten işlenirken ona katılan istekler").register(registry);
+        Gauge.builder("rag.chat.inflight", this, a -> a.answers.size() + a.streams.size()).register(registry);
+    }
+
+    static String key(String question, Object filter) {
+        String q = QueryEmbeddingCache.normalize(question);
+        return filter == null ? q : q + '\u0000' + filter;
+    }
+
+    Map<String, Object> answer(String question, Supplier<Map<String, Object>> work) {
+        return answer(question, null, work);
+    }
+
+    Map<String, Object> answer(String question, Object filter, Supplier<Map<String, Object>> work) {
+        String key = key(question, filter);
+        CompletableFuture<Map<String, Object>> mine = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> running = answers.putIfAbsent(key, mine);
+        if (running != null) {
+            coalescedAnswers.increment();
+            return join(running);
+        }
+        try {
+            Map<String, Object> payload = work.get();
+            mine.complete(payload);
+            return payload;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            answers.remove(key, mine);
+        }
+    }
+
+    RagService.StreamingAnswer stream(String question, Supplier<RagService.StreamingAnswer> work) {
+        return stream(question, null, work);
+    }
+
+    RagService.StreamingAnswer stream(String question, Object filter, Supplier<RagService.StreamingAnswer> work) {
+        String key = key(question, filter);
+        CompletableFuture<SharedStream> mine = new CompletableFuture<>();
+        CompletableFuture<SharedStream> running = streams.putIfAbsent(key, mine);
+        if (running != null) {
+            coalescedStreams.increment();
+            return join(running).view();
+        }
+        try {
+            SharedStream shared = new SharedStream(work.get(), () -> streams.remove(key, mine));
+            RagService.StreamingAnswer view = shared.view();    // lider view'ı, tamamlanmadan önce sayılmalı
+            mine.complete(shared);
+            return view;
+        } catch (RuntimeException | Error e) {
+            streams.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> f) {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            if (e.getCause() instanceof Error err) throw err;
+            throw e;
+        }
+    }
+
+    /** One leader answer fanned out to any number of views. */
+    private static final class SharedStream {
+
+        private final RagService.StreamingAnswer source;
+        private final Runnable onDone;
+        private final Flux<String> shared;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicInteger views = new AtomicInteger();
+
+        SharedStream(RagService.StreamingAnswer source, Runnable onDone) {
+            this.source = source;
+            this.onDone = onDone;
+            // upstream tek sefer çalışır: herkes iptal ettikten sonra gelen abone yeni bir LLM çağrısı başlatmaz
+            this.shared = Flux.defer(() -> started.compareAndSet(false, true)
+                            ? source.tokens()
+                            : Flux.<String>error(new IllegalStateException("shared answer stream already ended")))
+                    .doFinally(signal -> onDone.run())
+                    .replay()
+                    .refCount();
+        }
+
+        RagService.StreamingAnswer view() {
+            views.incrementAndGet();
+            AtomicBoolean closed = new AtomicBoolean();
+            LlmBulkhead.Permit release = () -> {
+                if (!closed.compareAndSet(false, true)) return;
+                // son view da bırakıldı ve akış hiç başlamadı: LLM slotunu serbest bırak
+                if (views.decrementAndGet() == 0 && started.compareAndSet(false, true)) {
+                    source.discard();
+                    onDone.run();
+                }
+            };
+            return new RagService.StreamingAnswer(source.usedChunks(), shared.doFinally(signal -> release.close()),
+                    source.ttftNanos(), release);
+        }
+    }
+}
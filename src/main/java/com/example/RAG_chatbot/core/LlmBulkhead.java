@@ -0,0 +1,138 @@
+package com.example.RAG_chatbot.core;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Concurrency limit with a bounded wait queue in front of LLM calls.
+ *
+ * At most {@code maxConcurrent} generations run against Ollama at once; up to
+ * {@code maxQueue} more requests wait (fairly, in arrival order) for at most
+ * {@code maxWaitMs}. A request arriving at a full queue is rejected at once with 429, one
+ * that waited too long with 503, both with a {@code Retry-After} estimated from the recent
+ * average generation time and the current backlog. Requests run on virtual threads, so a
+ * waiting request costs no platform thread and health checks/static assets are not starved.
+ */
+@Component
+public class LlmBulkhead {
+
+    /** A held slot; closing it more than once is harmless. */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitMs;
+    private final Semaphore slots;
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile double avgHoldMs = 5_000;    // EWMA; ilk tahmin: 5 sn'lik bir cevap
+
+    private final Timer waitTimer;
+    private final Counter rejectedFull;
+    private final Counter rejectedTimeout;
+
+    @Autowired
+    public LlmBulkhead(Environment env, MeterRegistry registry) {
+        this(Integer.parseInt(env.getProperty("app.llm.bulkhead.maxConcurrent", "4")),
+                Integer.parseInt(env.getProperty("app.llm.bulkhead.maxQueue", "32")),
+                Long.parseLong(env.getProperty("app.llm.bulkhead.maxWaitMs", "10000")),
+                registry);
+    }
+
+    LlmBulkhead(int maxConcurrent, int maxQueue, long maxWaitMs, MeterRegistry registry) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWaitMs = Math.max(0, maxWaitMs);
+        this.slots = new Semaphore(this.maxConcurrent, true);
+        this.waitTimer = Timer.builder("rag.llm.bulkhead.wait")
+                .description("LLM slotu için kuyrukta bekleme süresi")
+                .publishPercentileHistogram()
+                .maximumExpectedValue(Duration.ofMillis(Math.max(1, this.maxWaitMs)))
+                .register(registry);
+        this.rejectedFull = Counter.builder("rag.llm.bulkhead.rejected").tag("reason", "queue_full").register(registry);
+        this.rejectedTimeout = Counter.builder("rag.llm.bulkhead.rejected").tag("reason", "timeout").register(registry);
+        Gauge.builder("rag.llm.bulkhead.queue", waiting, AtomicInteger::get)
+                .description("LLM slotu bekleyen istekler").register(registry);
+        Gauge.builder("rag.llm.bulkhead.active", active, AtomicInteger::get)
+                .description("Çalışan LLM çağrıları").register(registry);
+    }
+
+    /** Waits for a slot (bounded by the queue size and {@code maxWaitMs}) or throws {@link LlmOverloadedException}. */
+    public Permit acquire() {
+        long t0 = System.nanoTime();
+        if (!tryAcquire(0)) {               // adil semaphore: bekleyenlerin önüne geçmez
+            if (waiting.incrementAndGet() > maxQueue) {
+                waiting.decrementAndGet();
+                rejectedFull.increment();
+                throw new LlmOverloadedException(429, retryAfterSeconds(), "LLM queue is full");
+            }
+            boolean acquired;
+            try {
+                acquired = tryAcquire(maxWaitMs);
+            } finally {
+                waiting.decrementAndGet();
+            }
+            if (!acquired) {
+                rejectedTimeout.increment();
+                waitTimer.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+                throw new LlmOverloadedException(503, retryAfterSeconds(), "Timed out waiting for an LLM slot");
+            }
+        }
+        waitTimer.record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        active.incrementAndGet();
+        long held = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (!released.compareAndSet(false, true)) return;
+            double ms = (System.nanoTime() - held) / 1e6;
+            avgHoldMs = avgHoldMs * 0.8 + ms * 0.2;
+            active.decrementAndGet();
+            slots.release();
+        };
+    }
+
+    private boolean tryAcquire(long ms) {
+        try {
+            return slots.tryAcquire(ms, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /** Runs {@code call} while holding a slot. */
+    public <T> T call(Supplier<T> call) {
+        try (Permit p = acquire()) {
+            return call.get();
+        }
+    }
+
+    /** Time until the current backlog (plus this request) should have drained, at least 1 s. */
+    long retryAfterSeconds() {
+        double rounds = (waiting.get() + 1.0) / maxConcurrent;
+        return Math.max(1, (long) Math.ceil(rounds * avgHoldMs / 1000.0));
+    }
+
+    public int waiting() {
+        return waiting.get();
+    }
+
+    public int active() {
+        return active.get();
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.RAG_chatbot.core;
+
+/**
+ * Thrown by {@link LlmBulkhead} when an LLM call cannot get a slot: the wait queue is full
+ * ({@code 429}) or the wait timed out ({@code 503}). Carries the {@code Retry-After} hint.
+ */
+public class LlmOverloadedException extends RuntimeException {
+
+    private final int status;
+    private final long retryAfterSeconds;
+
+    public LlmOverloadedException(int status, long retryAfterSeconds, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /** HTTP status to answer with: 429 (queue full) or 503 (timed out waiting). */
+    public int status() {
+        return status;
+    }
+
+    public long retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.RAG_chatbot.core;
+
+import org.springframework.ai.document.Document;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * The text-only parts of answering a question: the user prompt built from packed passages and
+ * the {@code usedChunks} list returned to the client. Both are pure functions of their
+ * arguments (no model, store or configuration), so they can be reused and measured on their own.
+ */
+public final class PromptBuilder {
+
+    private static final int PREVIEW_CHARS = 160;
+
+    private PromptBuilder() {
+    }
+
+    /**
+     * {@code QUESTION}, then one {@code CONTEXT} line per passage in the given order, then one
+     * {@code [source: ... chunk:...]} citation per passage. Passages are expected to come from
+     * {@link ContextPacker} (merged, de-duplicated, within budget); they are not re-checked here.
+     */
+    public static String prompt(String userQuestion, List<ContextPacker.Passage> passages) {
+        String context = passages.stream()
+                .map(p -> "- " + p.text())
+                .collect(Collectors.joining("\n"));
+
+        String citations = passages.stream()
+                .map(p -> "[source: " + p.source() + " chunk:" + String.join(",", p.chunks()) + "]")
+                .collect(Collectors.joining(" "));
+
+        return "QUESTION:\n" + userQuestion + "\n\nCONTEXT:\n" + context + "\n\n" + citations;
+    }
+
+    /**
+     * One entry per hit, in hit order: {@code source, page, chunk, offset, length, preview,
+     * retrievedBy}. Missing metadata becomes a default ({@code ""}, {@code "?"} for the chunk,
+     * {@code "vector"} for retrievedBy); the preview is the first 160 characters, whitespace collapsed.
+     */
+    public static List<Map<String, Object>> usedChunks(List<Document> hits) {
+        return hits.stream().map(d -> {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("source",  meta(d, "source", ""));
+            m.put("page",    meta(d, "page", ""));
+            m.put("chunk",   meta(d, "chunk_index", "?"));
+            m.put("offset",  meta(d, "offset", ""));
+            m.put("length",  meta(d, "length", ""));
+            m.put("preview", preview(safeText(d), PREVIEW_CHARS));
+            m.put("retrievedBy", meta(d, "retrieved_by", "vector"));
+            return m;
+        }).toList();
+    }
+
+    /** Eski/yeni Spring AI sürümleriyle uyum için: getText() içeriği güvenle al */
+    private static String safeText(Document d) {
+        String t = d.getText();
+        return t == null ? "" : t;
+    }
+
+    private static String preview(String s, int n) {
+        if (s == null) return "";
+        s = s.replaceAll("\\s+", " ").trim();
+        return s.substring(0, Math.min(n, s.length()));
+    }
+
+    /** Metadata’yı null-safe şekilde oku ve stringe çevir. */
+    private static String meta(Document d, String key, String def) {
+        Object v = d.getMetadata().get(key);
+        return v == null ? def : Objects.toString(v, def);
+    }
+}
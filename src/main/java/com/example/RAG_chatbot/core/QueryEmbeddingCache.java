@@ -0,0 +1,248 @@
+package com.example.RAG_chatbot.core;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Normalized query text → embedding vector, so a repeated question never reaches Ollama.
+ *
+ * Only single-text {@code embed(String)} calls go through the cache (that is how the vector
+ * stores and the answer cache embed queries); document batches pass straight to the model
+ * so ingest does not flush it. Vectors are kept as plain {@code float[]} in an access-ordered
+ * map with LRU and TTL eviction. If {@code app.embedding.queryCache.persist} is on, the cache
+ * is written next to the vector index on shutdown and reloaded on start; the file is ignored
+ * when the embedding model name changed.
+ */
+@Component
+public class QueryEmbeddingCache {
+
+    private static final int MAGIC = 0x51454D42;   // "QEMB"
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final Path file;
+    private final String modelName;
+    private final LongSupplier clock;
+
+    // access-order: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer embedTimer;
+
+    @Autowired
+    public QueryEmbeddingCache(Environment env, MeterRegistry registry) {
+        this(Integer.parseInt(env.getProperty("app.embedding.queryCache.maxEntries", "10000")),
+                Long.parseLong(env.getProperty("app.embedding.queryCache.ttlMinutes", "1440")) * 60_000,
+                Boolean.parseBoolean(env.getProperty("app.embedding.queryCache.persist", "true"))
+                        ? Paths.get(env.getProperty("app.vectorstore.dir", "vector_index"), "query-embeddings.bin")
+                        : null,
+                env.getProperty("spring.ai.ollama.embedding.options.model", ""),
+                registry, System::currentTimeMillis);
+    }
+
+    QueryEmbeddingCache(int maxEntries, long ttlMs, Path file, String modelName,
+                        MeterRegistry registry, LongSupplier clock) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMs = ttlMs;
+        this.file = file;
+        this.modelName = modelName == null ? "" : modelName;
+        this.clock = clock;
+        this.hits = Counter.builder("rag.query.embedding.cache").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("rag.query.embedding.cache").tag("result", "miss").register(registry);
+        this.embedTimer = RagMetrics.stageTimer(registry, RagMetrics.Stage.EMBEDDING);
+        Gauge.builder("rag.query.embedding.cache.size", this, QueryEmbeddingCache::size).register(registry);
+        Gauge.builder("rag.query.embedding.cache.hit.ratio", this, QueryEmbeddingCache::hitRatio).register(registry);
+        if (file != null) load();
+    }
+
+    /** Returns the cached vector for {@code query}, computing it with {@code loader} on a miss. */
+    public float[] get(String query, Function<String, float[]> loader) {
+        String key = normalize(query);
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e != null && (ttlMs <= 0 || now - e.createdAt <= ttlMs)) {
+                hits.increment();
+                return e.vector.clone();
+            }
+        }
+        misses.increment();
+        float[] v = loader.apply(query);
+        put(key, v, now);
+        return v;
+    }
+
+    /**
+     * Embeds the queries that are not cached yet with one {@code batchLoader} call (one Ollama
+     * round trip for a whole question batch) and caches them, so the per-query {@link #get}
+     * calls that follow are hits. Returns the number of texts sent to the loader.
+     */
+    public int preload(List<String> queries, Function<List<String>, List<float[]>> batchLoader) {
+        long now = clock.getAsLong();
+        Map<String, String> missing = new LinkedHashMap<>();     // key -> first original text
+        synchronized (entries) {
+            for (String q : queries) {
+                String key = normalize(q);
+                Entry e = entries.get(key);
+                if (e == null || (ttlMs > 0 && now - e.createdAt > ttlMs)) missing.putIfAbsent(key, q);
+            }
+        }
+        if (missing.isEmpty()) return 0;
+        List<float[]> vectors = embedTimer.record(() -> batchLoader.apply(List.copyOf(missing.values())));
+        if (vectors == null || vectors.size() != missing.size()) {
+            throw new IllegalStateException("embedding batch returned " + (vectors == null ? 0 : vectors.size())
+                    + " vectors for " + missing.size() + " texts");
+        }
+        int i = 0;
+        for (String key : missing.keySet()) put(key, vectors.get(i++), now);
+        return missing.size();
+    }
+
+    private void put(String key, float[] v, long now) {
+        synchronized (entries) {
+            entries.put(key, new Entry(v.clone(), now));
+            if (entries.size() > maxEntries) {
+                Iterator<String> it = entries.keySet().iterator();
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Decorates {@code model} so its {@code embed(String)} calls are served from this cache;
+     * misses (actual model calls) are timed as the {@code embedding} stage.
+     */
+    public EmbeddingModel wrap(EmbeddingModel model) {
+        return new EmbeddingModel() {
+            @Override
+            public EmbeddingResponse call(EmbeddingRequest request) {
+                return model.call(request);
+            }
+
+            @Override
+            public float[] embed(String text) {
+                return get(text, q -> embedTimer.record(() -> model.embed(q)));
+            }
+
+            @Override
+            public float[] embed(Document document) {
+                return model.embed(document);
+            }
+
+            @Override
+            public int dimensions() {
+                return model.dimensions();
+            }
+        };
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public double hitRatio() {
+        double h = hits.count(), total = h + misses.count();
+        return total == 0 ? 0 : h / total;
+    }
+
+    static String normalize(String query) {
+        return query.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+    }
+
+    // ---- persistence ----
+
+    @PreDestroy
+    public void save() {
+        if (file == null || (size() == 0 && !Files.exists(file))) return;
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            int n;
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                synchronized (entries) {
+                    n = entries.size();
+                    out.writeInt(MAGIC);
+                    out.writeUTF(modelName);
+                    out.writeInt(n);
+                    // LRU → MRU order, so reloading rebuilds the same access order
+                    for (Map.Entry<String, Entry> me : entries.entrySet()) {
+                        out.writeUTF(me.getKey());
+                        out.writeLong(me.getValue().createdAt);
+                        float[] v = me.getValue().vector;
+                        out.writeInt(v.length);
+                        for (float x : v) out.writeFloat(x);
+                    }
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            System.out.printf("[QueryCache] saved %d query embeddings to %s%n", n, file);
+        } catch (IOException e) {
+            System.out.printf("[QueryCache] save failed: %s%n", e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(file)) return;
+        long now = clock.getAsLong();
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) return;
+            if (!modelName.equals(in.readUTF())) {
+                System.out.printf("[QueryCache] %s was built with another embedding model; ignored%n", file);
+                return;
+            }
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String key = in.readUTF();
+                long created = in.readLong();
+                float[] v = new float[in.readInt()];
+                for (int d = 0; d < v.length; d++) v[d] = in.readFloat();
+                if (ttlMs <= 0 || now - created <= ttlMs) entries.put(key, new Entry(v, created));
+            }
+            while (entries.size() > maxEntries) {
+                Iterator<String> it = entries.keySet().iterator();
+                it.next();
+                it.remove();
+            }
+            System.out.printf("[QueryCache] loaded %d query embeddings from %s%n", entries.size(), file);
+        } catch (IOException e) {
+            entries.clear();
+            System.out.printf("[QueryCache] load failed, starting empty: %s%n", e.getMessage());
+        }
+    }
+
+    private record Entry(float[] vector, long createdAt) {}
+}
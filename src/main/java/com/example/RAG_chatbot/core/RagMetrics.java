@@ -0,0 +1,107 @@
+package com.example.RAG_chatbot.core;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters of the RAG request path, exported at {@code /actuator/prometheus}.
+ *
+ * Every stage is one {@code rag.stage.duration} timer tagged with {@code stage}, published
+ * as a histogram so p50/p95/p99 can be computed across instances. {@code vector_search} is
+ * the whole store call and so includes {@code embedding} of the question.
+ */
+@Component
+public class RagMetrics {
+
+    public enum Stage {
+        ANSWER_CACHE("answer_cache"),
+        EMBEDDING("embedding"),
+        VECTOR_SEARCH("vector_search"),
+        BM25("bm25"),
+        FUSION("fusion"),
+        PROMPT("prompt"),
+        GENERATION("generation");
+
+        final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Map<Stage, Timer> stages = new EnumMap<>(Stage.class);
+    private final Counter hits;
+    private final Counter emptyResults;
+    private final Counter promptChars;
+    private final Counter generatedTokens;
+    private final Counter contextTokensSaved;
+    private final Counter contextDuplicates;
+    private final Counter contextOverBudget;
+
+    public RagMetrics(MeterRegistry registry) {
+        for (Stage s : Stage.values()) stages.put(s, stageTimer(registry, s));
+        this.hits = Counter.builder("rag.retrieval.hits")
+                .description("Prompt'a giren chunk sayısı (toplam)")
+                .register(registry);
+        this.emptyResults = Counter.builder("rag.retrieval.empty")
+                .description("Hiç chunk bulunamayan istekler")
+                .register(registry);
+        this.promptChars = Counter.builder("rag.prompt.chars")
+                .description("LLM'e giden kullanıcı prompt'unun karakter sayısı (toplam)")
+                .register(registry);
+        this.generatedTokens = Counter.builder("rag.generation.tokens")
+                .description("LLM'in ürettiği token sayısı (toplam)")
+                .register(registry);
+        this.contextTokensSaved = Counter.builder("rag.context.tokens.saved")
+                .description("Birleştirme/tekilleştirme/bütçe ile prompt'tan düşülen token sayısı (toplam)")
+                .register(registry);
+        this.contextDuplicates = Counter.builder("rag.context.passages.dropped").tag("reason", "duplicate")
+                .register(registry);
+        this.contextOverBudget = Counter.builder("rag.context.passages.dropped").tag("reason", "budget")
+                .register(registry);
+    }
+
+    /** The shared timer definition, also used by components that record a stage themselves. */
+    static Timer stageTimer(MeterRegistry registry, Stage stage) {
+        return Timer.builder("rag.stage.duration")
+                .description("RAG istek aşamalarının süresi")
+                .tag("stage", stage.tag)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(2))
+                .register(registry);
+    }
+
+    /** Records the time since {@code startNanos} and returns it. */
+    public long record(Stage stage, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        stages.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+        return nanos;
+    }
+
+    public void hits(int count) {
+        hits.increment(count);
+        if (count == 0) emptyResults.increment();
+    }
+
+    public void promptChars(int chars) {
+        promptChars.increment(chars);
+    }
+
+    public void generatedTokens(long tokens) {
+        if (tokens > 0) generatedTokens.increment(tokens);
+    }
+
+    public void context(ContextPacker.Stats stats) {
+        if (stats.tokensSaved() > 0) contextTokensSaved.increment(stats.tokensSaved());
+        contextDuplicates.increment(stats.duplicates());
+        contextOverBudget.increment(stats.dropped());
+    }
+}
@@ -1,119 +1,452 @@
 package com.example.RAG_chatbot.core;
 
+import com.example.RAG_chatbot.store.Bm25Index;
+import com.example.RAG_chatbot.store.GenerationalVectorStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Service;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.Filter;
+import reactor.core.publisher.Flux;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.LinkedHashMap;
-import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class RagService {
+    private static final String NO_CONTEXT_ANSWER = "Üzgünüm, ilgili içerik bulamadım.";
+
+    private static final String SYSTEM_PROMPT = """
+            You are Avsos wiki assistant.
+            Answer ONLY using the CONTEXT below. If not enough, say you don't know.
+            At the end, list short citations like: [source: <source> chunk:<idx>].
+            """;
+
     private final ChatClient chat;
     private final VectorStore store;
+    private final Timer ttft;
+    private final Timer streamDuration;
+    private final SemanticAnswerCache cache;
+    private final Bm25Index bm25;
+    private final boolean hybrid;
+    private final int topK;
+    private final int candidateCount;
+    private final int rrfK;
+    private final RagMetrics metrics;
+    private final RetrievalLog retrievalLog;
+    private final LlmBulkhead bulkhead;
+    private final InFlightAnswers inFlight;
+    private final ContextPacker packer;
+    private final EmbeddingModel embeddingModel;
+    private final QueryEmbeddingCache queryCache;
+    private final EmbeddingModel queryEmbedder;
+    private final int batchEmbedSize;
+    private final int batchRetrievalParallelism;
+    private final int batchConcurrency;
 
-    public RagService(ChatClient.Builder builder, VectorStore store) {
+    public RagService(ChatClient.Builder builder, VectorStore store, MeterRegistry registry,
+                      SemanticAnswerCache cache, Bm25Index bm25, Environment env,
+                      RagMetrics metrics, RetrievalLog retrievalLog, LlmBulkhead bulkhead,
+                      EmbeddingModel embeddingModel, QueryEmbeddingCache queryCache) {
         this.chat = builder.build();
         this.store = store;
+        this.cache = cache;
+        this.bm25 = bm25;
+        this.metrics = metrics;
+        this.retrievalLog = retrievalLog;
+        this.bulkhead = bulkhead;
+        this.inFlight = new InFlightAnswers(registry);
+        this.packer = ContextPacker.fromEnv(env);
+        this.embeddingModel = embeddingModel;
+        this.queryCache = queryCache;
+        this.queryEmbedder = queryCache.wrap(embeddingModel);
+        this.batchEmbedSize = Math.max(1, Integer.parseInt(env.getProperty("app.chat.batch.embedBatchSize", "64")));
+        this.batchRetrievalParallelism = Math.max(1, Integer.parseInt(env.getProperty("app.chat.batch.retrievalParallelism", "8")));
+        this.batchConcurrency = Math.max(1, Integer.parseInt(env.getProperty("app.chat.batch.concurrency", "2")));
+        this.hybrid = Boolean.parseBoolean(env.getProperty("app.retrieval.hybrid", "true"));
+        this.topK = Integer.parseInt(env.getProperty("app.retrieval.topK", "5"));
+        this.candidateCount = Integer.parseInt(env.getProperty("app.retrieval.candidates", "20"));
+        this.rrfK = Integer.parseInt(env.getProperty("app.retrieval.rrfK", "60"));
+        this.ttft = Timer.builder("rag.chat.ttft")
+                .description("Streaming isteğinde ilk token'a kadar geçen süre (retrieval dahil)")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        this.streamDuration = Timer.builder("rag.chat.stream.duration")
+                .description("Streaming cevabın tamamlanma süresi")
+                .register(registry);
     }
 
-    /** Cevabı ve kullanılan chunk’ları birlikte döndürür + konsola loglar */
+    /**
+     * Cevabı ve kullanılan chunk'ları birlikte döndürür. Her aşamanın süresi
+     * {@code rag.stage.duration} timer'ına yazılır; örneklenen istekler {@link RetrievalLog}'a gider.
+     */
     public Map<String, Object> answerWithDebug(String userQuestion) {
-        var req = SearchRequest.builder()
-                .query(userQuestion)
-                .topK(5)
-                .similarityThreshold(0.5)
-                .build();
+        return answerWithDebug(userQuestion, null);
+    }
 
-        List<Document> hits = store.similaritySearch(req);
-
-        // ---- Konsola okunur log ----
-        System.out.println("=== Retrieved Chunks ===");
-        for (int i = 0; i < hits.size(); i++) {
-            Document d = hits.get(i);
-            System.out.printf("#%d src=%s page=%s chunk=%s offset=%s len=%s%n",
-                    i + 1,
-                    d.getMetadata().get("source"),
-                    d.getMetadata().get("page"),
-                    d.getMetadata().get("chunk_index"),
-                    d.getMetadata().get("offset"),
-                    d.getMetadata().get("length")
-            );
-            String prev = safeText(d);
-            if (!prev.isEmpty()) {
-                prev = prev.replaceAll("\\s+", " ");
-                System.out.println("Preview: " + prev.substring(0, prev.length()));
+    /**
+     * Metadata filtreli varyant ({@link ChatFilters}); {@code filter} null ise tüm corpus.
+     * Filtreli sorular semantik cache'e girmez: aynı soru farklı alt kümede farklı cevaplanır.
+     */
+    public Map<String, Object> answerWithDebug(String userQuestion, Filter.Expression filter) {
+        // Aynı soru (aynı filtreyle) şu an işleniyorsa ona katıl: tek retrieval + tek LLM çağrısı
+        return inFlight.answer(userQuestion, filter, () -> answerOnce(userQuestion, filter));
+    }
+
+    private Map<String, Object> answerOnce(String userQuestion, Filter.Expression filter) {
+        Prepared p = prepare(userQuestion, filter);
+        return p.payload() != null ? p.payload() : generate(p);
+    }
+
+    /**
+     * Generation'a kadar olan kısım: cevap cache'i, retrieval ve prompt. Cache hit'i ya da boş
+     * sonuç için {@code payload} doludur ve LLM çağrılmaz.
+     */
+    private record Prepared(String question, SemanticAnswerCache.Lookup cached, List<Document> hits,
+                            Prompt prompt, Map<RagMetrics.Stage, Long> timings, Map<String, Object> payload) {}
+
+    private Prepared prepare(String userQuestion, Filter.Expression filter) {
+        Map<RagMetrics.Stage, Long> timings = new EnumMap<>(RagMetrics.Stage.class);
+
+        // ---- Semantik cache: aynı/çok benzer soru daha önce cevaplandıysa retrieval + LLM atlanır ----
+        SemanticAnswerCache.Lookup cached = null;
+        if (filter == null) {
+            long t = System.nanoTime();
+            cached = cache.lookup(userQuestion);
+            timings.put(RagMetrics.Stage.ANSWER_CACHE, metrics.record(RagMetrics.Stage.ANSWER_CACHE, t));
+            if (cached.hit()) {
+                return new Prepared(userQuestion, cached, List.of(), null, timings, cached.payload());
             }
-            System.out.println("------------------------");
         }
 
+        List<Document> hits = retrieve(userQuestion, filter, timings);
+
         // ---- Boş sonuç guard ----
-        if (hits == null || hits.isEmpty()) {
-            return Map.of(
-                    "answer", "Üzgünüm, ilgili içerik bulamadım.",
+        if (hits.isEmpty()) {
+            Map<String, Object> empty = Map.of(
+                    "answer", NO_CONTEXT_ANSWER,
                     "usedChunks", List.of()
             );
+            if (cached != null) cache.put(cached, empty, Set.of());
+            retrievalLog.submit(userQuestion, hits, timings, null);
+            return new Prepared(userQuestion, cached, hits, null, timings, empty);
+        }
+
+        Prompt prompt = timedPrompt(userQuestion, hits, timings);
+        return new Prepared(userQuestion, cached, hits, prompt, timings, null);
+    }
+
+    private Map<String, Object> generate(Prepared p) {
+        ChatResponse response;
+        // Ollama önünde bulkhead: slot yoksa LlmOverloadedException (429/503 + Retry-After)
+        try (LlmBulkhead.Permit permit = bulkhead.acquire()) {
+            long t = System.nanoTime();
+            response = chat.prompt()
+                    .system(SYSTEM_PROMPT)
+                    .user(p.prompt().text())
+                    .call()
+                    .chatResponse();
+            p.timings().put(RagMetrics.Stage.GENERATION, metrics.record(RagMetrics.Stage.GENERATION, t));
+        }
+        metrics.generatedTokens(completionTokens(response));
+        String answer = response == null || response.getResult() == null
+                ? "" : response.getResult().getOutput().getText();
+
+        Map<String, Object> payload = Map.of("answer", answer, "usedChunks", PromptBuilder.usedChunks(p.hits()),
+                "context", p.prompt().context().toMap());
+        if (p.cached() != null) {
+            cache.put(p.cached(), payload, p.hits().stream().map(SemanticAnswerCache::sourceKey).collect(Collectors.toSet()));
+        }
+        retrievalLog.submit(p.question(), p.hits(), p.timings(), p.prompt().context());
+        return payload;
+    }
+
+    /**
+     * Toplu soru (QA regresyon setleri): eksik soru vektörleri tek {@code embed(List)} çağrısıyla
+     * ({@code embedBatchSize}'lık parçalar halinde) query cache'e yüklenir, retrieval'lar
+     * virtual thread'lerde en fazla {@code retrievalParallelism} paralel koşar, generation ise en
+     * fazla {@code concurrency} soruda aynı anda yapılır (bulkhead'in bir kısmı interaktif
+     * trafiğe kalsın diye). Her cevap bittiği anda {@code onResult}'a verilir (tamamlanma sırası,
+     * {@code index} soru sırasıdır); aynı soru batch içinde bir kez cevaplanır. {@code onResult}
+     * hata fırlatırsa (istemci koptu) bekleyen sorular başlatılmaz ve hata geri fırlatılır.
+     * Dönen map batch özetidir.
+     */
+    public Map<String, Object> answerBatch(List<String> questions, Filter.Expression filter,
+                                           Consumer<Map<String, Object>> onResult) {
+        long started = System.nanoTime();
+
+        // aynı soru (normalize edilmiş) tek iş: tüm index'lerine aynı sonuç yazılır
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        Map<String, String> texts = new LinkedHashMap<>();
+        for (int i = 0; i < questions.size(); i++) {
+            String key = QueryEmbeddingCache.normalize(questions.get(i));
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+            texts.putIfAbsent(key, questions.get(i));
+        }
+
+        long t = System.nanoTime();
+        List<String> distinct = List.copyOf(texts.values());
+        int embedded = 0;
+        for (int from = 0; from < distinct.size(); from += batchEmbedSize) {
+            List<String> part = distinct.subList(from, Math.min(distinct.size(), from + batchEmbedSize));
+            embedded += queryCache.preload(part, embeddingModel::embed);
+        }
+        long embedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t);
+
+        Semaphore retrievals = new Semaphore(batchRetrievalParallelism);
+        Semaphore generations = new Semaphore(batchConcurrency);
+        AtomicReference<RuntimeException> aborted = new AtomicReference<>();
+        AtomicInteger failed = new AtomicInteger();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map.Entry<String, List<Integer>> g : groups.entrySet()) {
+                String question = texts.get(g.getKey());
+                workers.submit(() -> {
+                    if (aborted.get() != null) return;
+                    long qStarted = System.nanoTime();
+                    Map<String, Object> result;
+                    try {
+                        result = batchAnswer(question, filter, retrievals, generations, aborted);
+                        if (result == null) return;
+                    } catch (LlmOverloadedException e) {
+                        failed.incrementAndGet();
+                        result = Map.of("error", e.getMessage(), "status", e.status(),
+                                "retryAfterSeconds", e.retryAfterSeconds());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                        result = Map.of("error", String.valueOf(e.getMessage()));
+                    }
+                    long ms = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - qStarted);
+                    for (int index : g.getValue()) {
+                        Map<String, Object> line = new LinkedHashMap<>();
+                        line.put("index", index);
+                        line.put("question", questions.get(index));
+                        line.putAll(result);
+                        line.put("ms", ms);
+                        try {
+                            synchronized (onResult) {
+                                onResult.accept(line);
+                            }
+                        } catch (RuntimeException e) {
+                            aborted.compareAndSet(null, e);
+                            return;
+                        }
+                    }
+                });
+            }
+        }
+        if (aborted.get() != null) throw aborted.get();
+
+        long totalMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("questions", questions.size());
+        summary.put("distinct", groups.size());
+        summary.put("embedded", embedded);
+        summary.put("embedMs", embedMs);
+        summary.put("failed", failed.get());
+        summary.put("totalMs", totalMs);
+        return summary;
+    }
+
+    /** Batch'teki tek soru: retrieval ve generation ayrı limitlerle; null: batch iptal edildi. */
+    private Map<String, Object> batchAnswer(String question, Filter.Expression filter, Semaphore retrievals,
+                                            Semaphore generations, AtomicReference<RuntimeException> aborted)
+            throws InterruptedException {
+        Prepared prepared;
+        retrievals.acquire();
+        try {
+            if (aborted.get() != null) return null;
+            prepared = prepare(question, filter);
+        } finally {
+            retrievals.release();
         }
+        if (prepared.payload() != null) return prepared.payload();     // cache hit ya da boş sonuç
+        generations.acquire();
+        try {
+            if (aborted.get() != null) return null;
+            return generate(prepared);
+        } finally {
+            generations.release();
+        }
+    }
+
+    /**
+     * Streaming varyantı: retrieval senkron yapılır (kullanılan chunk'lar hemen gönderilebilsin),
+     * cevap ise token token {@link Flux} olarak akar. İlk token'a kadar geçen süre
+     * (retrieval dahil) {@code rag.chat.ttft} timer'ına yazılır; akışın tamamı
+     * {@code generation} aşaması olarak, gelen parça sayısı üretilen token olarak sayılır.
+     * Aynı soruyu aynı anda soranlar tek akışı paylaşır (geç katılan, gelmiş token'ları baştan alır).
+     */
+    public StreamingAnswer streamAnswer(String userQuestion) {
+        return streamAnswer(userQuestion, null);
+    }
+
+    public StreamingAnswer streamAnswer(String userQuestion, Filter.Expression filter) {
+        return inFlight.stream(userQuestion, filter, () -> streamOnce(userQuestion, filter));
+    }
+
+    private StreamingAnswer streamOnce(String userQuestion, Filter.Expression filter) {
+        long started = System.nanoTime();
+        Map<RagMetrics.Stage, Long> timings = new EnumMap<>(RagMetrics.Stage.class);
+        List<Document> hits = retrieve(userQuestion, filter, timings);
+        AtomicLong ttftNanos = new AtomicLong(-1);
+        AtomicLong tokenCount = new AtomicLong();
+
+        // slot, SSE başlamadan alınır (dolu ise 429/503 dönülebilsin) ve akış bitince bırakılır
+        Prompt prompt = hits.isEmpty() ? null : timedPrompt(userQuestion, hits, timings);
+        LlmBulkhead.Permit permit = hits.isEmpty() ? () -> {} : bulkhead.acquire();
+
+        Flux<String> tokens;
+        if (hits.isEmpty()) {
+            tokens = Flux.just(NO_CONTEXT_ANSWER);
+        } else {
+            tokens = Flux.defer(() -> {
+                long generationStart = System.nanoTime();
+                return chat.prompt()
+                        .system(SYSTEM_PROMPT)
+                        .user(prompt.text())
+                        .stream()
+                        .content()
+                        .doOnNext(x -> tokenCount.incrementAndGet())
+                        .doOnComplete(() -> {
+                            timings.put(RagMetrics.Stage.GENERATION, metrics.record(RagMetrics.Stage.GENERATION, generationStart));
+                            metrics.generatedTokens(tokenCount.get());
+                        });
+            });
+        }
+
+        tokens = tokens
+                .doOnNext(t -> {
+                    if (ttftNanos.compareAndSet(-1, System.nanoTime() - started)) {
+                        ttft.record(ttftNanos.get(), TimeUnit.NANOSECONDS);
+                    }
+                })
+                .doOnComplete(() -> streamDuration.record(System.nanoTime() - started, TimeUnit.NANOSECONDS))
+                .doFinally(signal -> {
+                    permit.close();
+                    retrievalLog.submit(userQuestion, hits, timings, prompt == null ? null : prompt.context());
+                });
+
+        return new StreamingAnswer(PromptBuilder.usedChunks(hits), tokens, ttftNanos, permit);
+    }
+
+    /**
+     * Kullanılan chunk'lar + token akışı; ttftMs() ilk token gelene kadar -1 döner.
+     * Akışa hiç abone olunmayacaksa {@link #discard()} LLM slotunu bırakır.
+     */
+    public record StreamingAnswer(List<Map<String, Object>> usedChunks, Flux<String> tokens, AtomicLong ttftNanos,
+                                  LlmBulkhead.Permit permit) {
+        public long ttftMs() {
+            long n = ttftNanos.get();
+            return n < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(n);
+        }
+
+        public void discard() {
+            permit.close();
+        }
+    }
+
+    /**
+     * Hybrid retrieval: BM25 (exact identifiers, field/event names) runs on the common pool
+     * while the question is embedded and the vector store searched; both candidate lists are
+     * merged with RRF and cut back to {@code topK}, so the prompt does not grow. A metadata
+     * {@code filter} restricts both sides; the vector store resolves it to a row set before
+     * scoring. With the generational store both sides come from the same generation.
+     */
+    private List<Document> retrieve(String userQuestion, Filter.Expression filter, Map<RagMetrics.Stage, Long> timings) {
+        if (store instanceof GenerationalVectorStore live) {
+            List<Document> hits = live.withCurrent((vectors, lexical) ->
+                    retrieve(userQuestion, filter, timings, vectors, lexical));
+            if (hits != null) return hits;
+            metrics.hits(0);            // henüz generation yok
+            return List.of();
+        }
+        return retrieve(userQuestion, filter, timings, store, bm25);
+    }
+
+    private List<Document> retrieve(String userQuestion, Filter.Expression filter, Map<RagMetrics.Stage, Long> timings,
+                                    VectorStore vectorStore, Bm25Index bm25Index) {
+        int candidates = hybrid ? Math.max(topK, candidateCount) : topK;
+        var req = SearchRequest.builder()
+                .query(userQuestion)
+                .topK(candidates)
+                .similarityThreshold(0.5)
+                .filterExpression(filter)
+                .build();
+
+        long[] bm25Nanos = {-1};
+        CompletableFuture<List<Document>> lexical = hybrid
+                ? CompletableFuture.supplyAsync(() -> {
+                    long t = System.nanoTime();
+                    List<Document> r = bm25Index.search(userQuestion, candidates, filter);
+                    bm25Nanos[0] = metrics.record(RagMetrics.Stage.BM25, t);
+                    return r;
+                })
+                : CompletableFuture.completedFuture(List.of());
+        // Soru vektörü önce alınır ve query cache'e girer: store'un embed çağrısı cache hit olur,
+        // vector_search yalnızca aramayı ölçer (embedding süresi embedding aşamasında kalır)
+        long t = System.nanoTime();
+        queryEmbedder.embed(userQuestion);
+        timings.put(RagMetrics.Stage.EMBEDDING, System.nanoTime() - t);
+        t = System.nanoTime();
+        List<Document> vector = vectorStore.similaritySearch(req);
+        timings.put(RagMetrics.Stage.VECTOR_SEARCH, metrics.record(RagMetrics.Stage.VECTOR_SEARCH, t));
+        if (vector == null) vector = List.of();
+
+        List<Document> hits;
+        if (hybrid) {
+            Map<String, List<Document>> rankings = new LinkedHashMap<>();
+            rankings.put("vector", vector);
+            rankings.put("bm25", lexical.join());
+            timings.put(RagMetrics.Stage.BM25, bm25Nanos[0]);
+            t = System.nanoTime();
+            hits = RankFusion.rrf(rrfK, topK, rankings);
+            timings.put(RagMetrics.Stage.FUSION, metrics.record(RagMetrics.Stage.FUSION, t));
+        } else {
+            hits = vector;
+        }
+        metrics.hits(hits.size());
+        return hits;
+    }
+
+    /** Prompt text plus the packing stats of its CONTEXT section. */
+    private record Prompt(String text, ContextPacker.Stats context) {}
+
+    private Prompt timedPrompt(String userQuestion, List<Document> hits, Map<RagMetrics.Stage, Long> timings) {
+        long t = System.nanoTime();
+        ContextPacker.Packed packed = packer.pack(hits);
+        String prompt = PromptBuilder.prompt(userQuestion, packed.passages());
+        timings.put(RagMetrics.Stage.PROMPT, metrics.record(RagMetrics.Stage.PROMPT, t));
+        metrics.promptChars(prompt.length());
+        metrics.context(packed.stats());
+        return new Prompt(prompt, packed.stats());
+    }
 
-        // ---- Prompt hazırlığı ----
-        String context = hits.stream()
-                .map(d -> "- " + safeText(d).replaceAll("\\s+", " ").trim())
-                .collect(Collectors.joining("\n"));
-
-        String system = """
-                You are Avsos wiki assistant.
-                Answer ONLY using the CONTEXT below. If not enough, say you don't know.
-                At the end, list short citations like: [source: <source> chunk:<idx>].
-                """;
-
-        String citations = hits.stream()
-                .map(d -> "[source: " + meta(d, "source", "txt")
-                        + " chunk:" + meta(d, "chunk_index", "?") + "]")
-                .collect(Collectors.joining(" "));
-
-        String prompt = "QUESTION:\n" + userQuestion + "\n\nCONTEXT:\n" + context + "\n\n" + citations;
-
-        String answer = chat.prompt()
-                .system(system)
-                .user(prompt)
-                .call()
-                .content();
-
-        // ---- HTTP response için usedChunks listesi (null-safe) ----
-        List<Map<String, Object>> used = hits.stream().map(d -> {
-            Map<String, Object> m = new LinkedHashMap<>();
-            m.put("source",  meta(d, "source", ""));
-            m.put("page",    meta(d, "page", ""));
-            m.put("chunk",   meta(d, "chunk_index", "?"));
-            m.put("offset",  meta(d, "offset", ""));
-            m.put("length",  meta(d, "length", ""));
-            m.put("preview", preview(safeText(d), 160));
-            return m;
-        }).toList();
-
-        return Map.of("answer", answer, "usedChunks", used);
-    }
-
-    /** Eski/yeni Spring AI sürümleriyle uyum için: getText() içeriği güvenle al */
-    private static String safeText(Document d) {
-        String t = d.getText();
-        return t == null ? "" : t;
-    }
-
-    private static String preview(String s, int n) {
-        if (s == null) return "";
-        s = s.replaceAll("\\s+", " ").trim();
-        return s.substring(0, Math.min(n, s.length()));
-    }
-
-    /** Metadata’yı null-safe şekilde oku ve stringe çevir. */
-    private static String meta(Document d, String key, String def) {
-        Object v = d.getMetadata().get(key);
-        return v == null ? def : Objects.toString(v, def);
+    private static long completionTokens(ChatResponse response) {
+        if (response == null || response.getMetadata() == null || response.getMetadata().getUsage() == null) return 0;
+        Integer n = response.getMetadata().getUsage().getCompletionTokens();
+        return n == null ? 0 : n;
     }
 }
@@ -0,0 +1,51 @@
+package com.example.RAG_chatbot.core;
+
+import org.springframework.ai.document.Document;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reciprocal-rank fusion: {@code score(d) = Σ 1 / (k + rank_i(d))} over the rankings that
+ * contain d (rank starting at 1). Only ranks are used, so cosine similarities and BM25 scores
+ * need no calibration against each other; a document found by both retrievers rises above
+ * one found by a single retriever at a similar rank.
+ */
+public final class RankFusion {
+
+    private RankFusion() {}
+
+    /**
+     * Fuses named rankings by document id. The first occurrence's text/metadata is kept, with
+     * "rrf_score" and "retrieved_by" (e.g. "vector+bm25") added.
+     */
+    public static List<Document> rrf(int k, int topK, Map<String, List<Document>> rankings) {
+        Map<String, Double> score = new HashMap<>();
+        Map<String, Document> firstSeen = new LinkedHashMap<>();
+        Map<String, List<String>> foundBy = new HashMap<>();
+        for (Map.Entry<String, List<Document>> ranking : rankings.entrySet()) {
+            List<Document> docs = ranking.getValue();
+            for (int i = 0; i < docs.size(); i++) {
+                Document d = docs.get(i);
+                score.merge(d.getId(), 1.0 / (k + i + 1), Double::sum);
+                firstSeen.putIfAbsent(d.getId(), d);
+                foundBy.computeIfAbsent(d.getId(), x -> new ArrayList<>()).add(ranking.getKey());
+            }
+        }
+        return firstSeen.values().stream()
+                .sorted(Comparator.comparingDouble((Document d) -> score.get(d.getId())).reversed())
+                .limit(topK)
+                .map(d -> {
+                    Map<String, Object> meta = new HashMap<>(d.getMetadata());
+                    meta.put("rrf_score", score.get(d.getId()));
+                    meta.put("retrieved_by", String.join("+", foundBy.get(d.getId())));
+                    return Document.builder().id(d.getId()).text(d.getText()).metadata(meta)
+                            .score(score.get(d.getId())).build();
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.RAG_chatbot.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sampled, structured log of what retrieval returned: one JSON line per sampled request
+ * (question, hits with source/chunk/score and a short preview, per-stage milliseconds) on
+ * the {@code rag.retrieval} logger.
+ *
+ * The request thread only decides sampling and enqueues references; JSON building and the
+ * logger call run on one background thread. When the queue is full the event is dropped
+ * (and counted) rather than slowing the request down.
+ */
+@Component
+public class RetrievalLog {
+
+    private static final Logger log = LoggerFactory.getLogger("rag.retrieval");
+
+    record Event(long timestamp, String question, List<Document> hits, Map<RagMetrics.Stage, Long> stageNanos,
+                 ContextPacker.Stats context) {}
+
+    private final double sampleRate;
+    private final int previewChars;
+    private final BlockingQueue<Event> queue;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    @Autowired
+    public RetrievalLog(Environment env) {
+        this(Double.parseDouble(env.getProperty("app.retrieval.log.sampleRate", "0.1")),
+                Integer.parseInt(env.getProperty("app.retrieval.log.previewChars", "160")),
+                Integer.parseInt(env.getProperty("app.retrieval.log.queueSize", "1024")));
+    }
+
+    RetrievalLog(double sampleRate, int previewChars, int queueSize) {
+        this.sampleRate = sampleRate;
+        this.previewChars = previewChars;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+        this.writer = new Thread(this::drain, "retrieval-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /** Enqueues the request if it is sampled; never blocks. {@code context} is null when no prompt was built. */
+    public void submit(String question, List<Document> hits, Map<RagMetrics.Stage, Long> stageNanos,
+                       ContextPacker.Stats context) {
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) return;
+        if (!queue.offer(new Event(System.currentTimeMillis(), question, hits, stageNanos, context))) dropped.incrementAndGet();
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    private void drain() {
+        while (running || !queue.isEmpty()) {
+            try {
+                Event e = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (e != null && log.isInfoEnabled()) log.info(toJson(e));
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | JsonProcessingException ex) {
+                // tek bir kaydı yazamamak log thread'ini öldürmemeli
+                log.warn("retrieval log event skipped: {}", ex.getMessage());
+            }
+        }
+    }
+
+    String toJson(Event e) throws JsonProcessingException {
+        Map<String, Object> out = new LinkedHashMap<>();
+        out.put("ts", e.timestamp());
+        out.put("question", e.question());
+        out.put("hitCount", e.hits().size());
+        Map<String, Object> stages = new LinkedHashMap<>();
+        e.stageNanos().forEach((s, n) -> stages.put(s.tag, Math.round(n / 10_000.0) / 100.0));
+        out.put("stagesMs", stages);
+        if (e.context() != null) out.put("context", e.context().toMap());
+        List<Map<String, Object>> hits = new ArrayList<>(e.hits().size());
+        for (int i = 0; i < e.hits().size(); i++) {
+            Document d = e.hits().get(i);
+            Map<String, Object> h = new LinkedHashMap<>();
+            Map<String, Object> meta = d.getMetadata();
+            h.put("rank", i + 1);
+            h.put("retrievedBy", meta.getOrDefault("retrieved_by", "vector"));
+            h.put("source", meta.get("source"));
+            if (meta.containsKey("repo_path")) h.put("path", meta.get("repo_path"));
+            h.put("page", meta.get("page"));
+            h.put("chunk", meta.get("chunk_index"));
+            h.put("score", d.getScore());
+            h.put("length", meta.get("length"));
+            h.put("preview", preview(d.getText()));
+            hits.add(h);
+        }
+        out.put("hits", hits);
+        return mapper.writeValueAsString(out);
+    }
+
+    private String preview(String text) {
+        if (text == null || previewChars <= 0) return "";
+        StringBuilder sb = new StringBuilder(Math.min(text.length(), previewChars));
+        boolean space = false;
+        for (int i = 0; i < text.length() && sb.length() < previewChars; i++) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = !sb.isEmpty();
+                continue;
+            }
+            if (space) sb.append(' ');
+            space = false;
+            if (sb.length() < previewChars) sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join(2000);
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.RAG_chatbot.core;
+
+import com.example.RAG_chatbot.ingest.IngestCompletedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Answer cache keyed by question meaning rather than exact text.
+ *
+ * A lookup first tries the normalized question string (no embedding needed), then embeds
+ * the original question and scans the cached question vectors; the best entry with cosine
+ * similarity of at least {@code 1 - maxDistance} is a hit. Entries expire after
+ * {@code ttlMinutes} and the least recently used one is evicted beyond {@code maxEntries}.
+ * A linear scan is fine here: the cache holds at most a few thousand small vectors.
+ *
+ * Each entry remembers the sources (repo path, or source) of the chunks its answer was
+ * built from, so an {@link IngestCompletedEvent} drops only the answers that depend on
+ * re-ingested files (plus answers built from no chunks at all).
+ */
+@Component
+public class SemanticAnswerCache {
+
+    private final EmbeddingModel embeddingModel;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlMs;
+    private final float minSimilarity;
+    private final LongSupplier clock;
+
+    // access-order: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final Counter hits;
+    private final Counter semanticHits;
+    private final Counter misses;
+    private final Counter invalidated;
+
+    @Autowired
+    public SemanticAnswerCache(EmbeddingModel embeddingModel, QueryEmbeddingCache queryCache,
+                               Environment env, MeterRegistry registry) {
+        // Aynı soru store araması için tekrar embed edilmesin: ikisi de aynı query cache'i kullanır
+        this(queryCache.wrap(embeddingModel),
+                Boolean.parseBoolean(env.getProperty("app.chat.cache.enabled", "true")),
+                Integer.parseInt(env.getProperty("app.chat.cache.maxEntries", "1000")),
+                Long.parseLong(env.getProperty("app.chat.cache.ttlMinutes", "60")) * 60_000,
+                Float.parseFloat(env.getProperty("app.chat.cache.maxDistance", "0.05")),
+                registry, System::currentTimeMillis);
+    }
+
+    SemanticAnswerCache(EmbeddingModel embeddingModel, boolean enabled, int maxEntries, long ttlMs,
+                        float maxDistance, MeterRegistry registry, LongSupplier clock) {
+        this.embeddingModel = embeddingModel;
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMs = ttlMs;
+        this.minSimilarity = 1f - maxDistance;
+        this.clock = clock;
+        this.hits = Counter.builder("rag.answer.cache").tag("result", "hit").register(registry);
+        this.semanticHits = Counter.builder("rag.answer.cache").tag("result", "semantic_hit").register(registry);
+        this.misses = Counter.builder("rag.answer.cache").tag("result", "miss").register(registry);
+        this.invalidated = Counter.builder("rag.answer.cache.invalidated").register(registry);
+        Gauge.builder("rag.answer.cache.size", this, SemanticAnswerCache::size).register(registry);
+    }
+
+    /**
+     * Looks up an answer for {@code question}. The returned key must be passed to
+     * {@link #put} on a miss so the question is not embedded twice.
+     */
+    public Lookup lookup(String question) {
+        String text = normalize(question);
+        if (!enabled) return new Lookup(text, null, null);
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            Entry exact = entries.get(text);
+            if (exact != null && !expired(exact, now)) {
+                hits.increment();
+                return new Lookup(text, exact.vector, exact.payload);
+            }
+        }
+
+        // normalize edilmiş metin yalnızca map anahtarı; orijinal soru embed edilir, böylece paylaşılan
+        // QueryEmbeddingCache retrieval'a küçük harfe çevrilmiş metnin vektörünü vermez
+        float[] q = embed(question);
+        if (q != null) {
+            synchronized (entries) {
+                Entry best = null;
+                float bestSim = minSimilarity;
+                for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+                    Entry e = it.next();
+                    if (expired(e, now)) {
+                        it.remove();
+                        continue;
+                    }
+                    float sim = dot(q, e.vector);
+                    if (sim >= bestSim) {
+                        bestSim = sim;
+                        best = e;
+                    }
+                }
+                if (best != null) {
+                    entries.get(best.question);   // LRU touch
+                    semanticHits.increment();
+                    return new Lookup(text, q, best.payload);
+                }
+            }
+        }
+        misses.increment();
+        return new Lookup(text, q, null);
+    }
+
+    /** Stores an answer computed after a miss; {@code sources} are the keys from {@link #sourceKey}. */
+    public void put(Lookup key, Map<String, Object> payload, Set<String> sources) {
+        if (!enabled || key.vector() == null) return;
+        synchronized (entries) {
+            entries.put(key.question(), new Entry(key.question(), key.vector(), payload,
+                    Set.copyOf(sources), clock.getAsLong()));
+            while (entries.size() > maxEntries) {
+                Iterator<String> it = entries.keySet().iterator();
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    @EventListener
+    public void onIngest(IngestCompletedEvent event) {
+        if (event.full()) invalidateAll();
+        else invalidateSources(event.sources());
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidated.increment(entries.size());
+            entries.clear();
+        }
+        System.out.println("[AnswerCache] invalidated all entries");
+    }
+
+    /** Drops answers built from any of {@code sources}, and answers built from no chunks. */
+    public void invalidateSources(Set<String> sources) {
+        if (sources.isEmpty()) return;
+        int n = 0;
+        synchronized (entries) {
+            for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+                Entry e = it.next();
+                if (e.sources.isEmpty() || e.sources.stream().anyMatch(sources::contains)) {
+                    it.remove();
+                    n++;
+                }
+            }
+        }
+        invalidated.increment(n);
+        System.out.printf("[AnswerCache] invalidated %d entries for %d changed sources%n", n, sources.size());
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /** Source key of a retrieved chunk: the repo path for GitLab chunks, else the source. */
+    public static String sourceKey(Document d) {
+        Object path = d.getMetadata().get("repo_path");
+        return String.valueOf(path != null ? path : d.getMetadata().get("source"));
+    }
+
+    private boolean expired(Entry e, long now) {
+        return ttlMs > 0 && now - e.createdAt > ttlMs;
+    }
+
+    private float[] embed(String text) {
+        try {
+            float[] v = embeddingModel.embed(text);
+            double norm = 0;
+            for (float x : v) norm += x * x;
+            if (norm == 0) return null;
+            float inv = (float) (1.0 / Math.sqrt(norm));
+            float[] out = new float[v.length];
+            for (int i = 0; i < v.length; i++) out[i] = v[i] * inv;
+            return out;
+        } catch (RuntimeException e) {
+            System.out.printf("[AnswerCache] embed failed, bypassing cache: %s%n", e.getMessage());
+            return null;
+        }
+    }
+
+    private static float dot(float[] a, float[] b) {
+        if (a.length != b.length) return -1f;
+        float s = 0f;
+        for (int i = 0; i < a.length; i++) s += a[i] * b[i];
+        return s;
+    }
+
+    static String normalize(String question) {
+        return question.toLowerCase(Locale.ROOT).replaceAll("\\s+", " ").trim();
+    }
+
+    /** Result of a lookup; {@code payload} is null on a miss. */
+    public record Lookup(String question, float[] vector, Map<String, Object> payload) {
+        public boolean hit() {
+            return payload != null;
+        }
+    }
+
+    private record Entry(String question, float[] vector, Map<String, Object> payload,
+                         Set<String> sources, long createdAt) {}
+}
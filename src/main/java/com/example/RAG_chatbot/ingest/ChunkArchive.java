@@ -0,0 +1,303 @@
+package com.example.RAG_chatbot.ingest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.BiConsumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only archive of chunk records (one JSON object per chunk), replacing one file per chunk.
+ *
+ * <pre>
+ * archive/
+ *   seg-00000.dat   [byte codec][int rawLen][int storedLen][payload] ... rolled at segmentBytes
+ *   index.bin       [utf id][int segment][long offset][int recordLen] ... in append order
+ * </pre>
+ * Each record is its own compression block (deflate, kept raw if it does not shrink), so a
+ * reader finds a chunk by id in the in-memory index and fetches it with one positioned read.
+ * The {@link Writer} serializes, compresses and writes on a single background thread behind a
+ * bounded queue; producers only block when the disk falls behind. Nothing is fsynced until
+ * {@link Writer#close()}.
+ */
+public final class ChunkArchive {
+
+    static final String INDEX_FILE = "index.bin";
+    private static final byte RAW = 0;
+    private static final byte DEFLATE = 1;
+    private static final int HEADER = 1 + Integer.BYTES + Integer.BYTES;
+
+    private ChunkArchive() {}
+
+    static Path segment(Path dir, int no) {
+        return dir.resolve(String.format("seg-%05d.dat", no));
+    }
+
+    public static Writer openWriter(Path dir, ObjectMapper mapper, long segmentBytes, boolean compress)
+            throws IOException {
+        return new Writer(dir, mapper, segmentBytes, compress);
+    }
+
+    public static Reader openReader(Path dir, ObjectMapper mapper) throws IOException {
+        return new Reader(dir, mapper);
+    }
+
+    /** Background, append-only writer. {@link #append} is safe to call from one producer thread. */
+    public static final class Writer implements Closeable {
+
+        private static final Object[] EOF = new Object[0];
+
+        private final Path dir;
+        private final ObjectMapper mapper;
+        private final long segmentBytes;
+        private final Deflater deflater;
+        private final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<>(1024);
+        private final Thread thread;
+        private volatile Throwable failure;
+        private boolean closed;
+
+        private final DataOutputStream index;
+        private DataOutputStream out;
+        private int segNo = -1;
+        private long segPos;
+        private int records;
+        private long rawBytes;
+        private long storedBytes;
+
+        private Writer(Path dir, ObjectMapper mapper, long segmentBytes, boolean compress) throws IOException {
+            this.dir = dir;
+            this.mapper = mapper;
+            this.segmentBytes = Math.max(1 << 16, segmentBytes);
+            this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+            Files.createDirectories(dir);
+            this.index = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(dir.resolve(INDEX_FILE)), 1 << 16));
+            this.thread = new Thread(this::drain, "chunk-archive");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        /** Queues one record; blocks only while the queue is full. */
+        public void append(String id, Map<String, Object> record) throws InterruptedException {
+            if (failure != null) throw new IllegalStateException("chunk archive writer failed", failure);
+            queue.put(new Object[]{id, record});
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    Object[] item = queue.take();
+                    if (item == EOF) return;
+                    if (failure == null) write((String) item[0], mapper.writeValueAsBytes(item[1]));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable t) {
+                failure = t;
+                queue.clear();
+                // keep consuming so producers never block on a dead writer
+                try {
+                    while (queue.take() != EOF) { /* discard */ }
+                } catch (InterruptedException ignore) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        private void write(String id, byte[] raw) throws IOException {
+            byte codec = RAW;
+            byte[] payload = raw;
+            int len = raw.length;
+            if (deflater != null) {
+                deflater.reset();
+                deflater.setInput(raw);
+                deflater.finish();
+                byte[] buf = new byte[raw.length];
+                int n = 0;
+                while (!deflater.finished() && n < buf.length) n += deflater.deflate(buf, n, buf.length - n);
+                if (deflater.finished() && n < raw.length) {
+                    codec = DEFLATE;
+                    payload = buf;
+                    len = n;
+                }
+            }
+            int recordLen = HEADER + len;
+            if (out == null || segPos + recordLen > segmentBytes && segPos > 0) roll();
+            out.writeByte(codec);
+            out.writeInt(raw.length);
+            out.writeInt(len);
+            out.write(payload, 0, len);
+
+            index.writeUTF(id);
+            index.writeInt(segNo);
+            index.writeLong(segPos);
+            index.writeInt(recordLen);
+
+            segPos += recordLen;
+            records++;
+            rawBytes += raw.length;
+            storedBytes += len;
+        }
+
+        private void roll() throws IOException {
+            if (out != null) out.close();
+            segNo++;
+            segPos = 0;
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(segment(dir, segNo)), 1 << 16));
+        }
+
+        public int records() {
+            return records;
+        }
+
+        public int segments() {
+            return segNo + 1;
+        }
+
+        /** Uncompressed and on-disk payload bytes so far. */
+        public long rawBytes() {
+            return rawBytes;
+        }
+
+        public long storedBytes() {
+            return storedBytes;
+        }
+
+        /** Drains the queue, flushes and syncs everything; rethrows a writer failure. Idempotent. */
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                queue.put(EOF);
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while closing chunk archive", e);
+            }
+            if (out != null) out.close();
+            index.close();
+            if (deflater != null) deflater.end();
+            for (int s = 0; s <= segNo; s++) sync(segment(dir, s));
+            sync(dir.resolve(INDEX_FILE));
+            if (failure != null) throw new IOException("chunk archive write failed", failure);
+        }
+
+        private static void sync(Path p) throws IOException {
+            try (FileChannel ch = FileChannel.open(p, StandardOpenOption.WRITE)) {
+                ch.force(true);
+            }
+        }
+    }
+
+    /** Random and sequential access to a closed archive. Thread-safe. */
+    public static final class Reader implements Closeable {
+
+        private final ObjectMapper mapper;
+        private final FileChannel[] segments;
+        private final Map<String, long[]> offsets = new LinkedHashMap<>();   // id -> {segment, offset, len}
+
+        private Reader(Path dir, ObjectMapper mapper) throws IOException {
+            this.mapper = mapper;
+            int maxSeg = -1;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Files.newInputStream(dir.resolve(INDEX_FILE)), 1 << 16))) {
+                while (true) {
+                    String id;
+                    try {
+                        id = in.readUTF();
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    int seg = in.readInt();
+                    offsets.put(id, new long[]{seg, in.readLong(), in.readInt()});
+                    maxSeg = Math.max(maxSeg, seg);
+                }
+            }
+            segments = new FileChannel[maxSeg + 1];
+            for (int s = 0; s <= maxSeg; s++) segments[s] = FileChannel.open(segment(dir, s), StandardOpenOption.READ);
+        }
+
+        public int size() {
+            return offsets.size();
+        }
+
+        public List<String> ids() {
+            return new ArrayList<>(offsets.keySet());
+        }
+
+        /** Raw JSON bytes of one record (one positioned read), or null if the id is unknown. */
+        public byte[] readRaw(String id) throws IOException {
+            long[] loc = offsets.get(id);
+            if (loc == null) return null;
+            ByteBuffer buf = ByteBuffer.allocate((int) loc[2]);
+            FileChannel ch = segments[(int) loc[0]];
+            long pos = loc[1];
+            while (buf.hasRemaining()) {
+                int n = ch.read(buf, pos + buf.position());
+                if (n < 0) throw new EOFException("truncated record " + id);
+            }
+            buf.flip();
+            byte codec = buf.get();
+            int rawLen = buf.getInt();
+            int len = buf.getInt();
+            if (codec == RAW) return Arrays.copyOfRange(buf.array(), HEADER, HEADER + len);
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(buf.array(), HEADER, len);
+                byte[] raw = new byte[rawLen];
+                int n = 0;
+                while (n < rawLen && !inflater.finished()) {
+                    int k = inflater.inflate(raw, n, rawLen - n);
+                    // bozuk/kesik blok: girdi bitti ama çıktı tamamlanmadı, döngü asla ilerlemez
+                    if (k == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new IOException("corrupt record " + id);
+                    }
+                    n += k;
+                }
+                if (n < rawLen) throw new IOException("corrupt record " + id);
+                return raw;
+            } catch (DataFormatException e) {
+                throw new IOException("corrupt record " + id, e);
+            } finally {
+                inflater.end();
+            }
+        }
+
+        public Map<String, Object> read(String id) throws IOException {
+            byte[] raw = readRaw(id);
+            return raw == null ? null : mapper.readValue(raw, new TypeReference<Map<String, Object>>() {});
+        }
+
+        /** Visits every record in append order. */
+        public void forEach(BiConsumer<String, Map<String, Object>> consumer) throws IOException {
+            for (String id : offsets.keySet()) consumer.accept(id, read(id));
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (FileChannel ch : segments) ch.close();
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.RAG_chatbot.ingest;
+
+import org.springframework.core.env.Environment;
+
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Structure-aware chunker shared by the file and GitLab ingest runners.
+ *
+ * The text is first cut into units that must not be split further if they fit: Markdown
+ * headings, paragraphs (blank-line separated) and fenced code blocks. A unit larger than
+ * the budget is cut at sentence ends, and a sentence that still does not fit is cut between
+ * words. Units are then packed greedily into chunks of at most {@code maxTokens}. A whole
+ * section that still fits joins the running chunk; one that does not starts a new chunk at
+ * its heading, provided the running chunk already holds {@code minTokens}. Small sections are
+ * merged this way instead of becoming tiny chunks, and sections are not split when avoidable.
+ *
+ * Planning never copies text: units and chunks are {@code [start, end)} spans over the
+ * source, and token counts are estimated on the span. {@link Chunk#text()} is the only copy.
+ */
+public final class Chunker {
+
+    private final int maxTokens;
+    private final int minTokens;
+
+    public Chunker(int maxTokens, int minTokens) {
+        this.maxTokens = Math.max(16, maxTokens);
+        this.minTokens = Math.max(0, Math.min(minTokens, this.maxTokens));
+    }
+
+    /** Builds a chunker from {@code app.ingest.chunk.*} properties. */
+    public static Chunker fromEnv(Environment env) {
+        return new Chunker(
+                Integer.parseInt(env.getProperty("app.ingest.chunk.maxTokens", "768")),
+                Integer.parseInt(env.getProperty("app.ingest.chunk.minTokens", "384")));
+    }
+
+    /** Identifies the chunking settings; stored in the ingest manifest so a change re-chunks every file. */
+    public String signature() {
+        return "v1:" + maxTokens + ":" + minTokens;
+    }
+
+    /** One chunk: a span of the source plus the heading path it starts under. */
+    public record Chunk(CharSequence source, int start, int end, int tokens, String breadcrumbs, String sectionId) {
+
+        /** Zero-copy view of the chunk text. */
+        public CharSequence view() {
+            return CharBuffer.wrap(source, start, end);
+        }
+
+        public String text() {
+            return source.subSequence(start, end).toString();
+        }
+
+        public int length() {
+            return end - start;
+        }
+    }
+
+    private record Unit(int start, int end, int tokens, int level, int titleStart) {}
+
+    public List<Chunk> chunk(CharSequence text) {
+        List<Chunk> out = new ArrayList<>();
+        if (text == null || text.isEmpty()) return out;
+
+        String[] path = new String[7];          // path[1..6] = H1..H6 başlıkları
+        int cs = -1, ce = -1, ct = 0;
+        String crumbs = "";
+        boolean hasBody = false;
+        List<Unit> units = units(text);
+        // başlık birimi için: başlık + bir sonraki başlığa kadarki gövdenin token toplamı
+        int[] section = new int[units.size()];
+        for (int i = units.size() - 1, run = 0; i >= 0; i--) {
+            run += units.get(i).tokens();
+            if (units.get(i).level() > 0) {
+                section[i] = run;
+                run = 0;
+            }
+        }
+        for (int i = 0; i < units.size(); i++) {
+            Unit u = units.get(i);
+            if (u.level() > 0) {
+                // bölüm sığmıyorsa ve chunk yeterince doluysa başlıkta kes; sığıyorsa aynı chunk'a paketle
+                if (cs >= 0 && ((hasBody && ct >= minTokens && ct + section[i] > maxTokens) || ct + u.tokens() > maxTokens)) {
+                    out.add(chunk(text, cs, ce, ct, crumbs));
+                    cs = -1;
+                }
+                path[u.level()] = trimmed(text, u.titleStart(), u.end());
+                for (int l = u.level() + 1; l < path.length; l++) path[l] = null;
+            } else if (cs >= 0 && ct + u.tokens() > maxTokens) {
+                out.add(chunk(text, cs, ce, ct, crumbs));
+                cs = -1;
+            }
+            if (cs < 0) {
+                cs = u.start();
+                ct = 0;
+                hasBody = false;
+                crumbs = join(path);
+            }
+            // breadcrumb = ilk gövde biriminin altında bulunduğu yol (ardışık başlıklar "A > B" olur)
+            if (u.level() == 0 && !hasBody) {
+                crumbs = join(path);
+                hasBody = true;
+            }
+            ce = u.end();
+            ct += u.tokens();
+        }
+        if (cs >= 0) out.add(chunk(text, cs, ce, ct, crumbs));
+        return out;
+    }
+
+    private static Chunk chunk(CharSequence text, int start, int end, int tokens, String crumbs) {
+        int sep = crumbs.lastIndexOf(" > ");
+        String last = sep < 0 ? crumbs : crumbs.substring(sep + 3);
+        return new Chunk(text, start, end, tokens, crumbs, slug(last));
+    }
+
+    /** Same as {@code lowercase.replaceAll("[^a-z0-9]+", "-")} with the ends trimmed, without regex. */
+    static String slug(String title) {
+        StringBuilder sb = new StringBuilder(title.length());
+        boolean dash = false;
+        for (int i = 0; i < title.length(); i++) {
+            char c = Character.toLowerCase(title.charAt(i));
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                if (dash && !sb.isEmpty()) sb.append('-');
+                sb.append(c);
+                dash = false;
+            } else {
+                dash = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Headings, paragraphs and code blocks in order; oversized ones already cut to the budget.
+     * Tokens are counted line by line during the same scan (no token spans a newline).
+     */
+    private List<Unit> units(CharSequence text) {
+        List<Unit> units = new ArrayList<>();
+        int n = text.length();
+        int pos = skipFrontMatter(text);
+        int paraStart = -1, paraEnd = -1, paraTokens = 0;
+        boolean fence = false;
+        while (pos < n) {
+            int ls = pos;
+            while (ls < n && (text.charAt(ls) == ' ' || text.charAt(ls) == '\t')) ls++;
+            int eol = ls, lineTokens = 0, run = 0;
+            for (char c; eol < n && (c = text.charAt(eol)) != '\n'; eol++) {
+                if (isWordChar(c)) {
+                    run++;
+                    continue;
+                }
+                if (run > 0) lineTokens += (run + 3) / 4;
+                run = 0;
+                if (isVisible(c)) lineTokens++;
+            }
+            if (run > 0) lineTokens += (run + 3) / 4;
+            boolean blank = ls == eol;
+            boolean fenceLine = startsWith(text, ls, eol, "```") || startsWith(text, ls, eol, "~~~");
+            int level = fence ? 0 : headingLevel(text, ls, eol);
+
+            if (fence) {
+                paraEnd = eol;
+                paraTokens += lineTokens;
+                if (fenceLine) fence = false;
+            } else if (level > 0) {
+                if (paraStart >= 0) addParagraph(text, paraStart, paraEnd, paraTokens, units);
+                paraStart = -1;
+                int title = ls + level;
+                while (title < eol && text.charAt(title) == ' ') title++;
+                units.add(new Unit(ls, eol, lineTokens, level, title));
+            } else if (blank) {
+                if (paraStart >= 0) addParagraph(text, paraStart, paraEnd, paraTokens, units);
+                paraStart = -1;
+            } else {
+                if (paraStart < 0) {
+                    paraStart = ls;
+                    paraTokens = 0;
+                }
+                paraEnd = eol;
+                paraTokens += lineTokens;
+                if (fenceLine) fence = true;
+            }
+            pos = eol + 1;
+        }
+        if (paraStart >= 0) addParagraph(text, paraStart, paraEnd, paraTokens, units);
+        return units;
+    }
+
+    private void addParagraph(CharSequence text, int start, int end, int tokens, List<Unit> units) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+        if (end <= start) return;
+        if (tokens <= maxTokens) {
+            units.add(new Unit(start, end, tokens, 0, 0));
+            return;
+        }
+        // Cümle sonlarında (. ! ? … ve satır sonu) böl; sığmayan cümleyi kelime arasından kes
+        int s = start;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            boolean sentenceEnd = c == '\n'
+                    || ((c == '.' || c == '!' || c == '?' || c == '…') && i + 1 < end && Character.isWhitespace(text.charAt(i + 1)));
+            if (sentenceEnd || i == end - 1) {
+                int e = c == '\n' ? i : i + 1;
+                addSentence(text, s, e, units);
+                s = i + 1;
+                while (s < end && Character.isWhitespace(text.charAt(s))) s++;
+                i = s - 1;
+            }
+        }
+    }
+
+    private void addSentence(CharSequence text, int start, int end, List<Unit> units) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) end--;
+        if (end <= start) return;
+        int tokens = estimateTokens(text, start, end);
+        if (tokens <= maxTokens) {
+            units.add(new Unit(start, end, tokens, 0, 0));
+            return;
+        }
+        // kelime kelime say; bütçeyi aşacak kelimeden önce kes (tek başına sığmayan kelime kendi birimi olur)
+        int s = start, t = 0, prevEnd = start, i = start;
+        while (i < end) {
+            while (i < end && Character.isWhitespace(text.charAt(i))) i++;
+            int ws = i;
+            while (i < end && !Character.isWhitespace(text.charAt(i))) i++;
+            if (ws == i) break;
+            int wt = estimateTokens(text, ws, i);
+            if (t > 0 && t + wt > maxTokens) {
+                units.add(new Unit(s, prevEnd, t, 0, 0));
+                s = ws;
+                t = 0;
+            }
+            t += wt;
+            prevEnd = i;
+        }
+        if (prevEnd > s) units.add(new Unit(s, prevEnd, t, 0, 0));
+    }
+
+    /**
+     * Cheap upper-bound token estimate for subword tokenizers: every letter/digit run costs one
+     * token per started 4 characters, every other visible character one token.
+     */
+    public static int estimateTokens(CharSequence text, int start, int end) {
+        int tokens = 0, run = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (isWordChar(c)) {
+                run++;
+                continue;
+            }
+            if (run > 0) tokens += (run + 3) / 4;
+            run = 0;
+            if (isVisible(c)) tokens++;
+        }
+        if (run > 0) tokens += (run + 3) / 4;
+        return tokens;
+    }
+
+    private static boolean isWordChar(char c) {
+        if (c < 128) return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+        // Latin-1 harfleri ve Latin Extended-A (ç ğ ı ö ş ü ...) tablo aramasız
+        if (c >= 0xC0 && c <= 0x17F) return c != 0xD7 && c != 0xF7;
+        return Character.isLetterOrDigit(c);
+    }
+
+    private static boolean isVisible(char c) {
+        return c > ' ' && (c < 128 || !Character.isWhitespace(c));
+    }
+
+    /** YAML front matter ({@code ---} ... {@code ---}) is metadata, not chunk content. */
+    private static int skipFrontMatter(CharSequence text) {
+        int n = text.length();
+        if (!startsWith(text, 0, n, "---\n")) return 0;
+        int pos = 4;
+        while (pos < n) {
+            int eol = pos;
+            while (eol < n && text.charAt(eol) != '\n') eol++;
+            if (eol - pos == 3 && startsWith(text, pos, eol, "---")) return Math.min(n, eol + 1);
+            pos = eol + 1;
+        }
+        return 0;
+    }
+
+    private static int headingLevel(CharSequence text, int ls, int eol) {
+        int l = 0;
+        while (ls + l < eol && text.charAt(ls + l) == '#') l++;
+        if (l == 0 || l > 6 || ls + l >= eol || text.charAt(ls + l) != ' ') return 0;
+        return l;
+    }
+
+    private static boolean startsWith(CharSequence text, int from, int to, String prefix) {
+        if (to - from < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(from + i) != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static String trimmed(CharSequence text, int start, int end) {
+        while (end > start && (text.charAt(end - 1) == ' ' || text.charAt(end - 1) == '#')) end--;
+        return text.subSequence(start, end).toString();
+    }
+
+    private static String join(String[] path) {
+        StringBuilder sb = new StringBuilder();
+        for (int l = 1; l < path.length; l++) {
+            if (path[l] == null) continue;
+            if (!sb.isEmpty()) sb.append(" > ");
+            sb.append(path[l]);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.RAG_chatbot.ingest;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.core.env.Environment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Streams chunks into the vector store in fixed-size embedding batches.
+ *
+ * Producers call {@link #submit}; every {@code batchSize} documents become one
+ * {@code store.add(batch)} (= one embedding request to Ollama) on a worker thread.
+ * At most {@code concurrency} batches are in flight: the next submit blocks until a
+ * slot frees up, so memory stays bounded at roughly {@code batchSize * (concurrency + 1)}
+ * chunks however large the corpus is. A failing batch is retried with exponential
+ * backoff and, if it still fails, counted and skipped instead of failing the whole run.
+ */
+public class EmbeddingPipeline implements AutoCloseable {
+
+    private final VectorStore store;
+    private final int batchSize;
+    private final int maxRetries;
+    private final long backoffMs;
+    private final Semaphore inFlight;
+    private final ExecutorService workers;
+
+    private List<Document> pending;
+    private final AtomicInteger batchSeq = new AtomicInteger();
+    private final AtomicInteger stored = new AtomicInteger();
+    private final AtomicInteger failedDocs = new AtomicInteger();
+    private final AtomicInteger failedBatches = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final Set<String> failedIds = ConcurrentHashMap.newKeySet();
+    private final long startedAt = System.nanoTime();
+    private boolean finished;
+    private volatile Consumer<List<Document>> onStored = batch -> {};
+
+    public EmbeddingPipeline(VectorStore store, int batchSize, int concurrency, int maxRetries, long backoffMs) {
+        this.store = store;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.backoffMs = Math.max(0, backoffMs);
+        int c = Math.max(1, concurrency);
+        this.inFlight = new Semaphore(c);
+        AtomicInteger n = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(c, r -> {
+            Thread t = new Thread(r, "embed-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.pending = new ArrayList<>(this.batchSize);
+    }
+
+    /** Builds a pipeline from {@code app.ingest.embed.*} properties. */
+    public static EmbeddingPipeline fromEnv(VectorStore store, Environment env) {
+        return new EmbeddingPipeline(store,
+                Integer.parseInt(env.getProperty("app.ingest.embed.batchSize", "32")),
+                Integer.parseInt(env.getProperty("app.ingest.embed.concurrency", "4")),
+                Integer.parseInt(env.getProperty("app.ingest.embed.maxRetries", "3")),
+                Long.parseLong(env.getProperty("app.ingest.embed.retryBackoffMs", "500")));
+    }
+
+    /** Called on the worker thread with every batch the store accepted (e.g. to feed the BM25 index). */
+    public EmbeddingPipeline onStored(Consumer<List<Document>> listener) {
+        this.onStored = listener;
+        return this;
+    }
+
+    /** Queues one chunk; blocks when all embedding slots are busy (backpressure). */
+    public void submit(Document d) throws InterruptedException {
+        if (finished) throw new IllegalStateException("pipeline already finished");
+        pending.add(d);
+        submitted.incrementAndGet();
+        if (pending.size() >= batchSize) dispatch();
+    }
+
+    public void submitAll(List<Document> docs) throws InterruptedException {
+        for (Document d : docs) submit(d);
+    }
+
+    /** Flushes the partial batch and waits for every in-flight batch. */
+    public Stats finish() throws InterruptedException {
+        if (!finished) {
+            if (!pending.isEmpty()) dispatch();
+            finished = true;
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+        return stats();
+    }
+
+    /** Ids of documents whose batch failed for good; callers must not record them as ingested. */
+    public Set<String> failedIds() {
+        return Set.copyOf(failedIds);
+    }
+
+    public Stats stats() {
+        return new Stats(submitted.get(), stored.get(), failedDocs.get(), failedBatches.get(),
+                retries.get(), (System.nanoTime() - startedAt) / 1_000_000);
+    }
+
+    private void dispatch() throws InterruptedException {
+        List<Document> batch = pending;
+        pending = new ArrayList<>(batchSize);
+        int no = batchSeq.incrementAndGet();
+        inFlight.acquire();
+        try {
+            workers.execute(() -> {
+                try {
+                    runBatch(no, batch);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private void runBatch(int no, List<Document> batch) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                store.add(batch);
+                onStored.accept(batch);
+                int done = stored.addAndGet(batch.size());
+                long ms = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+                System.out.printf("[Embed] batch #%d ok (%d chunk) -> %d/%d stored, %.1f chunk/s%n",
+                        no, batch.size(), done, submitted.get(), done * 1000.0 / ms);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxRetries) {
+                    markFailed(batch);
+                    System.out.printf("✗ [Embed] batch #%d failed after %d attempt(s): %s%n",
+                            no, attempt + 1, e.getMessage());
+                    return;
+                }
+                retries.incrementAndGet();
+                long wait = backoffMs << attempt;
+                System.out.printf("[Embed] batch #%d attempt %d failed (%s), retry in %d ms%n",
+                        no, attempt + 1, e.getMessage(), wait);
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    markFailed(batch);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void markFailed(List<Document> batch) {
+        failedBatches.incrementAndGet();
+        failedDocs.addAndGet(batch.size());
+        for (Document d : batch) failedIds.add(d.getId());
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        finish();
+    }
+
+    /** Counters of one ingest run. */
+    public record Stats(long submitted, int stored, int failedDocs, int failedBatches, int retries, long elapsedMs) {
+        @Override
+        public String toString() {
+            return String.format("submitted=%d stored=%d failed=%d (batches=%d) retries=%d in %d ms",
+                    submitted, stored, failedDocs, failedBatches, retries, elapsedMs);
+        }
+    }
+}
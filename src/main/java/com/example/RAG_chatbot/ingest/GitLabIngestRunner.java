@@ -1,20 +1,16 @@
 package com.example.RAG_chatbot.ingest;
 
 import com.example.RAG_chatbot.ingest.gitlab.GitLabClient;
+import com.example.RAG_chatbot.store.Bm25Index;
+import com.example.RAG_chatbot.store.MappedVectorStore;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.VectorStore;
-import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedWriter;
-import java.io.ByteArrayInputStream;
-import java.io.FileWriter;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -22,18 +18,19 @@ import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
-import java.util.stream.Collectors;
 
 @Profile("gitlab-ingest")
 @Component
-public class GitLabIngestRunner implements CommandLineRunner {
+public class GitLabIngestRunner implements IngestSource {
+
+    static final String MANIFEST_FILE = "ingest-manifest.json";
 
-    private final VectorStore store;
     private final GitLabClient gitlab;
     private final TextNormalizer norm;
     private final ObjectMapper objectMapper;
+    private final Environment env;
+    private final Chunker chunker;
+    private final PdfTextExtractor pdf;
 
     private final List<String> include;
     private final List<String> exclude;
@@ -42,14 +39,17 @@ public class GitLabIngestRunner implements CommandLineRunner {
     private final String branch;
     private final String host;
     private final String onlyPrefix;
+    private final PathFilter pathFilter;
 
-    public GitLabIngestRunner(VectorStore store,
-                              GitLabClient gitlab,
+    public GitLabIngestRunner(GitLabClient gitlab,
                               TextNormalizer norm,
-                              Environment env) {
-        this.store = store;
+                              Environment env,
+                              PdfTextExtractor pdf) {
         this.gitlab = gitlab;
         this.norm = norm;
+        this.env = env;
+        this.chunker = Chunker.fromEnv(env);
+        this.pdf = pdf;
 
         this.objectMapper = new ObjectMapper();
         this.objectMapper.enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
@@ -63,200 +63,240 @@ public class GitLabIngestRunner implements CommandLineRunner {
         this.branch = env.getProperty("app.ingest.gitlab.branch","main");
         this.host = env.getProperty("app.ingest.gitlab.host","https://gitlab.com");
         this.onlyPrefix = env.getProperty("app.ingest.gitlab.onlyPathPrefix","").trim();
+        this.pathFilter = PathFilter.compile(onlyPrefix, include, exclude);
+    }
+
+    /** Manifest'e göre artımlı: önceki generation'ın kopyası üzerinde yalnızca değişen dosyalar işlenir. */
+    @Override
+    public boolean incremental() {
+        return true;
+    }
+
+    /**
+     * Dry run for the refresher: one tree listing compared with the manifest of the live store.
+     * Nothing is downloaded; true if a file is new, changed, re-chunked or gone.
+     */
+    @Override
+    public boolean hasChanges(VectorStore current) throws Exception {
+        if (!(current instanceof MappedVectorStore mapped) || mapped.isEmpty()) return true;
+        Map<String, String> pathToSha = listFiles();
+        if (pathToSha == null) return false;            // ingest de hiçbir şey yapmazdı
+        IngestManifest manifest = IngestManifest.load(mapped.dir().resolve(MANIFEST_FILE), objectMapper);
+        for (Map.Entry<String, String> e : pathToSha.entrySet()) {
+            if (!unchanged(manifest.get(e.getKey()), e.getValue())) return true;
+        }
+        return !pathToSha.keySet().containsAll(manifest.paths());
     }
 
     @Override
-    public void run(String... args) {
+    public IngestCompletedEvent ingest(VectorStore store, Bm25Index bm25) throws Exception {
         System.out.printf("[Ingest] host=%s path=%s branch=%s prefix=%s include=%s exclude=%s%n",
                 host, projectPath, branch, onlyPrefix,
                 String.join(",", include), String.join(",", exclude));
+        System.out.printf("[Ingest] path filter: %s%n", pathFilter.describe());
 
+        ChunkArchive.Writer archive = null;
         try {
-            // Çıktı klasörlerini hazırla
+            Map<String, String> pathToSha = listFiles();
+            if (pathToSha == null) return null;
+            List<String> paths = new ArrayList<>(pathToSha.keySet());
+
+            System.out.printf("[Ingest] İşlenecek dosya sayısı: %d%n", paths.size());
+
+            // Artımlı ingest: manifest (path -> blob sha -> chunk id) yalnızca kalıcı index ile anlamlı
+            IngestManifest manifest = null;
+            if (store instanceof MappedVectorStore mapped) {
+                manifest = IngestManifest.load(mapped.dir().resolve(MANIFEST_FILE), objectMapper);
+                if (mapped.isEmpty()) manifest.clear();
+            }
+            Map<String, IngestManifest.Entry> ingested = new LinkedHashMap<>();
+            int unchangedFiles = 0, changedFiles = 0, deletedFiles = 0;
+            Set<String> touched = new HashSet<>();
+
+            // Repo'dan silinen (veya artık filtreye uymayan) dosyaların chunk'larını kaldır
+            if (manifest != null) {
+                Set<String> current = new HashSet<>(paths);
+                for (String gone : manifest.paths()) {
+                    if (!current.contains(gone)) {
+                        deleteChunks(store, bm25, manifest.remove(gone).chunkIds());
+                        deletedFiles++;
+                        touched.add(gone);
+                        System.out.printf("- %s (silindi)%n", gone);
+                    }
+                }
+            }
+
+            // Değişmeyen dosyalar hiç indirilmez; kalanlar eşzamanlı çekilir, işleme sırayla yapılır
+            List<String> toFetch = new ArrayList<>();
+            for (String p : paths) {
+                if (unchanged(manifest == null ? null : manifest.get(p), pathToSha.get(p))) unchangedFiles++;
+                else toFetch.add(p);
+            }
+            touched.addAll(toFetch);
+            if (touched.isEmpty()) {
+                System.out.println("✅ GitLab ingest: değişen dosya yok, embedding çağrısı yapılmadı.");
+                return null;
+            }
+
+            // Çıktı klasörleri yalnızca yazılacak bir şey varsa hazırlanır
             String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String baseOutputDir = "chunks_output";
+            String baseOutputDir = env.getProperty("app.snapshot.baseDir", "chunks_output");
             String sessionDir = String.format("%s/session_%s", baseOutputDir, timestamp);
             Path sessionPath = Paths.get(sessionDir);
             Files.createDirectories(sessionPath);
 
-            // Her chunk için ayrı klasör
-            String chunksDir = sessionDir + "/chunks";
-            Path chunksPath = Paths.get(chunksDir);
-            Files.createDirectories(chunksPath);
+            // Chunk'lar segmentli, append-only arşive yazılır (chunk başına dosya yerine)
+            String archiveDir = sessionDir + "/archive";
+            archive = ChunkArchive.openWriter(Paths.get(archiveDir), objectMapper,
+                    Long.parseLong(env.getProperty("app.ingest.archive.segmentMb", "64")) << 20,
+                    Boolean.parseBoolean(env.getProperty("app.ingest.archive.compress", "true")));
 
             // İstatistikler için
             Map<String, Integer> fileChunkCounts = new LinkedHashMap<>();
             Map<String, Integer> extensionCounts = new LinkedHashMap<>();
-            List<Map<String, Object>> chunkIndex = new ArrayList<>(); // Tüm chunk'ların index'i
 
             System.out.printf("[Ingest] Çıktı klasörü: %s%n", sessionDir);
 
-            List<GitLabClient.TreeItem> all = gitlab.listRepoTree().block();
-            if (all == null) {
-                System.out.println("GitLab tree boş döndü (null).");
-                return;
-            }
-
-            System.out.printf("[Ingest] tree total=%d%n", all.size());
-
-            Map<String, String> pathToSha = new HashMap<>();
-            List<String> blobs = all.stream()
-                    .filter(t -> "blob".equalsIgnoreCase(t.type()))
-                    .peek(t -> pathToSha.put(t.path(), t.id()))
-                    .map(GitLabClient.TreeItem::path)
-                    .toList();
-
-            // Filtreleme
-            List<String> afterPrefix = blobs.stream()
-                    .filter(p -> onlyPrefix.isEmpty()
-                            || p.equalsIgnoreCase(onlyPrefix + ".md")
-                            || p.startsWith(onlyPrefix + "/"))
-                    .collect(Collectors.toList());
-
-            List<String> noExcluded = afterPrefix.stream()
-                    .filter(p -> !isExcluded(p))
-                    .collect(Collectors.toList());
-
-            List<String> paths = noExcluded.stream()
-                    .filter(p -> onlyPrefix.isEmpty() ? isIncluded(p) : true)
-                    .collect(Collectors.toList());
-
-            System.out.printf("[Ingest] İşlenecek dosya sayısı: %d%n", paths.size());
-
-            List<Document> allDocs = new ArrayList<>();
+            // Chunk'lar dosya dosya embedding batch'lerine akar; tüm corpus heap'te tutulmaz
+            EmbeddingPipeline pipeline = EmbeddingPipeline.fromEnv(store, env).onStored(bm25::addAll);
             int globalIdx = 0;
-
-            for (String p : paths) {
+            long totalSizeBytes = 0;
+            long fetchStart = System.nanoTime();
+
+            for (GitLabClient.RawFile file : gitlab.fetchAll(toFetch, pathToSha)
+                    .toIterable(gitlab.fetchConcurrency())) {
+                String p = file.path();
+                String blobSha = file.sha();
+                byte[] raw = file.bytes();
+                IngestManifest.Entry prev = manifest == null ? null : manifest.get(p);
+                FileSink sink = new FileSink(archive, pipeline, globalIdx);
                 try {
-                    byte[] raw;
-                    try {
-                        raw = gitlab.fetchRaw(p).block();
-                    } catch (Exception pathErr) {
-                        String sha = pathToSha.get(p);
-                        if (sha == null) {
-                            System.out.printf("ERR no blob sha for %s%n", p);
-                            continue;
-                        }
-                        raw = gitlab.fetchBlobRaw(sha).block();
-                    }
-
                     if (raw == null || raw.length == 0) {
                         System.out.printf("Skip (empty) %s%n", p);
+                        dropFile(manifest, p, blobSha, store, bm25);
                         continue;
                     }
                     if (raw.length > maxBytesPerFile) {
                         System.out.printf("Skip (too big) %s size=%d%n", p, raw.length);
+                        dropFile(manifest, p, blobSha, store, bm25);
                         continue;
                     }
 
                     String ext = extOf(p);
-                    String text = switch (ext) {
-                        case "md", "txt" -> norm.normalizePlain(new String(raw, StandardCharsets.UTF_8));
-                        case "html", "htm" -> norm.htmlToText(raw);
-                        case "pdf" -> pdfToText(raw);
-                        default -> null;
-                    };
-
-                    if (text == null || text.isBlank()) {
+                    String source = "gitlab://" + host + "/" + projectPath + "@" + branch;
+                    Map<String, String> extraMeta = Map.of("repo_path", p, "repo_branch", branch);
+                    if (ext.equals("pdf")) {
+                        // sayfa sayfa: paralel çıkarılan her sayfanın chunk'ları hazır olur olmaz pipeline'a akar
+                        pdfChunks(raw, source, extraMeta, sink);
+                    } else {
+                        String text = switch (ext) {
+                            case "md", "txt" -> norm.normalizePlain(raw);
+                            case "html", "htm" -> norm.htmlToText(raw);
+                            default -> null;
+                        };
+                        if (text != null && !text.isBlank()) {
+                            sink.accept(chunkWithSections(text, source, null, extraMeta, extractDocumentMetadata(text, p), 0));
+                        }
+                    }
+
+                    if (sink.ids.isEmpty()) {
                         System.out.printf("Skip (empty text) %s%n", p);
+                        dropFile(manifest, p, blobSha, store, bm25);
                         continue;
                     }
 
-                    Map<String, String> documentMetadata = extractDocumentMetadata(text, p);
-
-                    List<Document> chunks = chunkWithSections(
-                            text, 2000, 200,
-                            "gitlab://" + host + "/" + projectPath + "@" + branch,
-                            null,
-                            Map.of("repo_path", p, "repo_branch", branch),
-                            documentMetadata
-                    );
-
-                    int fileChunkCount = 0;
-                    for (Document d : chunks) {
-                        d.getMetadata().put("g_index", String.valueOf(globalIdx));
-
-                        // Her chunk için veri hazırla
-                        Map<String, Object> chunkData = new LinkedHashMap<>();
-
-                        // Temel bilgiler
-                        chunkData.put("id", d.getMetadata().get("id"));
-                        chunkData.put("source", d.getMetadata().get("source"));
-                        chunkData.put("repo_path", d.getMetadata().get("repo_path"));
-                        chunkData.put("repo_branch", d.getMetadata().get("repo_branch"));
-
-                        // Section ve breadcrumb bilgileri
-                        if (d.getMetadata().containsKey("breadcrumbs")) {
-                            chunkData.put("breadcrumbs", d.getMetadata().get("breadcrumbs"));
-                        }
-                        if (d.getMetadata().containsKey("section_id")) {
-                            chunkData.put("section_id", d.getMetadata().get("section_id"));
-                        }
-
-                        // Front matter bilgileri
-                        d.getMetadata().entrySet().stream()
-                                .filter(e -> e.getKey().startsWith("fm:"))
-                                .forEach(e -> chunkData.put(e.getKey(), e.getValue()));
-
-                        // Chunk pozisyon bilgileri
-                        chunkData.put("chunk_index", String.valueOf(d.getMetadata().get("chunk_index")));
-                        chunkData.put("offset", String.valueOf(d.getMetadata().get("offset")));
-                        chunkData.put("length", String.valueOf(d.getMetadata().get("length")));
-
-                        // İçerik
-                        chunkData.put("content", d.getText());
-
-                        // HER CHUNK İÇİN AYRI JSONL DOSYASI OLUŞTUR
-                        String chunkFileName = String.format("%s/chunk_%06d.jsonl", chunksDir, globalIdx);
-                        try (BufferedWriter chunkWriter = new BufferedWriter(new FileWriter(chunkFileName))) {
-                            chunkWriter.write(objectMapper.writeValueAsString(chunkData));
-                            chunkWriter.newLine();
-                        }
-
-                        // Index'e ekle (özet için)
-                        Map<String, Object> indexEntry = new LinkedHashMap<>();
-                        indexEntry.put("chunk_id", globalIdx);
-                        indexEntry.put("file", String.format("chunks/chunk_%06d.jsonl", globalIdx));
-                        indexEntry.put("source_file", p);
-                        indexEntry.put("section", d.getMetadata().get("breadcrumbs"));
-                        indexEntry.put("size", String.valueOf(d.getMetadata().get("length")));
-                        chunkIndex.add(indexEntry);
-
-                        globalIdx++;
-                        fileChunkCount++;
+                    // Değişen dosya: yeni chunk id'leri upsert edildi, artık olmayanlar silinir
+                    // (yeni id'lerle kesişmedikleri için pipeline'dan sonra silmek güvenli)
+                    List<String> ids = sink.ids;
+                    if (prev != null) {
+                        Set<String> fresh = new HashSet<>(ids);
+                        List<String> stale = prev.chunkIds().stream().filter(id -> !fresh.contains(id)).toList();
+                        if (!stale.isEmpty()) deleteChunks(store, bm25, stale);
+                        changedFiles++;
                     }
-
-                    allDocs.addAll(chunks);
+                    int fileChunkCount = ids.size();
+                    ingested.put(p, new IngestManifest.Entry(blobSha, ids, chunker.signature()));
                     fileChunkCounts.put(p, fileChunkCount);
                     extensionCounts.merge(ext, fileChunkCount, Integer::sum);
 
-                    System.out.printf("✓ %s -> %d chunk (dosyalar: chunk_%06d - chunk_%06d)%n",
-                            p, fileChunkCount, globalIdx - fileChunkCount, globalIdx - 1);
+                    System.out.printf("✓ %s -> %d chunk (g_index %d - %d)%n",
+                            p, fileChunkCount, sink.next - fileChunkCount, sink.next - 1);
 
+                } catch (InterruptedException ie) {
+                    throw ie;
                 } catch (Exception ex) {
                     System.out.printf("✗ ERR %s : %s%n", p, ex.getMessage());
+                    if (!sink.ids.isEmpty()) {
+                        // Yarım kalan dosyanın akmış chunk'ları: sha'sız kayıt bir sonraki çalıştırmada
+                        // dosyayı yeniden çektirir, orada üretilmeyenler stale olarak silinir
+                        Set<String> known = new LinkedHashSet<>(prev == null ? List.of() : prev.chunkIds());
+                        known.addAll(sink.ids);
+                        ingested.put(p, new IngestManifest.Entry(null, List.copyOf(known), chunker.signature()));
+                    }
+                } finally {
+                    globalIdx = sink.next;
+                    totalSizeBytes += sink.bytes;
+                }
+            }
+
+            System.out.printf("[Ingest] fetch+chunk %d dosya %d ms (concurrency=%d, throttled=%d)%n",
+                    toFetch.size(), (System.nanoTime() - fetchStart) / 1_000_000,
+                    gitlab.fetchConcurrency(), gitlab.throttledCount());
+            EmbeddingPipeline.Stats stats = pipeline.finish();
+
+            if (manifest != null) {
+                // Batch'i başarısız olan dosyalar manifest'e yazılmaz; sonraki çalıştırmada tekrar denenir
+                Set<String> failed = pipeline.failedIds();
+                for (Map.Entry<String, IngestManifest.Entry> e : ingested.entrySet()) {
+                    if (e.getValue().chunkIds().stream().anyMatch(failed::contains)) manifest.remove(e.getKey());
+                    else manifest.put(e.getKey(), e.getValue());
+                }
+                manifest.save();
+                ((MappedVectorStore) store).flush();
+            }
+            // Değişen dosyalara dayanan cache'lenmiş cevaplar geçersiz (yeni generation yayınlanınca duyurulur)
+            IngestCompletedEvent change = manifest == null ? IngestCompletedEvent.all()
+                    : touched.isEmpty() ? null : IngestCompletedEvent.of(touched);
+            System.out.printf("[Ingest] artımlı: yeni=%d değişen=%d aynı=%d silinen=%d%n",
+                    ingested.size() - changedFiles, changedFiles, unchangedFiles, deletedFiles);
+
+            archive.close();
+
+            // Tüm store'un (doküman + embedding) kopyası: fast-start profili bundan açılır
+            SessionSnapshot.Meta snapshot = null;
+            if (store instanceof MappedVectorStore mapped && !mapped.isEmpty()
+                    && Boolean.parseBoolean(env.getProperty("app.ingest.snapshot.enabled", "true"))) {
+                long t0 = System.nanoTime();
+                snapshot = SessionSnapshot.write(sessionPath, mapped, objectMapper,
+                        env.getProperty("spring.ai.ollama.embedding.options.model", ""), timestamp);
+                System.out.printf("[Ingest] snapshot: %d doküman dim=%d %d ms%n",
+                        snapshot.count(), snapshot.dim(), (System.nanoTime() - t0) / 1_000_000);
+                // Yeni snapshot yazıldı: en yeni app.snapshot.keep session dışındakiler silinir
+                int keep = Integer.parseInt(env.getProperty("app.snapshot.keep", "5"));
+                if (keep > 0) {
+                    for (Path old : SessionSnapshot.prune(Paths.get(baseOutputDir), keep)) {
+                        System.out.printf("[Ingest] eski session silindi: %s%n", old);
+                    }
                 }
             }
 
-            // Ana index dosyası oluştur (tüm chunk'ların listesi)
+            // Arşiv özeti; chunk başına kayıt artık archive/index.bin içinde (id -> segment, offset)
             String indexFileName = sessionDir + "/chunks_index.json";
             Map<String, Object> indexData = new LinkedHashMap<>();
             indexData.put("timestamp", timestamp);
-            indexData.put("total_chunks", allDocs.size());
-            indexData.put("chunks_directory", "chunks/");
-            indexData.put("chunks", chunkIndex);
-
-            Files.write(Paths.get(indexFileName),
-                    objectMapper.writerWithDefaultPrettyPrinter()
-                            .writeValueAsString(indexData)
-                            .getBytes(StandardCharsets.UTF_8));
+            indexData.put("total_chunks", globalIdx);
+            indexData.put("archive_directory", "archive/");
+            indexData.put("segments", archive.segments());
+            indexData.put("raw_bytes", archive.rawBytes());
+            indexData.put("stored_bytes", archive.storedBytes());
+            Files.write(Paths.get(indexFileName), objectMapper.writeValueAsBytes(indexData));
 
             // Detaylı özet dosyası
             String summaryFileName = sessionDir + "/summary.json";
             Map<String, Object> summary = new LinkedHashMap<>();
             summary.put("timestamp", timestamp);
             summary.put("session_directory", sessionDir);
-            summary.put("total_chunks", allDocs.size());
+            summary.put("total_chunks", globalIdx);
             summary.put("total_files", fileChunkCounts.size());
             summary.put("project", Map.of(
                     "path", projectPath,
@@ -267,35 +307,96 @@ public class GitLabIngestRunner implements CommandLineRunner {
             summary.put("statistics", Map.of(
                     "by_extension", extensionCounts,
                     "average_chunks_per_file", fileChunkCounts.isEmpty() ? 0 :
-                            allDocs.size() / fileChunkCounts.size(),
-                    "total_size_bytes", allDocs.stream()
-                            .mapToInt(d -> Integer.parseInt(String.valueOf(d.getMetadata().get("length"))))
-                            .sum()
+                            globalIdx / fileChunkCounts.size(),
+                    "total_size_bytes", totalSizeBytes,
+                    "embedding", Map.of(
+                            "stored", stats.stored(),
+                            "failed", stats.failedDocs(),
+                            "failed_batches", stats.failedBatches(),
+                            "retries", stats.retries(),
+                            "elapsed_ms", stats.elapsedMs())
             ));
+            if (snapshot != null) summary.put("snapshot", snapshot);
             summary.put("files_processed", fileChunkCounts);
+            summary.put("incremental", Map.of(
+                    "added", ingested.size() - changedFiles,
+                    "changed", changedFiles,
+                    "unchanged", unchangedFiles,
+                    "deleted", deletedFiles));
 
             Files.write(Paths.get(summaryFileName),
                     objectMapper.writerWithDefaultPrettyPrinter()
                             .writeValueAsString(summary)
                             .getBytes(StandardCharsets.UTF_8));
 
-            if (!allDocs.isEmpty()) {
-                store.add(allDocs);
+            if (globalIdx > 0) {
                 System.out.println("\n" + "=".repeat(70));
                 System.out.println("✅ GitLab ingest tamamlandı!");
-                System.out.println("📊 Toplam: " + allDocs.size() + " chunk, " + fileChunkCounts.size() + " dosya");
+                System.out.println("📊 Toplam: " + globalIdx + " chunk, " + fileChunkCounts.size() + " dosya");
+                System.out.println("🧮 Embedding: " + stats);
                 System.out.println("📁 Session klasörü: " + sessionDir);
-                System.out.println("📄 Her chunk ayrı dosyada: " + chunksDir);
+                System.out.printf("📦 Chunk arşivi: %s (%d segment, %d KB -> %d KB)%n", archiveDir,
+                        archive.segments(), archive.rawBytes() >> 10, archive.storedBytes() >> 10);
                 System.out.println("📋 Index dosyası: " + indexFileName);
                 System.out.println("📈 Özet dosyası: " + summaryFileName);
                 System.out.println("=".repeat(70));
+            } else if (unchangedFiles > 0 || deletedFiles > 0) {
+                System.out.println("✅ GitLab ingest: değişen dosya yok, embedding çağrısı yapılmadı.");
             } else {
                 System.out.println("⚠️ GitLab ingest: eklenecek chunk bulunamadı.");
             }
+            return change;
+
+        } finally {
+            if (archive != null) {
+                try {
+                    archive.close();
+                } catch (Exception ignore) {
+                    // yazma hatası zaten raporlandı
+                }
+            }
+        }
+    }
+
+    /** Repo ağacındaki, filtreye uyan dosyalar (path -> blob sha); ağaç alınamazsa null. */
+    private Map<String, String> listFiles() {
+        List<GitLabClient.TreeItem> all = gitlab.listRepoTree().block();
+        if (all == null) {
+            System.out.println("GitLab tree boş döndü (null).");
+            return null;
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+        System.out.printf("[Ingest] tree total=%d%n", all.size());
+
+        // Filtreleme: prefix + include/exclude tek seferde derlenmiş matcher ile
+        Map<String, String> pathToSha = new LinkedHashMap<>();
+        for (GitLabClient.TreeItem t : all) {
+            if ("blob".equalsIgnoreCase(t.type()) && pathFilter.accepts(t.path())) pathToSha.put(t.path(), t.id());
         }
+        return pathToSha;
+    }
+
+    /** Aynı blob, aynı chunker ayarlarıyla zaten index'li mi. */
+    private boolean unchanged(IngestManifest.Entry prev, String blobSha) {
+        return prev != null && blobSha != null && blobSha.equals(prev.sha())
+                && chunker.signature().equals(prev.chunker());
+    }
+
+    /**
+     * Dosya artık index'lenmiyorsa (boş, çok büyük, metinsiz) önceki chunk'larını kaldır. Manifest'e
+     * chunk'sız kaydedilir: aynı blob bir sonraki çalıştırmada değişmemiş sayılır, tekrar çekilmez.
+     */
+    private void dropFile(IngestManifest manifest, String path, String blobSha, VectorStore store, Bm25Index bm25) {
+        if (manifest == null) return;
+        IngestManifest.Entry prev = manifest.get(path);
+        manifest.put(path, new IngestManifest.Entry(blobSha, List.of(), chunker.signature()));
+        if (prev != null) deleteChunks(store, bm25, prev.chunkIds());
+    }
+
+    /** Chunk'ları hem vektör store'dan hem BM25 index'ten siler. */
+    private static void deleteChunks(VectorStore store, Bm25Index bm25, List<String> ids) {
+        store.delete(ids);
+        bm25.remove(ids);
     }
 
     // Markdown'dan front matter ve section bilgilerini çıkar
@@ -323,41 +424,31 @@ public class GitLabIngestRunner implements CommandLineRunner {
         return metadata;
     }
 
-    // Section-aware chunking
-    private List<Document> chunkWithSections(String text, int size, int overlap,
-                                             String source, Integer page,
+    // Başlık/paragraf/cümle sınırlarında, token bütçesiyle chunk'la (bkz. Chunker)
+    private List<Document> chunkWithSections(String text, String source, Integer page,
                                              Map<String,String> extraMeta,
-                                             Map<String,String> docMeta) {
+                                             Map<String,String> docMeta,
+                                             int firstIndex) {
         List<Document> result = new ArrayList<>();
         if (text == null) return result;
 
-        String currentSection = "";
-        String currentSectionId = "";
-
-        int start = 0, idx = 0;
-        while (start < text.length()) {
-            int end = Math.min(text.length(), start + size);
-            String part = text.substring(start, end);
-
-            Pattern sectionPattern = Pattern.compile("^#+\\s+(.+)$", Pattern.MULTILINE);
-            Matcher matcher = sectionPattern.matcher(part);
-            if (matcher.find()) {
-                currentSection = matcher.group(1).trim();
-                currentSectionId = currentSection.toLowerCase()
-                        .replaceAll("[^a-z0-9]+", "-")
-                        .replaceAll("^-|-$", "");
-            }
-
-            Document d = new Document(part);
+        String repoPath = extraMeta == null ? "" : String.valueOf(extraMeta.get("repo_path"));
+        int idx = firstIndex;           // PDF'te sayfalar boyunca devam eder, id'ler dosya içinde tekil kalır
+        for (Chunker.Chunk c : chunker.chunk(text)) {
+            // Deterministik id: aynı dosya + sıra her çalıştırmada aynı dokümanı gösterir (upsert/delete)
+            String docId = UUID.nameUUIDFromBytes((source + "|" + repoPath + "|" + idx)
+                    .getBytes(StandardCharsets.UTF_8)).toString();
+            Document d = new Document(docId, c.text(), new HashMap<>());
             d.getMetadata().put("source", source);
             if (page != null) d.getMetadata().put("page", String.valueOf(page));
             d.getMetadata().put("chunk_index", String.valueOf(idx));
-            d.getMetadata().put("offset", String.valueOf(start));
-            d.getMetadata().put("length", String.valueOf(part.length()));
+            d.getMetadata().put("offset", String.valueOf(c.start()));
+            d.getMetadata().put("length", String.valueOf(c.length()));
+            d.getMetadata().put("tokens", String.valueOf(c.tokens()));
 
-            if (!currentSection.isEmpty()) {
-                d.getMetadata().put("breadcrumbs", currentSection);
-                d.getMetadata().put("section_id", currentSectionId);
+            if (!c.breadcrumbs().isEmpty()) {
+                d.getMetadata().put("breadcrumbs", c.breadcrumbs());
+                d.getMetadata().put("section_id", c.sectionId());
             }
 
             if (extraMeta != null) d.getMetadata().putAll(extraMeta);
@@ -365,16 +456,13 @@ public class GitLabIngestRunner implements CommandLineRunner {
 
             String idStr = String.format("%s|sec=%s|i=%d|o=%d",
                     source,
-                    currentSectionId.isEmpty() ? "main" : currentSectionId,
+                    c.sectionId().isEmpty() ? "main" : c.sectionId(),
                     idx,
-                    start
+                    c.start()
             );
             d.getMetadata().put("id", idStr);
 
             result.add(d);
-
-            if (end == text.length()) break;
-            start = Math.max(0, end - overlap);
             idx++;
         }
         return result;
@@ -392,43 +480,85 @@ public class GitLabIngestRunner implements CommandLineRunner {
         return out;
     }
 
-    private boolean isIncluded(String path) {
-        return micromatch(path, include, true);
+    private String extOf(String p) {
+        int i = p.lastIndexOf('.');
+        return i < 0 ? "" : p.substring(i + 1).toLowerCase(Locale.ROOT);
     }
 
-    private boolean isExcluded(String path) {
-        return micromatch(path, exclude, false);
+    private void pdfChunks(byte[] raw, String source, Map<String, String> extraMeta, FileSink sink) throws Exception {
+        PdfTextExtractor.Stats stats = pdf.extract(raw, (page, pageText) -> {
+            String text = norm.normalizePlain(pageText);
+            // chunk_index sayfalar boyunca devam eder
+            if (!text.isBlank()) sink.accept(chunkWithSections(text, source, page, extraMeta, null, sink.ids.size()));
+        });
+        System.out.printf("[PDF] %s: %d sayfa, %d worker, %d ms%n",
+                extraMeta.get("repo_path"), stats.pages(), stats.workers(), stats.elapsedMs());
     }
 
-    private boolean micromatch(String path, List<String> globs, boolean defaultIfEmpty) {
-        if (globs == null || globs.isEmpty()) return defaultIfEmpty;
-        for (String g : globs) {
-            String regex = globToRegex(g.trim());
-            if (Pattern.compile(regex, Pattern.CASE_INSENSITIVE).matcher(path).matches()) {
-                return true;
+    /**
+     * Bir dosyanın chunk'larını üretildikleri sırayla numaralar (g_index), arşive kuyruklar ve
+     * embedding pipeline'ına verir; dosyanın tamamı bellekte toplanmaz.
+     */
+    private static final class FileSink {
+
+        private final ChunkArchive.Writer archive;
+        private final EmbeddingPipeline pipeline;
+        private final List<String> ids = new ArrayList<>();
+        private int next;
+        private long bytes;
+
+        private FileSink(ChunkArchive.Writer archive, EmbeddingPipeline pipeline, int firstGlobalIndex) {
+            this.archive = archive;
+            this.pipeline = pipeline;
+            this.next = firstGlobalIndex;
+        }
+
+        void accept(List<Document> chunks) throws InterruptedException {
+            if (chunks.isEmpty()) return;
+            for (Document d : chunks) {
+                d.getMetadata().put("g_index", String.valueOf(next));
+                // Arşive kuyrukla; serileştirme/sıkıştırma/yazma arka plan thread'inde
+                archive.append(d.getId(), archiveRecord(d, next));
+                bytes += Integer.parseInt(String.valueOf(d.getMetadata().get("length")));
+                ids.add(d.getId());
+                next++;
             }
+            pipeline.submitAll(chunks);
         }
-        return false;
-    }
 
-    private String globToRegex(String glob) {
-        String r = glob.replace(".", "\\.")
-                .replace("**/", "(.*/)?")
-                .replace("**", ".*")
-                .replace("*", "[^/]*");
-        return "^" + r + "$";
-    }
+        private static Map<String, Object> archiveRecord(Document d, int globalIdx) {
+            // Her chunk için veri hazırla
+            Map<String, Object> chunkData = new LinkedHashMap<>();
 
-    private String extOf(String p) {
-        int i = p.lastIndexOf('.');
-        return i < 0 ? "" : p.substring(i + 1).toLowerCase(Locale.ROOT);
-    }
+            // Temel bilgiler
+            chunkData.put("doc_id", d.getId());
+            chunkData.put("id", d.getMetadata().get("id"));
+            chunkData.put("source", d.getMetadata().get("source"));
+            chunkData.put("repo_path", d.getMetadata().get("repo_path"));
+            chunkData.put("repo_branch", d.getMetadata().get("repo_branch"));
+
+            // Section ve breadcrumb bilgileri
+            if (d.getMetadata().containsKey("breadcrumbs")) {
+                chunkData.put("breadcrumbs", d.getMetadata().get("breadcrumbs"));
+            }
+            if (d.getMetadata().containsKey("section_id")) {
+                chunkData.put("section_id", d.getMetadata().get("section_id"));
+            }
+
+            // Front matter bilgileri
+            d.getMetadata().entrySet().stream()
+                    .filter(e -> e.getKey().startsWith("fm:"))
+                    .forEach(e -> chunkData.put(e.getKey(), e.getValue()));
+
+            // Chunk pozisyon bilgileri
+            chunkData.put("chunk_index", String.valueOf(d.getMetadata().get("chunk_index")));
+            chunkData.put("offset", String.valueOf(d.getMetadata().get("offset")));
+            chunkData.put("length", String.valueOf(d.getMetadata().get("length")));
 
-    private String pdfToText(byte[] raw) throws Exception {
-        try (PDDocument pdf = PDDocument.load(new ByteArrayInputStream(raw))) {
-            PDFTextStripper stripper = new PDFTextStripper();
-            String text = stripper.getText(pdf);
-            return norm.normalizePlain(text);
+            // İçerik
+            chunkData.put("content", d.getText());
+            chunkData.put("g_index", globalIdx);
+            return chunkData;
         }
     }
 }
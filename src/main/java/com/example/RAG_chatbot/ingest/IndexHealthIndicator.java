@@ -0,0 +1,26 @@
+package com.example.RAG_chatbot.ingest;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code index} health contributor, part of the readiness group
+ * ({@code /actuator/health/readiness}): OUT_OF_SERVICE only until the first index generation
+ * exists. Later re-ingests build beside the live generation and do not affect it.
+ */
+@Component
+public class IndexHealthIndicator implements HealthIndicator {
+
+    private final IndexRefresher refresher;
+
+    public IndexHealthIndicator(IndexRefresher refresher) {
+        this.refresher = refresher;
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder h = refresher.ready() ? Health.up() : Health.outOfService();
+        return h.withDetails(refresher.status()).build();
+    }
+}
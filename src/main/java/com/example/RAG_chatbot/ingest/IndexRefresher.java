@@ -0,0 +1,224 @@
+package com.example.RAG_chatbot.ingest;
+
+import com.example.RAG_chatbot.store.Bm25Index;
+import com.example.RAG_chatbot.store.GenerationalVectorStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the active {@link IngestSource}s in the background: once after startup, on
+ * {@code app.ingest.schedule.cron} and on demand ({@code POST /api/admin/reindex}).
+ *
+ * With the generational store every run first asks the sources whether they have anything to
+ * apply ({@link IngestSource#hasChanges}); if none has, no generation is built at all. Otherwise
+ * the next generation is built off to the side while queries keep using the current one; the
+ * sources fill its vector store and its own BM25 index. Only a complete run that changed
+ * something is published: both indexes are swapped in one step, then the
+ * {@link IngestCompletedEvent}s go out (so the answer cache is not refilled from the old
+ * generation). A failed or no-op run is discarded. With {@code simple} store the sources write
+ * in place, as before. One run at a time; a trigger during a run is refused.
+ */
+@Component
+public class IndexRefresher {
+
+    private final VectorStore store;
+    private final Bm25Index bm25;
+    private final List<IngestSource> sources;
+    private final ApplicationEventPublisher events;
+    private final boolean onStartup;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "reindex");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean completedOnce;
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    public IndexRefresher(VectorStore store, Bm25Index bm25, ObjectProvider<IngestSource> sources,
+                          ApplicationEventPublisher events, Environment env) {
+        this.store = store;
+        this.bm25 = bm25;
+        this.sources = sources.orderedStream().toList();
+        this.events = events;
+        this.onStartup = Boolean.parseBoolean(env.getProperty("app.ingest.schedule.onStartup", "true"));
+    }
+
+    /**
+     * İlk ingest artık startup'ı bloklamaz: uygulama hazır olunca arka planda başlar. Dolu bir
+     * generation varsa çalıştırma yalnızca kaynakların {@link IngestSource#hasChanges} kontrolüne mal olur.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (sources.isEmpty() || !onStartup) return;
+        trigger("startup");
+    }
+
+    @Scheduled(cron = "${app.ingest.schedule.cron:-}")
+    public void scheduled() {
+        if (!trigger("schedule")) System.out.println("[Reindex] zamanlanmış çalıştırma atlandı: önceki hâlâ sürüyor");
+    }
+
+    /** Starts a run in the background; false if one is already running or no source is active. */
+    public boolean trigger(String reason) {
+        if (sources.isEmpty() || !running.compareAndSet(false, true)) return false;
+        try {
+            worker.execute(() -> {
+                try {
+                    run(reason);
+                } finally {
+                    running.set(false);
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * True once an index exists to answer from: a generation was opened or published, or (in-place
+     * stores) the first run finished. Without any ingest source there is nothing to wait for.
+     */
+    public boolean ready() {
+        if (store instanceof GenerationalVectorStore live) return live.ready();
+        return completedOnce || sources.isEmpty();
+    }
+
+    public boolean running() {
+        return running.get();
+    }
+
+    public boolean hasSources() {
+        return !sources.isEmpty();
+    }
+
+    /** Current generation, whether a run is in progress and how the last one ended. */
+    public Map<String, Object> status() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("ready", ready());
+        m.put("running", running.get());
+        if (store instanceof GenerationalVectorStore live) {
+            GenerationalVectorStore.Generation g = live.current();
+            m.put("generation", g == null ? null : g.id());
+            m.put("documents", live.size());
+        }
+        m.put("sources", sources.stream().map(s -> s.getClass().getSimpleName()).toList());
+        m.put("lastRun", lastRun);
+        return m;
+    }
+
+    private void run(String reason) {
+        long t0 = System.nanoTime();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("reason", reason);
+        result.put("startedAt", Instant.now().toString());
+        GenerationalVectorStore live = store instanceof GenerationalVectorStore g ? g : null;
+        GenerationalVectorStore.Generation staged = null;
+        try {
+            VectorStore target = store;
+            Bm25Index lexical = bm25;
+            if (live != null) {
+                // Önce değişiklik var mı bakılır; yoksa generation hiç kurulmaz (kopya da yapılmaz).
+                // current'ı yalnızca bu thread emekliye ayırır, burada referans tutmaya gerek yok
+                GenerationalVectorStore.Generation current = live.current();
+                if (current != null && !anyChanges(current.store())) {
+                    result.put("result", "unchanged");
+                    finish(result, t0);
+                    completedOnce = true;
+                    return;
+                }
+                boolean seed = sources.stream().anyMatch(IngestSource::incremental);
+                staged = live.stage(seed);
+                if (seed && current != null) copyManifest(current.store().dir(), staged.store().dir());
+                lexical = staged.lexical();
+                target = staged.store();
+                System.out.printf("[Reindex] %s: generation %d hazırlanıyor (%s)%n", reason, staged.id(),
+                        seed ? "mevcut generation'ın kopyası üzerinde" : "boş");
+            }
+
+            List<IngestCompletedEvent> changes = new ArrayList<>();
+            for (IngestSource source : sources) {
+                IngestCompletedEvent change = source.ingest(target, lexical);
+                if (change != null) changes.add(change);
+            }
+
+            if (staged != null) {
+                if (changes.isEmpty() || (live.current() == null && staged.store().isEmpty())) {
+                    // değişiklik yok: mevcut generation kalır (ilk generation boş yayınlanmaz)
+                    live.discard(staged);
+                    result.put("result", "unchanged");
+                } else {
+                    live.publish(staged);
+                    result.put("result", "published");
+                    result.put("generation", staged.id());
+                    result.put("documents", live.size());
+                }
+                staged = null;
+            } else {
+                result.put("result", changes.isEmpty() ? "unchanged" : "updated");
+            }
+            for (IngestCompletedEvent change : changes) events.publishEvent(change);
+            completedOnce = true;
+        } catch (Exception e) {
+            if (staged != null) live.discard(staged);
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            result.put("result", "failed");
+            result.put("error", String.valueOf(e.getMessage()));
+            System.out.printf("[Reindex] %s başarısız, mevcut index korunuyor: %s%n", reason, e);
+        }
+        finish(result, t0);
+    }
+
+    private boolean anyChanges(VectorStore current) throws Exception {
+        for (IngestSource source : sources) {
+            if (source.hasChanges(current)) return true;
+        }
+        return false;
+    }
+
+    private void finish(Map<String, Object> result, long t0) {
+        result.put("elapsedMs", (System.nanoTime() - t0) / 1_000_000);
+        lastRun = result;
+        System.out.printf("[Reindex] %s%n", result);
+    }
+
+    /** GitLab ingest'in artımlı manifest'i generation ile birlikte taşınır. */
+    private static void copyManifest(Path from, Path to) throws IOException {
+        Path manifest = from.resolve(GitLabIngestRunner.MANIFEST_FILE);
+        if (Files.exists(manifest)) {
+            Files.copy(manifest, to.resolve(GitLabIngestRunner.MANIFEST_FILE), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        worker.shutdownNow();
+        if (!worker.awaitTermination(10, TimeUnit.SECONDS)) {
+            System.out.println("[Reindex] çalışan ingest kapanışta durdurulamadı; yarım generation açılışta silinir");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.RAG_chatbot.ingest;
+
+import java.util.Set;
+
+/**
+ * Published after an ingest run changed the vector store.
+ *
+ * @param sources repo paths / sources whose chunks were added, replaced or removed
+ * @param full    true if the whole store should be treated as changed (sources is then ignored)
+ */
+public record IngestCompletedEvent(Set<String> sources, boolean full) {
+
+    public static IngestCompletedEvent all() {
+        return new IngestCompletedEvent(Set.of(), true);
+    }
+
+    public static IngestCompletedEvent of(Set<String> sources) {
+        return new IngestCompletedEvent(Set.copyOf(sources), false);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.RAG_chatbot.ingest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * What the last ingest run put into the vector store: repo path -> blob SHA -> chunk ids.
+ * Lives next to the persistent index, so it is only trusted together with that index.
+ */
+public class IngestManifest {
+
+    /** One ingested file; {@code chunker} is the {@link Chunker#signature()} it was cut with. */
+    public record Entry(String sha, List<String> chunkIds, String chunker) {}
+
+    private static final TypeReference<Map<String, Entry>> TYPE = new TypeReference<>() {};
+
+    private final Path file;
+    private final ObjectMapper json;
+    private final Map<String, Entry> files = new TreeMap<>();
+
+    private IngestManifest(Path file, ObjectMapper json) {
+        this.file = file;
+        this.json = json;
+    }
+
+    public static IngestManifest load(Path file, ObjectMapper json) throws IOException {
+        IngestManifest m = new IngestManifest(file, json);
+        if (Files.exists(file)) m.files.putAll(json.readValue(file.toFile(), TYPE));
+        return m;
+    }
+
+    public Entry get(String path) {
+        return files.get(path);
+    }
+
+    public void put(String path, Entry entry) {
+        files.put(path, entry);
+    }
+
+    public Entry remove(String path) {
+        return files.remove(path);
+    }
+
+    public Set<String> paths() {
+        return Set.copyOf(files.keySet());
+    }
+
+    public void clear() {
+        files.clear();
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    /** Writes to a temp file and renames, so a crash never leaves a half-written manifest. */
+    public void save() throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        json.writerWithDefaultPrettyPrinter().writeValue(tmp.toFile(), files);
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
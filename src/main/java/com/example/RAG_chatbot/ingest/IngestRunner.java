@@ -1,101 +1,132 @@
 package com.example.RAG_chatbot.ingest;
 
+import com.example.RAG_chatbot.store.Bm25Index;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
-import org.springframework.util.StreamUtils;
+import org.springframework.util.DigestUtils;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
 
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.UUID;
 
 @Profile("file-ingest")
 @Component
-public class IngestRunner implements CommandLineRunner {
+public class IngestRunner implements IngestSource {
+
+    /** Path, chunker and content hash of the file the generation was built from. */
+    static final String STAMP_FILE = "file-ingest.stamp";
 
-    private final VectorStore vectorStore;
     private final ResourceLoader resourceLoader;
+    private final Environment env;
+    private final TextNormalizer norm;
+    private final Chunker chunker;
+    private final PdfTextExtractor pdfExtractor;
 
     @Value("${app.ingest.path:classpath:data/wiki.txt}")
     private String ingestPath;
 
-    public IngestRunner(VectorStore vectorStore, ResourceLoader resourceLoader) {
-        this.vectorStore = vectorStore;
+    public IngestRunner(ResourceLoader resourceLoader, Environment env, TextNormalizer norm,
+                        PdfTextExtractor pdfExtractor) {
         this.resourceLoader = resourceLoader;
+        this.env = env;
+        this.norm = norm;
+        this.chunker = Chunker.fromEnv(env);
+        this.pdfExtractor = pdfExtractor;
+    }
+
+    /** Dosya (ya da chunker ayarı) son yüklemeden beri değişmediyse generation kurulmaz. */
+    @Override
+    public boolean hasChanges(VectorStore current) throws Exception {
+        return !SourceStamp.matches(current, STAMP_FILE, stamp(read(resourceLoader.getResource(ingestPath))));
     }
 
     @Override
-    public void run(String... args) throws Exception {
-        Resource res = resourceLoader.getResource(ingestPath);
+    public IngestCompletedEvent ingest(VectorStore vectorStore, Bm25Index bm25) throws Exception {
+        byte[] content = read(resourceLoader.getResource(ingestPath));
         String lower = ingestPath.toLowerCase();
 
-        List<Document> chunks;
+        EmbeddingPipeline pipeline = EmbeddingPipeline.fromEnv(vectorStore, env).onStored(bm25::addAll);
+        int total;
         if (lower.endsWith(".pdf")) {
-            chunks = readPdfAsChunks(res);
+            // Sayfalar paralel çıkarılır; her sayfanın chunk'ları hazır olur olmaz embedding'e akar
+            total = ingestPdf(content, pipeline);
         } else {
-            chunks = readTxtAsChunks(res);
+            List<Document> chunks = readTxtAsChunks(content);
+            // Global sıra numarası ekle (isteğe bağlı ama debug için faydalı)
+            for (int i = 0; i < chunks.size(); i++) {
+                chunks.get(i).getMetadata().put("g_index", String.valueOf(i));
+            }
+            pipeline.submitAll(chunks);
+            total = chunks.size();
         }
 
-        // Global sıra numarası ekle (isteğe bağlı ama debug için faydalı)
-        for (int i = 0; i < chunks.size(); i++) {
-            chunks.get(i).getMetadata().put("g_index", String.valueOf(i));
-        }
+        EmbeddingPipeline.Stats stats = pipeline.finish();
+        System.out.println("Ingest ok: " + stats.stored() + "/" + total + " chunk yüklendi. " + stats);
+        // Batch'i başarısız olan bir yükleme damgalanmaz; sonraki çalıştırma dosyayı tekrar dener
+        if (stats.failedDocs() == 0) SourceStamp.save(vectorStore, STAMP_FILE, stamp(content));
+        return stats.stored() > 0 ? IngestCompletedEvent.all() : null;
+    }
 
-        vectorStore.add(chunks);
-        System.out.println("Ingest ok: " + chunks.size() + " chunk yüklendi.");
+    private String stamp(byte[] content) {
+        return ingestPath + "|" + chunker.signature() + "|" + DigestUtils.md5DigestAsHex(content);
+    }
+
+    private static byte[] read(Resource res) throws Exception {
+        try (InputStream is = res.getInputStream()) {
+            return is.readAllBytes();
+        }
     }
 
     // ---- TXT ----
-    private List<Document> readTxtAsChunks(Resource res) throws Exception {
-        String content = StreamUtils.copyToString(res.getInputStream(), StandardCharsets.UTF_8);
+    private List<Document> readTxtAsChunks(byte[] content) {
         // TXT için page = null; chunk_index bu çağrı içinde 0'dan başlayacak
-        return chunk(content, 2000, 200, "txt://" + ingestPath, null);
+        return chunk(norm.normalizePlain(new String(content, StandardCharsets.UTF_8)), "txt://" + ingestPath, null);
     }
 
-    // ---- PDF (per page) ----
-    private List<Document> readPdfAsChunks(Resource res) throws Exception {
-        List<Document> out = new ArrayList<>();
-        try (InputStream is = res.getInputStream();
-             org.apache.pdfbox.pdmodel.PDDocument pdf = org.apache.pdfbox.pdmodel.PDDocument.load(is)) {
-
-            org.apache.pdfbox.text.PDFTextStripper stripper = new org.apache.pdfbox.text.PDFTextStripper();
-            int pageCount = pdf.getNumberOfPages();
-            for (int p = 1; p <= pageCount; p++) {
-                stripper.setStartPage(p);
-                stripper.setEndPage(p);
-                String pageText = stripper.getText(pdf);
-
-                // Her sayfa için chunk_index 0'dan başlar (page + chunk_index kombinasyonu tekil kimlik gibi kullanılabilir)
-                List<Document> pageChunks = chunk(pageText, 2000, 200, "pdf://" + ingestPath, p);
-                out.addAll(pageChunks);
-            }
-        }
-        return out;
+    // ---- PDF (per page, parallel) ----
+    private int ingestPdf(byte[] bytes, EmbeddingPipeline pipeline) throws Exception {
+        int[] gIndex = {0};
+        PdfTextExtractor.Stats pdf = pdfExtractor.extract(bytes, (page, pageText) -> {
+            // Her sayfa için chunk_index 0'dan başlar (page + chunk_index kombinasyonu tekil kimlik gibi kullanılabilir)
+            List<Document> pageChunks = chunk(norm.normalizePlain(pageText), "pdf://" + ingestPath, page);
+            for (Document d : pageChunks) d.getMetadata().put("g_index", String.valueOf(gIndex[0]++));
+            pipeline.submitAll(pageChunks);
+        });
+        System.out.printf("[Ingest] PDF %d sayfa, %d worker, %d ms%n", pdf.pages(), pdf.workers(), pdf.elapsedMs());
+        return gIndex[0];
     }
 
-    // ---- Generic chunker (char-based; fine for POC) ----
-    private List<Document> chunk(String text, int size, int overlap, String source, Integer page) {
+    // ---- Chunker: başlık/paragraf/cümle sınırlarında, token bütçesiyle ----
+    private List<Document> chunk(String text, String source, Integer page) {
         List<Document> result = new ArrayList<>();
         if (text == null) return result;
 
-        int start = 0;
         int idx = 0; // chunk_index (TXT için dosya genelinde, PDF için sayfa bazında)
-        while (start < text.length()) {
-            int end = Math.min(text.length(), start + size);
-            String part = text.substring(start, end);
-
-            Document d = new Document(part);
+        for (Chunker.Chunk c : chunker.chunk(text)) {
+            String part = c.text();
+            int start = c.start();
+            String key = source + (page != null ? "#p=" + page : "") + "|o=" + start;
+            Document d = new Document(UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString(),
+                    part, new HashMap<>());
             d.getMetadata().put("source", source);
             if (page != null) d.getMetadata().put("page", String.valueOf(page));
             d.getMetadata().put("length", String.valueOf(part.length()));
             d.getMetadata().put("offset", String.valueOf(start));
-            d.getMetadata().put("chunk_index", String.valueOf(idx)); // <-- eklendi
+            d.getMetadata().put("chunk_index", String.valueOf(idx));
+            d.getMetadata().put("tokens", String.valueOf(c.tokens()));
+            if (!c.breadcrumbs().isEmpty()) {
+                d.getMetadata().put("breadcrumbs", c.breadcrumbs());
+                d.getMetadata().put("section_id", c.sectionId());
+            }
 
             // İsterseniz stabil bir id gibi kullanılabilir:
             d.getMetadata().put("id", source +
@@ -103,9 +134,6 @@ public class IngestRunner implements CommandLineRunner {
                     "|o=" + start + "|l=" + part.length());
 
             result.add(d);
-
-            if (end == text.length()) break;
-            start = Math.max(0, end - overlap);
             idx++; // sıradaki chunk
         }
         return result;
@@ -0,0 +1,33 @@
+package com.example.RAG_chatbot.ingest;
+
+import com.example.RAG_chatbot.store.Bm25Index;
+import org.springframework.ai.vectorstore.VectorStore;
+
+/**
+ * One way of filling the index (text/PDF file, GitLab repo, session snapshot), enabled by its
+ * profile. {@link IndexRefresher} runs the active sources in order against the index generation
+ * being built, off the request path.
+ */
+public interface IngestSource {
+
+    /**
+     * Adds, replaces or removes chunks in {@code store} and {@code bm25}. Returns the change to
+     * announce once the new generation is live, or null if nothing changed. An exception fails
+     * the run and the generation is thrown away.
+     */
+    IngestCompletedEvent ingest(VectorStore store, Bm25Index bm25) throws Exception;
+
+    /**
+     * Cheap look at the source before anything is built: false only if {@link #ingest} would
+     * change nothing in {@code current}, the store serving queries now (for example a listing
+     * that matches the manifest). A generation is staged only when some source says true.
+     */
+    default boolean hasChanges(VectorStore current) throws Exception {
+        return true;
+    }
+
+    /** True if the source updates the previous contents, so the new generation starts as a copy of the current one. */
+    default boolean incremental() {
+        return false;
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.RAG_chatbot.ingest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Repository path filter: {@code onlyPathPrefix}, include and exclude globs compiled once.
+ *
+ * Globs are split on {@code /} into segments and merged into one segment trie per rule set,
+ * so globs sharing a prefix share nodes. A segment is a literal, a wildcard pattern
+ * ({@code *} = any run of characters except {@code /}, {@code ?} = one character) or
+ * {@code **}, which matches zero or more whole segments. Matching walks the path's segments
+ * once, keeping the set of live trie nodes (an NFA simulation), with no regex and no
+ * per-segment allocation. Matching is case-insensitive, like the regex filter it replaces.
+ *
+ * Rule order is unchanged: with a prefix, a path must be {@code <prefix>.md} or lie under
+ * {@code <prefix>/} and include globs are not consulted; without one, it must match an
+ * include glob (any path when there are none). Exclude globs always win.
+ */
+public final class PathFilter {
+
+    private final String prefix;
+    private final String prefixFile;
+    private final String prefixDir;
+    private final Trie include;
+    private final Trie exclude;
+
+    private PathFilter(String prefix, Trie include, Trie exclude) {
+        this.prefix = prefix;
+        this.prefixFile = prefix + ".md";
+        this.prefixDir = prefix + "/";
+        this.include = include;
+        this.exclude = exclude;
+    }
+
+    public static PathFilter compile(String onlyPathPrefix, List<String> include, List<String> exclude) {
+        return new PathFilter(onlyPathPrefix == null ? "" : onlyPathPrefix.trim(),
+                Trie.of(include), Trie.of(exclude));
+    }
+
+    public boolean accepts(String path) {
+        if (!prefix.isEmpty()) {
+            if (!path.equalsIgnoreCase(prefixFile) && !path.startsWith(prefixDir)) return false;
+        } else if (include.size > 0 && !include.matches(path)) {
+            return false;
+        }
+        return !excluded(path);
+    }
+
+    public boolean included(String path) {
+        return include.size == 0 || include.matches(path);
+    }
+
+    public boolean excluded(String path) {
+        return exclude.size > 0 && exclude.matches(path);
+    }
+
+    /** One trie node; {@code loop} nodes were entered through {@code **} and absorb any segment. */
+    private static final class Node {
+        final int id;
+        final boolean loop;
+        boolean accept;
+        String[] literals = new String[0];
+        Node[] literalNext = new Node[0];
+        String[] wildcards = new String[0];
+        Node[] wildcardNext = new Node[0];
+        Node globstar;
+
+        Node(int id, boolean loop) {
+            this.id = id;
+            this.loop = loop;
+        }
+    }
+
+    private static final class Trie {
+        final Node root;
+        final int size;
+        final int nodes;
+
+        private Trie(Node root, int size, int nodes) {
+            this.root = root;
+            this.size = size;
+            this.nodes = nodes;
+        }
+
+        static Trie of(List<String> globs) {
+            int[] ids = {1};
+            Node root = new Node(0, false);
+            int size = 0;
+            for (String g : globs == null ? List.<String>of() : globs) {
+                String glob = g.trim();
+                if (glob.isEmpty()) continue;
+                size++;
+                Node n = root;
+                for (String seg : glob.split("/+")) {
+                    if (seg.isEmpty()) continue;
+                    n = child(n, seg, ids);
+                }
+                n.accept = true;
+            }
+            return new Trie(root, size, ids[0]);
+        }
+
+        private static Node child(Node n, String seg, int[] ids) {
+            if (seg.equals("**")) {
+                if (n.globstar == null) n.globstar = new Node(ids[0]++, true);
+                return n.globstar;
+            }
+            // "a**b" segment içinde "*" ile aynı anlama gelir
+            String s = seg.replaceAll("\\*{2,}", "*");
+            boolean wild = s.indexOf('*') >= 0 || s.indexOf('?') >= 0;
+            String[] keys = wild ? n.wildcards : n.literals;
+            Node[] next = wild ? n.wildcardNext : n.literalNext;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equalsIgnoreCase(s)) return next[i];
+            }
+            Node c = new Node(ids[0]++, false);
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            next = Arrays.copyOf(next, next.length + 1);
+            keys[keys.length - 1] = s;
+            next[next.length - 1] = c;
+            if (wild) {
+                n.wildcards = keys;
+                n.wildcardNext = next;
+            } else {
+                n.literals = keys;
+                n.literalNext = next;
+            }
+            return c;
+        }
+
+        boolean matches(String path) {
+            Node[] active = new Node[nodes];
+            Node[] next = new Node[nodes];
+            int[] seen = new int[nodes];           // node id -> son eklendiği adım (+1)
+            int step = 1;
+            int na = add(root, active, 0, seen, step);
+            int n = path.length(), start = 0;
+            while (start <= n) {
+                int end = path.indexOf('/', start);
+                if (end < 0) end = n;
+                if (end > start) {               // boş segmentler ("a//b", baştaki "/") yok sayılır
+                    step++;
+                    int nn = 0;
+                    for (int i = 0; i < na; i++) {
+                        Node s = active[i];
+                        if (s.loop) nn = add(s, next, nn, seen, step);
+                        for (int k = 0; k < s.literals.length; k++) {
+                            String lit = s.literals[k];
+                            if (lit.length() == end - start && path.regionMatches(true, start, lit, 0, lit.length())) {
+                                nn = add(s.literalNext[k], next, nn, seen, step);
+                            }
+                        }
+                        for (int k = 0; k < s.wildcards.length; k++) {
+                            if (wildcard(s.wildcards[k], path, start, end)) nn = add(s.wildcardNext[k], next, nn, seen, step);
+                        }
+                    }
+                    if (nn == 0) return false;
+                    Node[] t = active;
+                    active = next;
+                    next = t;
+                    na = nn;
+                }
+                start = end + 1;
+            }
+            for (int i = 0; i < na; i++) if (active[i].accept) return true;
+            return false;
+        }
+
+        /** Adds {@code node} and, since {@code **} may match nothing, its globstar chain. */
+        private static int add(Node node, Node[] set, int size, int[] seen, int step) {
+            for (Node x = node; x != null; x = x.globstar) {
+                if (seen[x.id] == step) continue;
+                seen[x.id] = step;
+                set[size++] = x;
+            }
+            return size;
+        }
+    }
+
+    /** {@code *}/{@code ?} match of {@code pattern} against {@code text[from, to)}, ignoring case. */
+    static boolean wildcard(String pattern, String text, int from, int to) {
+        int p = 0, t = from, starP = -1, starT = -1;
+        while (t < to) {
+            if (p < pattern.length() && (pattern.charAt(p) == '?' || same(pattern.charAt(p), text.charAt(t)))) {
+                p++;
+                t++;
+            } else if (p < pattern.length() && pattern.charAt(p) == '*') {
+                starP = p++;
+                starT = t;
+            } else if (starP >= 0) {
+                p = starP + 1;
+                t = ++starT;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length() && pattern.charAt(p) == '*') p++;
+        return p == pattern.length();
+    }
+
+    private static boolean same(char a, char b) {
+        return a == b || Character.toLowerCase(a) == Character.toLowerCase(b);
+    }
+
+    /** Compiled form, for logs. */
+    public String describe() {
+        List<String> parts = new ArrayList<>();
+        if (!prefix.isEmpty()) parts.add("prefix=" + prefix);
+        parts.add("include=" + include.size + " globs/" + include.nodes + " nodes");
+        parts.add("exclude=" + exclude.size + " globs/" + exclude.nodes + " nodes");
+        return String.join(" ", parts);
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.RAG_chatbot.ingest;
+
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Page-parallel PDF text extraction.
+ *
+ * PDFBox documents are not thread-safe, so each worker opens its own {@link PDDocument} over
+ * the same bytes and claims pages from a shared cursor. Pages are handed to the caller in
+ * page order, on the caller's thread, as soon as each one and all pages before it are done,
+ * so chunking/embedding of page 1 starts while later pages are still being extracted.
+ * At most {@code maxPagesInFlight} pages are extracted but not yet consumed, and every
+ * worker's PDFBox buffers share one main-memory budget ({@code maxMemoryBytes}; the rest
+ * spills to a temp file), so memory per document stays bounded however long it is.
+ */
+@Component
+public class PdfTextExtractor {
+
+    /** Receives one page's text; page numbers start at 1. */
+    @FunctionalInterface
+    public interface PageConsumer {
+        void accept(int page, String text) throws Exception;
+    }
+
+    public record Stats(int pages, int workers, long elapsedMs) {}
+
+    private final int threads;
+    private final long maxMemoryBytes;
+    private final int maxPagesInFlight;
+    private final ExecutorService pool;
+
+    @Autowired
+    public PdfTextExtractor(Environment env) {
+        this(Integer.parseInt(env.getProperty("app.ingest.pdf.threads",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                Long.parseLong(env.getProperty("app.ingest.pdf.maxMemoryMb", "256")) << 20,
+                Integer.parseInt(env.getProperty("app.ingest.pdf.maxPagesInFlight", "0")));
+    }
+
+    PdfTextExtractor(int threads, long maxMemoryBytes, int maxPagesInFlight) {
+        this.threads = Math.max(1, threads);
+        this.maxMemoryBytes = Math.max(1 << 20, maxMemoryBytes);
+        this.maxPagesInFlight = maxPagesInFlight > 0 ? maxPagesInFlight : 2 * this.threads;
+        AtomicInteger n = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(this.threads, r -> {
+            Thread t = new Thread(r, "pdf-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Whole document as one string (pages joined by blank lines), e.g. for small PDFs. */
+    public String extractText(byte[] pdf) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        extract(pdf, (page, text) -> {
+            if (!sb.isEmpty()) sb.append("\n\n");
+            sb.append(text);
+        });
+        return sb.toString();
+    }
+
+    public Stats extract(byte[] pdf, PageConsumer onPage) throws Exception {
+        long t0 = System.nanoTime();
+        int pages;
+        try (PDDocument doc = load(pdf, maxMemoryBytes)) {
+            pages = doc.getNumberOfPages();
+            if (threads == 1 || pages < 4) {
+                // küçük PDF: thread ve ikinci parse maliyetine değmez
+                PDFTextStripper stripper = new PDFTextStripper();
+                for (int p = 1; p <= pages; p++) onPage.accept(p, pageText(stripper, doc, p));
+                return new Stats(pages, 1, (System.nanoTime() - t0) / 1_000_000);
+            }
+        }
+
+        int workers = Math.min(threads, pages);
+        long perWorker = Math.max(1 << 20, maxMemoryBytes / workers);
+        @SuppressWarnings("unchecked")
+        CompletableFuture<String>[] done = new CompletableFuture[pages + 1];
+        for (int p = 1; p <= pages; p++) done[p] = new CompletableFuture<>();
+        Semaphore window = new Semaphore(maxPagesInFlight);
+        AtomicInteger cursor = new AtomicInteger(1);
+        AtomicBoolean abort = new AtomicBoolean();
+
+        for (int w = 0; w < workers; w++) {
+            pool.execute(() -> {
+                try (PDDocument doc = load(pdf, perWorker)) {
+                    PDFTextStripper stripper = new PDFTextStripper();
+                    while (!abort.get()) {
+                        window.acquire();
+                        int p = cursor.getAndIncrement();
+                        if (p > pages || abort.get()) {
+                            window.release();
+                            return;
+                        }
+                        try {
+                            done[p].complete(pageText(stripper, doc, p));
+                        } catch (Exception e) {
+                            done[p].completeExceptionally(e);
+                        }
+                    }
+                } catch (Throwable e) {
+                    // doküman açılamadı (veya kesildi): kalan sayfalar hata ile biter, çağıran bekleyip durmaz
+                    int claimed;
+                    while ((claimed = cursor.getAndIncrement()) <= pages) done[claimed].completeExceptionally(e);
+                }
+            });
+        }
+
+        try {
+            for (int p = 1; p <= pages; p++) {
+                String text;
+                try {
+                    text = done[p].get();
+                } catch (ExecutionException e) {
+                    throw new IOException("PDF page " + p + " failed: " + e.getCause().getMessage(), e.getCause());
+                }
+                done[p] = null;
+                window.release();
+                onPage.accept(p, text);
+            }
+        } finally {
+            abort.set(true);
+            window.release(workers);         // pencere bekleyen worker'ları uyandır
+        }
+        return new Stats(pages, workers, (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    private static PDDocument load(byte[] pdf, long mainMemoryBytes) throws IOException {
+        return PDDocument.load(pdf, "", null, null, MemoryUsageSetting.setupMixed(mainMemoryBytes));
+    }
+
+    private static String pageText(PDFTextStripper stripper, PDDocument doc, int page) throws IOException {
+        stripper.setStartPage(page);
+        stripper.setEndPage(page);
+        return stripper.getText(doc);
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdownNow();
+    }
+}
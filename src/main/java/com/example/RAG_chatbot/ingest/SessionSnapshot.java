@@ -0,0 +1,201 @@
+package com.example.RAG_chatbot.ingest;
+
+import com.example.RAG_chatbot.store.FloatMatrixFile;
+import com.example.RAG_chatbot.store.MappedVectorStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.document.Document;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Full copy of the vector store (documents and embeddings) inside a chunks_output session,
+ * so a node can be started from it without GitLab or the embedding model.
+ *
+ * <pre>
+ * session_xxx/snapshot/
+ *   snapshot.json   model, dim, count, created
+ *   archive/        {@link ChunkArchive} of {"text", "metadata"} records keyed by document id
+ *   vectors.f32     {@link FloatMatrixFile}, row i = embedding of the i-th archive record
+ * </pre>
+ * Loading streams the archive: worker threads claim batches of record numbers, do the
+ * positioned read + inflate + JSON parse for their batch and hand it to the store, so at
+ * most {@code threads * batchSize} documents are on the heap at a time.
+ */
+public final class SessionSnapshot {
+
+    static final String DIR = "snapshot";
+    static final String META_FILE = "snapshot.json";
+    static final String VECTORS_FILE = "vectors.f32";
+    static final String ARCHIVE_DIR = "archive";
+
+    private SessionSnapshot() {}
+
+    public record Meta(String model, int dim, int count, String created) {}
+
+    public record LoadStats(int documents, long elapsedMs) {}
+
+    /** Writes every live document of {@code store} to {@code sessionDir/snapshot}. */
+    public static Meta write(Path sessionDir, MappedVectorStore store, ObjectMapper mapper,
+                             String model, String created) throws IOException {
+        Path dir = sessionDir.resolve(DIR);
+        Files.createDirectories(dir);
+        int dim = store.dim();
+        if (dim == 0) throw new IOException("vector store is empty, nothing to snapshot");
+        Files.deleteIfExists(dir.resolve(VECTORS_FILE));
+        AtomicInteger count = new AtomicInteger();
+        try (ChunkArchive.Writer archive = ChunkArchive.openWriter(dir.resolve(ARCHIVE_DIR), mapper, 64L << 20, true);
+             FloatMatrixFile vectors = FloatMatrixFile.create(dir.resolve(VECTORS_FILE), dim)) {
+            store.forEachEmbedded((d, v) -> {
+                Map<String, Object> rec = new LinkedHashMap<>();
+                rec.put("text", d.getText());
+                rec.put("metadata", d.getMetadata());
+                try {
+                    // aynı sırada: archive kaydı i <-> vectors satırı i
+                    archive.append(d.getId(), rec);
+                    vectors.append(v);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("snapshot interrupted", e);
+                }
+                count.incrementAndGet();
+            });
+            vectors.force();
+        }
+        Meta meta = new Meta(model, dim, count.get(), created);
+        // meta en son yazılır: snapshot.json varsa snapshot tamdır
+        Files.write(dir.resolve(META_FILE), mapper.writeValueAsBytes(meta));
+        return meta;
+    }
+
+    /**
+     * Resolves {@code session} under {@code baseDir}: "latest" picks the newest session that has
+     * a complete snapshot, anything else is taken as a session directory name.
+     */
+    public static Path resolve(Path baseDir, String session) throws IOException {
+        if (session != null && !session.isBlank() && !"latest".equalsIgnoreCase(session.trim())) {
+            Path p = baseDir.resolve(session.trim());
+            if (!Files.exists(p.resolve(DIR).resolve(META_FILE))) {
+                throw new IOException("No complete snapshot in " + p);
+            }
+            return p;
+        }
+        if (!Files.isDirectory(baseDir)) throw new IOException("No sessions under " + baseDir);
+        try (Stream<Path> sessions = Files.list(baseDir)) {
+            // session_yyyyMMdd_HHmmss: isim sırası = zaman sırası
+            return sessions
+                    .filter(p -> p.getFileName().toString().startsWith("session_"))
+                    .filter(p -> Files.exists(p.resolve(DIR).resolve(META_FILE)))
+                    .max(Path::compareTo)
+                    .orElseThrow(() -> new IOException("No session with a snapshot under " + baseDir));
+        }
+    }
+
+    /**
+     * Deletes all but the {@code keep} newest session directories under {@code baseDir} and
+     * returns the deleted ones.
+     */
+    public static List<Path> prune(Path baseDir, int keep) throws IOException {
+        List<Path> sessions;
+        try (Stream<Path> list = Files.list(baseDir)) {
+            sessions = list.filter(p -> p.getFileName().toString().startsWith("session_"))
+                    .filter(Files::isDirectory)
+                    .sorted(Comparator.reverseOrder())
+                    .toList();
+        }
+        List<Path> deleted = new ArrayList<>();
+        for (Path old : sessions.subList(Math.min(keep, sessions.size()), sessions.size())) {
+            try (Stream<Path> files = Files.walk(old)) {
+                for (Path f : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(f);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            deleted.add(old);
+        }
+        return deleted;
+    }
+
+    public static Meta readMeta(Path sessionDir, ObjectMapper mapper) throws IOException {
+        return mapper.readValue(sessionDir.resolve(DIR).resolve(META_FILE).toFile(), Meta.class);
+    }
+
+    /**
+     * Streams the snapshot into {@code store} with {@code threads} parallel readers.
+     * {@code onBatch} sees every stored batch (e.g. to feed the BM25 index).
+     */
+    public static LoadStats load(Path sessionDir, MappedVectorStore store, ObjectMapper mapper,
+                                 int threads, int batchSize, Consumer<List<Document>> onBatch) throws IOException {
+        long t0 = System.nanoTime();
+        Path dir = sessionDir.resolve(DIR);
+        Meta meta = readMeta(sessionDir, mapper);
+        if (store.dim() != 0 && store.dim() != meta.dim()) {
+            throw new IOException("snapshot dim=" + meta.dim() + " but store dim=" + store.dim());
+        }
+        int batch = Math.max(1, batchSize);
+        try (ChunkArchive.Reader archive = ChunkArchive.openReader(dir.resolve(ARCHIVE_DIR), mapper);
+             FloatMatrixFile vectors = FloatMatrixFile.openExisting(dir.resolve(VECTORS_FILE))) {
+            if (vectors == null || vectors.count() != archive.size()) {
+                throw new IOException("snapshot vectors do not match archive in " + dir);
+            }
+            List<String> ids = archive.ids();
+            AtomicInteger cursor = new AtomicInteger();
+            int n = Math.max(1, threads);
+            ExecutorService pool = Executors.newFixedThreadPool(n, r -> {
+                Thread t = new Thread(r, "snapshot-load");
+                t.setDaemon(true);
+                return t;
+            });
+            try {
+                List<Future<?>> jobs = new ArrayList<>();
+                for (int w = 0; w < n; w++) {
+                    jobs.add(pool.submit(() -> {
+                        int from;
+                        while ((from = cursor.getAndAdd(batch)) < ids.size()) {
+                            int to = Math.min(ids.size(), from + batch);
+                            List<Document> docs = new ArrayList<>(to - from);
+                            List<float[]> embeddings = new ArrayList<>(to - from);
+                            for (int i = from; i < to; i++) {
+                                Map<String, Object> rec = archive.read(ids.get(i));
+                                @SuppressWarnings("unchecked")
+                                Map<String, Object> md = (Map<String, Object>) rec.get("metadata");
+                                docs.add(new Document(ids.get(i), (String) rec.get("text"),
+                                        md == null ? new LinkedHashMap<>() : md));
+                                float[] v = new float[vectors.dim()];
+                                vectors.read(i, v);
+                                embeddings.add(v);
+                            }
+                            store.addEmbedded(docs, embeddings);
+                            onBatch.accept(docs);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> f : jobs) f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("snapshot load interrupted", e);
+            } catch (java.util.concurrent.ExecutionException e) {
+                throw new IOException("snapshot load failed: " + e.getCause().getMessage(), e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+            store.flush();
+            return new LoadStats(ids.size(), (System.nanoTime() - t0) / 1_000_000);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.RAG_chatbot.ingest;
+
+import com.example.RAG_chatbot.store.Bm25Index;
+import com.example.RAG_chatbot.store.MappedVectorStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * "fast-start" profili: vektör store'u GitLab'a ve Ollama'ya gitmeden, gitlab-ingest'in
+ * yazdığı bir session snapshot'ından ({@link SessionSnapshot}) doldurur.
+ */
+@Profile("fast-start")
+@Component
+public class SnapshotLoader implements IngestSource {
+
+    /** Resolved session and snapshot meta the generation was loaded from. */
+    static final String STAMP_FILE = "snapshot-load.stamp";
+
+    private final Environment env;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public SnapshotLoader(Environment env) {
+        this.env = env;
+    }
+
+    /** Aynı session (ör. "latest" hâlâ aynı klasörü gösteriyorsa) tekrar yüklenmez. */
+    @Override
+    public boolean hasChanges(VectorStore current) throws Exception {
+        Path session = session();
+        return !SourceStamp.matches(current, STAMP_FILE, stamp(session, SessionSnapshot.readMeta(session, objectMapper)));
+    }
+
+    @Override
+    public IngestCompletedEvent ingest(VectorStore store, Bm25Index bm25) throws Exception {
+        if (!(store instanceof MappedVectorStore mapped)) {
+            System.out.println("[FastStart] app.vectorstore.type=mapped gerekli; snapshot yüklenmedi.");
+            return null;
+        }
+        Path session = session();
+        SessionSnapshot.Meta meta = SessionSnapshot.readMeta(session, objectMapper);
+        String model = env.getProperty("spring.ai.ollama.embedding.options.model", "");
+        if (!model.equals(meta.model())) {
+            // Sorgular farklı bir modelle embed edilirse benzerlikler anlamsız olur
+            throw new IllegalStateException("Snapshot " + session + " was built with embedding model '"
+                    + meta.model() + "' but the configured model is '" + model + "'");
+        }
+
+        int threads = Integer.parseInt(env.getProperty("app.snapshot.loadThreads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int batchSize = Integer.parseInt(env.getProperty("app.snapshot.batchSize", "512"));
+        System.out.printf("[FastStart] session=%s docs=%d dim=%d threads=%d%n",
+                session, meta.count(), meta.dim(), threads);
+
+        SessionSnapshot.LoadStats stats = SessionSnapshot.load(session, mapped, objectMapper,
+                threads, batchSize, bm25::addAll);
+        System.out.printf("[FastStart] %d doküman %d ms içinde yüklendi (embedding çağrısı yok)%n",
+                stats.documents(), stats.elapsedMs());
+        SourceStamp.save(mapped, STAMP_FILE, stamp(session, meta));
+        return IngestCompletedEvent.all();
+    }
+
+    private Path session() throws IOException {
+        return SessionSnapshot.resolve(
+                Paths.get(env.getProperty("app.snapshot.baseDir", "chunks_output")),
+                env.getProperty("app.snapshot.session", "latest"));
+    }
+
+    private static String stamp(Path session, SessionSnapshot.Meta meta) {
+        return session.toAbsolutePath().normalize() + "|" + meta.model() + "|" + meta.dim() + "|"
+                + meta.count() + "|" + meta.created();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.RAG_chatbot.ingest;
+
+import com.example.RAG_chatbot.store.MappedVectorStore;
+import org.springframework.ai.vectorstore.VectorStore;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * One-line fingerprint of what a non-incremental source last loaded (resource content hash,
+ * snapshot session), kept in the generation directory next to the index it describes. The
+ * source's {@link IngestSource#hasChanges} compares it with a fresh one; a generation that was
+ * not filled by that source simply has no matching stamp.
+ */
+final class SourceStamp {
+
+    private SourceStamp() {}
+
+    /** True if {@code current} is a non-empty mapped store whose stamp {@code file} equals {@code stamp}. */
+    static boolean matches(VectorStore current, String file, String stamp) throws IOException {
+        if (!(current instanceof MappedVectorStore mapped) || mapped.isEmpty()) return false;
+        Path p = mapped.dir().resolve(file);
+        return Files.exists(p) && Files.readString(p, StandardCharsets.UTF_8).equals(stamp);
+    }
+
+    /** Records {@code stamp} in the directory of {@code store}; a no-op for in-memory stores. */
+    static void save(VectorStore store, String file, String stamp) throws IOException {
+        if (store instanceof MappedVectorStore mapped) {
+            Files.writeString(mapped.dir().resolve(file), stamp, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -1,26 +1,174 @@
 package com.example.RAG_chatbot.ingest;
 
 import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
 import org.springframework.stereotype.Component;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Text cleanup before chunking. Line structure is kept on purpose: the chunker finds
+ * sections by {@code ^#+ } headings, so newlines must survive normalization.
+ */
 @Component
 public class TextNormalizer {
 
-    /** Generic whitespace/controls cleanup for plain text. */
-    public String normalizePlain(String s) {
+    /**
+     * Single pass over {@code s} into one pre-sized buffer:
+     * <ul>
+     *   <li>BOM dropped, {@code \r\n} and {@code \r} become {@code \n}</li>
+     *   <li>other control/format characters count as whitespace (newline and tab excepted)</li>
+     *   <li>runs of horizontal whitespace become one space; spaces at line start/end are dropped</li>
+     *   <li>at most one blank line in a row; leading/trailing blank lines trimmed</li>
+     * </ul>
+     */
+    public String normalizePlain(CharSequence s) {
         if (s == null) return "";
-        String t = s.replace("\uFEFF", "")            // BOM
-                .replaceAll("\\p{C}", " ")        // control chars
-                .replaceAll("[ \\t\\x0B\\f\\r]+", " ")
-                .replaceAll("\\n{3,}", "\n\n");
-        return t.trim();
+        int n = s.length();
+        StringBuilder out = new StringBuilder(n);
+        int newlines = 0;          // \n'ler henüz yazılmadı; bir sonraki görünür karakterde eklenir
+        boolean space = false;     // bekleyen tek boşluk
+        boolean lineStart = true;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c == '\r') {
+                if (i + 1 < n && s.charAt(i + 1) == '\n') i++;
+                c = '\n';
+            }
+            if (c == '\n') {
+                newlines++;
+                space = false;
+                lineStart = true;
+                continue;
+            }
+            if (c == '\uFEFF') continue;        // BOM
+            boolean pair = Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1));
+            if (!pair && (c == ' ' || c == '\t' || c == '\u000B' || c == '\f' || isControl(c))) {
+                if (!lineStart) space = true;
+                continue;
+            }
+            if (pair) {
+                int cp = Character.toCodePoint(c, s.charAt(i + 1));
+                if (isControlType(Character.getType(cp))) {
+                    if (!lineStart) space = true;
+                    i++;
+                    continue;
+                }
+                flush(out, newlines, space);
+                out.append(c).append(s.charAt(++i));
+            } else {
+                flush(out, newlines, space);
+                out.append(c);
+            }
+            newlines = 0;
+            space = false;
+            lineStart = false;
+        }
+        return out.toString();
+    }
+
+    /** UTF-8 bytes -> {@link #normalizePlain(CharSequence)}. */
+    public String normalizePlain(byte[] utf8) {
+        if (utf8 == null || utf8.length == 0) return "";
+        return normalizePlain(new String(utf8, StandardCharsets.UTF_8));
     }
 
-    /** HTML -> visible text -> normalize. */
+    /**
+     * HTML -> visible text with block boundaries as line breaks. Headings come out as
+     * markdown {@code #} lines and list items as {@code - } lines, so HTML pages get the
+     * same section detection as markdown. Script/style content is never emitted.
+     */
     public String htmlToText(byte[] bytes) {
         if (bytes == null || bytes.length == 0) return "";
-        String html = new String(bytes, java.nio.charset.StandardCharsets.UTF_8);
-        String text = Jsoup.parse(html).text();
-        return normalizePlain(text);
+        Element body;
+        try {
+            body = Jsoup.parse(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8.name(), "").body();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);   // bellekten okuma; olmaz
+        }
+        StringBuilder sb = new StringBuilder(bytes.length / 2);
+        NodeTraversor.traverse(new BlockTextVisitor(sb), body);
+        return normalizePlain(sb);
+    }
+
+    private static void flush(StringBuilder out, int newlines, boolean space) {
+        if (out.isEmpty()) return;
+        if (newlines > 0) {
+            out.append('\n');
+            if (newlines > 1) out.append('\n');
+        } else if (space) {
+            out.append(' ');
+        }
+    }
+
+    private static boolean isControl(char c) {
+        return c < 0x20 || (c >= 0x7F && c <= 0x9F) || (c > 0x9F && isControlType(Character.getType(c)));
+    }
+
+    /** Same set as regex {@code \p{C}}: control, format, private use, surrogate, unassigned. */
+    private static boolean isControlType(int type) {
+        return type == Character.CONTROL || type == Character.FORMAT || type == Character.PRIVATE_USE
+                || type == Character.SURROGATE || type == Character.UNASSIGNED;
+    }
+
+    private static boolean isHeading(String name) {
+        return name.length() == 2 && name.charAt(0) == 'h' && name.charAt(1) >= '1' && name.charAt(1) <= '6';
+    }
+
+    /** Appends text nodes; blocks, {@code <br>} and headings open new lines. */
+    private static final class BlockTextVisitor implements NodeVisitor {
+        private final StringBuilder sb;
+        private int pre;
+
+        BlockTextVisitor(StringBuilder sb) {
+            this.sb = sb;
+        }
+
+        @Override
+        public void head(Node node, int depth) {
+            if (node instanceof TextNode t) {
+                // kaynak HTML'deki satır sonları blok sınırı değildir; <pre> dışında boşluğa çevrilir
+                String text = t.getWholeText();
+                if (pre > 0) {
+                    sb.append(text);
+                } else {
+                    for (int i = 0; i < text.length(); i++) {
+                        char c = text.charAt(i);
+                        sb.append(c == '\n' || c == '\r' ? ' ' : c);
+                    }
+                }
+            } else if (node instanceof Element el) {
+                String name = el.normalName();
+                if (name.equals("pre")) pre++;
+                if (name.equals("br")) {
+                    sb.append('\n');
+                } else if (isHeading(name)) {
+                    sb.append("\n\n").append("#".repeat(name.charAt(1) - '0')).append(' ');
+                } else if (name.equals("li")) {
+                    sb.append("\n- ");
+                } else if (name.equals("td") || name.equals("th")) {
+                    sb.append(' ');
+                } else if (el.isBlock()) {
+                    sb.append('\n');
+                }
+            }
+        }
+
+        @Override
+        public void tail(Node node, int depth) {
+            if (node instanceof Element el) {
+                String name = el.normalName();
+                if (name.equals("pre")) pre--;
+                if (name.equals("p") || isHeading(name)) sb.append("\n\n");
+                else if (el.isBlock() && !name.equals("li")) sb.append('\n');
+            }
+        }
     }
 }
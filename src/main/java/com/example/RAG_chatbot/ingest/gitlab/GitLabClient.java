@@ -6,9 +6,12 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import org.springframework.web.util.UriUtils;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -21,6 +24,9 @@ public class GitLabClient {
     private final String projectIdProp;     // if set, skip path->id lookup
     private final String branch;
     private final AtomicReference<String> cachedProjectId = new AtomicReference<>(null);
+    private final int fetchConcurrency;
+    private final int maxRetries;
+    private final RateLimitGate gate;
 
     public GitLabClient(Environment env, WebClient.Builder builder) {
         this.host = env.getProperty("app.ingest.gitlab.host", "https://gitlab.com");
@@ -28,6 +34,11 @@ public class GitLabClient {
         this.projectIdProp = env.getProperty("app.ingest.gitlab.projectId"); // optional
         this.branch = env.getProperty("app.ingest.gitlab.branch", "main");
         String token = env.getProperty("app.ingest.gitlab.token");           // may be blank
+        this.fetchConcurrency = Math.max(1, Integer.parseInt(env.getProperty("app.ingest.gitlab.fetchConcurrency", "8")));
+        this.maxRetries = Math.max(0, Integer.parseInt(env.getProperty("app.ingest.gitlab.maxRetries", "5")));
+        this.gate = new RateLimitGate(
+                Long.parseLong(env.getProperty("app.ingest.gitlab.retryBackoffMs", "1000")),
+                this.fetchConcurrency);
 
         WebClient.Builder b = builder.baseUrl(host);
         if (token != null && !token.isBlank()) b.defaultHeader("PRIVATE-TOKEN", token);
@@ -99,7 +110,9 @@ public class GitLabClient {
                         .queryParam("page", page)
                         .queryParam("ref", branch)          // include branch ref
                         .build(pid))
-                .exchangeToMono(resp -> resp.bodyToFlux(TreeItem.class).collectList()
+                .exchangeToMono(resp -> {
+                    gate.observe(resp.statusCode().value(), resp.headers().asHttpHeaders());
+                    return resp.bodyToFlux(TreeItem.class).collectList()
                         .flatMap(list -> {
                             acc.addAll(list);
                             String next = resp.headers().asHttpHeaders().getFirst("X-Next-Page");
@@ -108,8 +121,8 @@ public class GitLabClient {
                                 return fetchTreePage(pid, Integer.parseInt(next), acc);
                             }
                             return Mono.just(acc);
-                        })
-                );
+                        });
+                });
     }
 
     /** Fetch raw file bytes by repository PATH (with ref). */
@@ -119,14 +132,7 @@ public class GitLabClient {
             String ref  = UriUtils.encode(this.branch, StandardCharsets.UTF_8);
             String url = String.format("/api/v4/projects/%s/repository/files/%s/raw?ref=%s", pid, path, ref);
             System.out.printf("[GitLab] raw url=%s%s%n", host, url);
-            return http.get()
-                    .uri(url)
-                    .retrieve()
-                    .onStatus(s -> s == HttpStatus.NOT_FOUND, r ->
-                            r.bodyToMono(String.class).flatMap(body ->
-                                    Mono.error(new IllegalStateException(
-                                            "File 404 by path: " + filePath + " body=" + body))))
-                    .bodyToMono(byte[].class);
+            return getBytes(url, "File 404 by path: " + filePath);
         });
     }
 
@@ -135,17 +141,73 @@ public class GitLabClient {
         return getProjectId().flatMap(pid -> {
             String url = String.format("/api/v4/projects/%s/repository/blobs/%s/raw", pid, blobSha);
             System.out.printf("[GitLab] blob raw url=%s%s%n", host, url);
-            return http.get()
-                    .uri(url)
-                    .retrieve()
-                    .onStatus(s -> s == HttpStatus.NOT_FOUND, r ->
-                            r.bodyToMono(String.class).flatMap(body ->
-                                    Mono.error(new IllegalStateException(
-                                            "File 404 by blob sha: " + blobSha + " body=" + body))))
-                    .bodyToMono(byte[].class);
+            return getBytes(url, "File 404 by blob sha: " + blobSha);
         });
     }
 
+    /**
+     * Fetches many files concurrently (at most {@code app.ingest.gitlab.fetchConcurrency}
+     * requests in flight). Each path is tried by path first, then by blob sha; a file that
+     * fails both is logged and skipped, so the stream never errors because of one file.
+     * Results arrive in completion order, not in {@code paths} order.
+     */
+    public Flux<RawFile> fetchAll(List<String> paths, Map<String, String> pathToSha) {
+        return Flux.fromIterable(paths).flatMap(p -> {
+            String sha = pathToSha.get(p);
+            return fetchRaw(p)
+                    .onErrorResume(e -> sha == null ? Mono.error(e) : fetchBlobRaw(sha))
+                    .map(bytes -> new RawFile(p, sha, bytes))
+                    .onErrorResume(e -> {
+                        System.out.printf("✗ ERR fetch %s : %s%n", p, e.getMessage());
+                        return Mono.empty();
+                    });
+        }, fetchConcurrency);
+    }
+
+    public int fetchConcurrency() {
+        return fetchConcurrency;
+    }
+
+    /** Number of 429/503 responses seen by this client. */
+    public int throttledCount() {
+        return gate.throttledCount();
+    }
+
+    /** GET with rate-limit pacing; throttled responses are retried after the gate's pause. */
+    private Mono<byte[]> getBytes(String url, String notFoundMessage) {
+        return Mono.defer(() -> {
+                    Duration wait = gate.reserve();
+                    Mono<byte[]> call = http.get().uri(url).exchangeToMono(resp -> {
+                        int status = resp.statusCode().value();
+                        if (gate.observe(status, resp.headers().asHttpHeaders())) {
+                            return resp.releaseBody().then(Mono.error(new ThrottledException(status, url)));
+                        }
+                        if (status == HttpStatus.NOT_FOUND.value()) {
+                            return resp.bodyToMono(String.class).defaultIfEmpty("").flatMap(body ->
+                                    Mono.error(new IllegalStateException(notFoundMessage + " body=" + body)));
+                        }
+                        if (resp.statusCode().isError()) {
+                            return resp.createException().flatMap(Mono::error);
+                        }
+                        return resp.bodyToMono(byte[].class).defaultIfEmpty(new byte[0]);
+                    });
+                    return wait.isZero() ? call : Mono.delay(wait).then(call);
+                })
+                .retryWhen(Retry.max(maxRetries)
+                        .filter(ThrottledException.class::isInstance)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+    }
+
+    /** 429/503 from GitLab; retried after the pause recorded in the gate. */
+    private static final class ThrottledException extends IllegalStateException {
+        ThrottledException(int status, String url) {
+            super("GitLab throttled (" + status + "): " + url);
+        }
+    }
+
+    /** One fetched file; sha is the blob sha from the tree (may be null). */
+    public static record RawFile(String path, String sha, byte[] bytes) {}
+
     /** GitLab tree item; id = blob sha for type=blob */
     public static record TreeItem(String id, String name, String type, String path, String mode) {}
 }
@@ -0,0 +1,113 @@
+package com.example.RAG_chatbot.ingest.gitlab;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Shared pacing state for every request of one {@link GitLabClient}.
+ *
+ * Each request reserves a start slot with {@link #reserve()}. Normally slots are free
+ * (no delay); responses feed {@link #observe} with GitLab's headers:
+ * <ul>
+ *   <li>{@code 429}/{@code 503}: all callers pause until {@code Retry-After} (seconds or
+ *       HTTP date), else until {@code RateLimit-Reset}, else for an exponential backoff
+ *       that grows with consecutive throttled responses.</li>
+ *   <li>{@code RateLimit-Remaining} at or below the low-water mark: the remaining budget
+ *       is spread evenly until {@code RateLimit-Reset} instead of being burnt at once.</li>
+ * </ul>
+ */
+final class RateLimitGate {
+
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final int lowWater;
+    private final LongSupplier clock;
+
+    private final AtomicLong nextSlot = new AtomicLong();      // epoch millis of the next free start
+    private final AtomicInteger consecutive = new AtomicInteger();
+    private final AtomicInteger throttled = new AtomicInteger();
+    private volatile long spacingMs;
+
+    RateLimitGate(long baseBackoffMs, int lowWater) {
+        this(baseBackoffMs, 60_000, lowWater, System::currentTimeMillis);
+    }
+
+    RateLimitGate(long baseBackoffMs, long maxBackoffMs, int lowWater, LongSupplier clock) {
+        this.baseBackoffMs = Math.max(1, baseBackoffMs);
+        this.maxBackoffMs = Math.max(this.baseBackoffMs, maxBackoffMs);
+        this.lowWater = Math.max(0, lowWater);
+        this.clock = clock;
+    }
+
+    /** Reserves the next start slot and returns how long the caller must wait for it. */
+    Duration reserve() {
+        long now = clock.getAsLong();
+        long spacing = spacingMs;
+        long start = Math.max(now, nextSlot.getAndUpdate(t -> Math.max(t, now) + spacing));
+        return Duration.ofMillis(start - now);
+    }
+
+    /** Updates pacing from a response; returns true if the request was throttled and should be retried. */
+    boolean observe(int status, HttpHeaders headers) {
+        long now = clock.getAsLong();
+        long reset = parseLong(headers.getFirst("RateLimit-Reset"), -1);   // epoch seconds
+        if (status == 429 || status == 503) {
+            throttled.incrementAndGet();
+            int n = consecutive.incrementAndGet();
+            long wait = retryAfterMs(headers.getFirst("Retry-After"), now);
+            if (wait < 0 && reset > 0) wait = reset * 1000 - now;
+            if (wait < 0) wait = Math.min(maxBackoffMs, baseBackoffMs << Math.min(n - 1, 16));
+            long until = now + wait;
+            nextSlot.accumulateAndGet(until, Math::max);
+            System.out.printf("[GitLab] throttled (%d), pausing %d ms%n", status, wait);
+            return true;
+        }
+        consecutive.set(0);
+        long remaining = parseLong(headers.getFirst("RateLimit-Remaining"), -1);
+        if (remaining >= 0 && remaining <= lowWater && reset > 0) {
+            long window = reset * 1000 - now;
+            spacingMs = window > 0 ? window / (remaining + 1) : 0;
+        } else if (remaining > lowWater) {
+            spacingMs = 0;
+        }
+        return false;
+    }
+
+    /** Throttled responses seen so far. */
+    int throttledCount() {
+        return throttled.get();
+    }
+
+    long spacingMs() {
+        return spacingMs;
+    }
+
+    private static long retryAfterMs(String value, long now) {
+        if (value == null || value.isBlank()) return -1;
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                return Math.max(0, ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toInstant().toEpochMilli() - now);
+            } catch (RuntimeException ignore) {
+                return -1;
+            }
+        }
+    }
+
+    private static long parseLong(String value, long def) {
+        if (value == null || value.isBlank()) return def;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return def;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.RAG_chatbot.store;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory BM25 inverted index over chunk text, kept next to the vector store.
+ *
+ * Terms come from {@link TurkishAnalyzer}. Each term owns a posting list of parallel
+ * {@code int[]} arrays (doc number, term frequency), so a posting costs 8 bytes and no
+ * boxing. Deletes and re-adds only tombstone the old doc number; once a quarter of the
+ * docs are dead the postings are rebuilt from the live documents. The index keeps the
+ * {@link Document}s it was given so lexical hits can be returned without a store lookup.
+ * Thread-safe: searches share a read lock, changes take the write lock.
+ */
+public class Bm25Index {
+
+    private final float k1;
+    private final float b;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private final List<Postings> postings = new ArrayList<>();
+    private final Map<String, Integer> docById = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private Document[] docs = new Document[1024];
+    private int[] docLen = new int[1024];
+    private int docCount;
+    private long liveLength;
+
+    public Bm25Index() {
+        this(1.2f, 0.75f);
+    }
+
+    public Bm25Index(float k1, float b) {
+        this.k1 = k1;
+        this.b = b;
+    }
+
+    /** Adds or replaces (same id) documents. */
+    public void addAll(List<Document> documents) {
+        lock.writeLock().lock();
+        try {
+            for (Document d : documents) {
+                removeLocked(d.getId());
+                index(d);
+            }
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Indexes every document {@code source} streams (e.g. {@code store::forEachDocument}), 1024 at a time. */
+    public void addAllFrom(Consumer<Consumer<Document>> source) {
+        List<Document> batch = new ArrayList<>(1024);
+        source.accept(d -> {
+            batch.add(d);
+            if (batch.size() == 1024) {
+                addAll(batch);
+                batch.clear();
+            }
+        });
+        addAll(batch);
+    }
+
+    public void remove(List<String> ids) {
+        lock.writeLock().lock();
+        try {
+            for (String id : ids) removeLocked(id);
+            maybeCompact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Best {@code topK} documents for {@code query}; each carries its BM25 score. */
+    public List<Document> search(String query, int topK) {
+        return search(query, topK, null);
+    }
+
+    /**
+     * Like {@link #search(String, int)}, restricted to documents whose metadata matches
+     * {@code filter} (null = all); the filter is checked only for documents that scored.
+     */
+    public List<Document> search(String query, int topK, Filter.Expression filter) {
+        LinkedHashSet<String> terms = new LinkedHashSet<>(TurkishAnalyzer.analyze(query));
+        lock.readLock().lock();
+        try {
+            int live = docById.size();
+            if (terms.isEmpty() || live == 0) return List.of();
+            float avgLen = (float) liveLength / live;
+            float[] acc = new float[docCount];
+            for (String t : terms) {
+                Integer id = termIds.get(t);
+                if (id == null) continue;
+                Postings p = postings.get(id);
+                int df = p.liveDf;
+                if (df == 0) continue;
+                float idf = (float) Math.log(1 + (live - df + 0.5) / (df + 0.5));
+                for (int i = 0; i < p.size; i++) {
+                    int d = p.docs[i];
+                    if (deleted.get(d)) continue;
+                    int tf = p.tfs[i];
+                    float norm = k1 * (1 - b + b * docLen[d] / avgLen);
+                    acc[d] += idf * tf * (k1 + 1) / (tf + norm);
+                }
+            }
+            TopK top = new TopK(topK);
+            for (int d = 0; d < acc.length; d++) {
+                if (acc[d] <= 0 || (top.isFull() && acc[d] <= top.minScore())) continue;
+                if (filter == null || MetadataFilters.matches(filter, docs[d].getMetadata())) top.offer(d, acc[d]);
+            }
+            float[] scores = new float[top.size()];
+            int[] rows = top.drainDescending(scores);
+            List<Document> out = new ArrayList<>(rows.length);
+            for (int i = 0; i < rows.length; i++) {
+                Document d = docs[rows[i]];
+                Map<String, Object> meta = new HashMap<>(d.getMetadata());
+                meta.put("bm25", scores[i]);
+                out.add(Document.builder().id(d.getId()).text(d.getText()).metadata(meta)
+                        .score((double) scores[i]).build());
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void index(Document d) {
+        List<String> tokens = TurkishAnalyzer.analyze(d.getText() == null ? "" : d.getText());
+        int no = docCount++;
+        if (no == docs.length) {
+            docs = Arrays.copyOf(docs, no * 2);
+            docLen = Arrays.copyOf(docLen, no * 2);
+        }
+        docs[no] = d;
+        docLen[no] = tokens.size();
+        liveLength += tokens.size();
+        docById.put(d.getId(), no);
+
+        Map<String, Integer> tf = new HashMap<>();
+        for (String t : tokens) tf.merge(t, 1, Integer::sum);
+        for (Map.Entry<String, Integer> e : tf.entrySet()) {
+            int id = termIds.computeIfAbsent(e.getKey(), k -> {
+                postings.add(new Postings());
+                return postings.size() - 1;
+            });
+            postings.get(id).add(no, e.getValue());
+        }
+    }
+
+    private void removeLocked(String id) {
+        Integer no = docById.remove(id);
+        if (no == null) return;
+        deleted.set(no);
+        liveLength -= docLen[no];
+        String text = docs[no].getText() == null ? "" : docs[no].getText();
+        for (String t : new LinkedHashSet<>(TurkishAnalyzer.analyze(text))) {
+            Integer tid = termIds.get(t);
+            if (tid != null) postings.get(tid).liveDf--;
+        }
+        docs[no] = null;
+    }
+
+    private void maybeCompact() {
+        int dead = docCount - docById.size();
+        if (dead > 1024 && dead * 4 > docCount) compact();
+    }
+
+    private void compact() {
+        List<Document> live = new ArrayList<>(docById.size());
+        for (int d = 0; d < docCount; d++) {
+            if (!deleted.get(d)) live.add(docs[d]);
+        }
+        termIds.clear();
+        postings.clear();
+        docById.clear();
+        deleted.clear();
+        Arrays.fill(docs, null);
+        docCount = 0;
+        liveLength = 0;
+        for (Document d : live) index(d);
+    }
+
+    /** Doc numbers ascending with their term frequencies, in parallel primitive arrays. */
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[] tfs = new int[4];
+        int size;
+        int liveDf;
+
+        void add(int doc, int tf) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            docs[size] = doc;
+            tfs[size++] = tf;
+            liveDf++;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.RAG_chatbot.store;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Append-only log of document payloads (id, text, metadata), one record per
+ * vector row: {@code [int bodyLen][int idLen][id utf8][json body]}.
+ *
+ * Only the record offsets stay on the heap; text and metadata are read back
+ * with a single positioned read when a row makes it into a result.
+ */
+final class DocumentLog implements Closeable {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {};
+
+    private final Path file;
+    private final FileChannel ch;
+    private final ObjectMapper json;
+    private long[] offsets = new long[1024];
+    private int count;
+    private long end;
+
+    DocumentLog(Path file, ObjectMapper json) throws IOException {
+        this.file = file;
+        this.json = json;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Scans record headers (ids only, bodies are skipped) and rebuilds the offset table.
+     * A torn record at the tail (crash mid-append) is truncated away.
+     */
+    void load(ObjIntConsumer<String> onRecord) throws IOException {
+        long pos = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+             DataInputStream din = new DataInputStream(in)) {
+            while (true) {
+                int bodyLen, idLen;
+                byte[] id;
+                try {
+                    bodyLen = din.readInt();
+                    idLen = din.readInt();
+                    id = din.readNBytes(idLen);
+                    if (id.length < idLen || din.skipBytes(bodyLen) < bodyLen) break;
+                } catch (EOFException eof) {
+                    break;
+                }
+                track(pos);
+                onRecord.accept(new String(id, StandardCharsets.UTF_8), count - 1);
+                pos += 8L + idLen + bodyLen;
+            }
+        }
+        if (pos < ch.size()) ch.truncate(pos);
+        end = pos;
+    }
+
+    /** Appends one record and returns its row number. Callers serialize writes. */
+    int append(String id, String text, Map<String, Object> metadata) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("text", text);
+        body.put("metadata", metadata);
+        byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+        byte[] bodyBytes = json.writeValueAsBytes(body);
+
+        ByteBuffer buf = ByteBuffer.allocate(8 + idBytes.length + bodyBytes.length);
+        buf.putInt(bodyBytes.length).putInt(idBytes.length).put(idBytes).put(bodyBytes).flip();
+        long pos = end;
+        while (buf.hasRemaining()) pos += ch.write(buf, pos);
+        track(end);
+        end = pos;
+        return count - 1;
+    }
+
+    /** Reads the record at {@code row}. */
+    Record read(int row) throws IOException {
+        long pos = offsets[row];
+        ByteBuffer head = ByteBuffer.allocate(8);
+        readFully(head, pos);
+        int bodyLen = head.getInt(0), idLen = head.getInt(4);
+        ByteBuffer rec = ByteBuffer.allocate(idLen + bodyLen);
+        readFully(rec, pos + 8);
+        byte[] a = rec.array();
+        String id = new String(a, 0, idLen, StandardCharsets.UTF_8);
+        Map<String, Object> body = json.readValue(a, idLen, bodyLen, MAP_TYPE);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> meta = (Map<String, Object>) body.getOrDefault("metadata", Map.of());
+        return new Record(id, (String) body.get("text"), new LinkedHashMap<>(meta));
+    }
+
+    int count() {
+        return count;
+    }
+
+    /** Drops records from {@code rows} on; used when the vector file is shorter after a crash. */
+    void truncate(int rows) throws IOException {
+        if (rows >= count) return;
+        end = offsets[rows];
+        count = rows;
+        ch.truncate(end);
+    }
+
+    void force() throws IOException {
+        ch.force(false);
+    }
+
+    private void track(long pos) {
+        if (count == offsets.length) offsets = Arrays.copyOf(offsets, count * 2);
+        offsets[count++] = pos;
+    }
+
+    private void readFully(ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos + buf.position());
+            if (n < 0) throw new EOFException("Truncated record in " + file);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        ch.close();
+    }
+
+    record Record(String id, String text, Map<String, Object> metadata) {}
+}
@@ -0,0 +1,131 @@
+package com.example.RAG_chatbot.store;
+
+import org.roaringbitmap.IntIterator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+
+/**
+ * Brute-force scan over every row; exact, O(n·dim) per query.
+ *
+ * Rows are copied out of the mapping {@link #BLOCK_ROWS} at a time into a contiguous block and
+ * scored with {@link VectorMath#dot} (Vector API when the module is present, scalar otherwise).
+ * Matrices of at least two leaves are split into row ranges on a ForkJoin pool: every leaf fills
+ * its own {@link TopK}, and partial heaps are merged on the way up the join tree, so workers
+ * share no state and take no locks.
+ */
+final class ExactScanIndex implements VectorIndex {
+
+    static final int BLOCK_ROWS = 64;
+    static final int LEAF_ROWS = 16_384;
+
+    private final FloatMatrixFile vectors;
+    private final ForkJoinPool pool;    // null: scan on the caller's thread
+
+    ExactScanIndex(FloatMatrixFile vectors) {
+        this(vectors, 1);
+    }
+
+    /** {@code threads <= 0} uses every available core. */
+    ExactScanIndex(FloatMatrixFile vectors, int threads) {
+        this.vectors = vectors;
+        int n = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.pool = n > 1 ? new ForkJoinPool(n, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("exact-scan-" + t.getPoolIndex());
+            t.setDaemon(true);
+            return t;
+        }, null, false) : null;
+    }
+
+    @Override
+    public void added(int row) {
+        // nothing derived to maintain
+    }
+
+    @Override
+    public void search(float[] query, TopK top, float threshold, IntPredicate accept) {
+        int n = vectors.count();
+        if (pool == null || n < 2 * LEAF_ROWS) {
+            scanRange(vectors, 0, n, query, top, threshold, accept);
+            return;
+        }
+        top.merge(pool.invoke(new Scan(0, n, query, top.capacity(), threshold, accept)));
+    }
+
+    /** Scores rows {@code [from, to)} block by block into {@code top}. */
+    static void scanRange(FloatMatrixFile vectors, int from, int to, float[] query, TopK top, float threshold,
+                          IntPredicate accept) {
+        int dim = vectors.dim();
+        float[] block = new float[BLOCK_ROWS * dim];
+        for (int start = from; start < to; start += BLOCK_ROWS) {
+            int rows = Math.min(BLOCK_ROWS, to - start);
+            vectors.readRows(start, rows, block);
+            for (int r = 0; r < rows; r++) {
+                float s = VectorMath.dot(block, r * dim, query, dim);
+                if (s < threshold || (top.isFull() && s <= top.minScore())) continue;
+                if (accept.test(start + r)) top.offer(start + r, s);
+            }
+        }
+    }
+
+    /** Same scan over a subset of rows (ascending), e.g. the rows a metadata filter selected. */
+    static void scanRows(FloatMatrixFile vectors, IntIterator rows, float[] query, TopK top, float threshold,
+                         IntPredicate accept) {
+        int dim = vectors.dim();
+        float[] v = new float[dim];
+        while (rows.hasNext()) {
+            int row = rows.next();
+            vectors.read(row, v);
+            float s = VectorMath.dot(v, 0, query, dim);
+            if (s < threshold || (top.isFull() && s <= top.minScore())) continue;
+            if (accept.test(row)) top.offer(row, s);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Override
+    public String describe() {
+        return "exact[" + VectorMath.describe() + (pool == null ? "" : ", " + pool.getParallelism() + " threads") + "]";
+    }
+
+    /** One row range; splits in halves down to {@link #LEAF_ROWS}, each leaf with its own heap. */
+    private final class Scan extends RecursiveTask<TopK> {
+
+        private final int from;
+        private final int to;
+        private final float[] query;
+        private final int k;
+        private final float threshold;
+        private final IntPredicate accept;
+
+        Scan(int from, int to, float[] query, int k, float threshold, IntPredicate accept) {
+            this.from = from;
+            this.to = to;
+            this.query = query;
+            this.k = k;
+            this.threshold = threshold;
+            this.accept = accept;
+        }
+
+        @Override
+        protected TopK compute() {
+            if (to - from <= LEAF_ROWS) {
+                TopK top = new TopK(k);
+                scanRange(vectors, from, to, query, top, threshold, accept);
+                return top;
+            }
+            int mid = (from + to) >>> 1;
+            Scan left = new Scan(from, mid, query, k, threshold, accept);
+            left.fork();
+            TopK right = new Scan(mid, to, query, k, threshold, accept).compute();
+            return right.merge(left.join());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.RAG_chatbot.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only file of fixed-width float rows, memory-mapped in segments.
+ *
+ * Layout: 64 byte header (magic, version, dim, count) followed by little-endian
+ * float32 rows. Rows never straddle a segment, so a row is always one
+ * {@link FloatBuffer} slice away. Data lives in the page cache, not on the heap.
+ */
+public final class FloatMatrixFile implements Closeable {
+
+    private static final int MAGIC = 0x52414756;          // "RAGV"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int OFF_DIM = 8;
+    private static final int OFF_COUNT = 12;
+    private static final long SEGMENT_BYTES = 32L << 20;  // 32 MB per mapping
+
+    private final Path file;
+    private final FileChannel ch;
+    private final MappedByteBuffer header;
+    private final int dim;
+    private final int rowsPerSegment;
+    private final List<MappedByteBuffer> maps = new ArrayList<>();
+    private final List<FloatBuffer> segments = new ArrayList<>();
+    private volatile int count;
+
+    private FloatMatrixFile(Path file, FileChannel ch, MappedByteBuffer header, int dim, int count) {
+        this.file = file;
+        this.ch = ch;
+        this.header = header;
+        this.dim = dim;
+        this.count = count;
+        this.rowsPerSegment = (int) Math.max(1, SEGMENT_BYTES / ((long) dim * Float.BYTES));
+    }
+
+    /** Opens an existing matrix file; returns null if it does not exist. */
+    public static FloatMatrixFile openExisting(Path file) throws IOException {
+        if (!Files.exists(file)) return null;
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) != MAGIC) {
+            ch.close();
+            throw new IOException("Not a vector file: " + file);
+        }
+        int dim = header.getInt(OFF_DIM);
+        int count = header.getInt(OFF_COUNT);
+        FloatMatrixFile m = new FloatMatrixFile(file, ch, header, dim, count);
+        m.ensureSegments(count);
+        return m;
+    }
+
+    /** Creates a new, empty matrix file with the given row width. */
+    public static FloatMatrixFile create(Path file, int dim) throws IOException {
+        if (dim <= 0) throw new IllegalArgumentException("dim must be > 0");
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer header = ch.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0, MAGIC);
+        header.putInt(4, VERSION);
+        header.putInt(OFF_DIM, dim);
+        header.putInt(OFF_COUNT, 0);
+        return new FloatMatrixFile(file, ch, header, dim, 0);
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public int dim() {
+        return dim;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /** Appends one row and returns its index. Callers serialize writes. */
+    public int append(float[] row) throws IOException {
+        if (row.length != dim) {
+            throw new IllegalArgumentException("Expected dim=" + dim + " got " + row.length);
+        }
+        int idx = count;
+        ensureSegments(idx + 1);
+        segments.get(idx / rowsPerSegment).put((idx % rowsPerSegment) * dim, row);
+        count = idx + 1;
+        header.putInt(OFF_COUNT, count);
+        return idx;
+    }
+
+    /** Forgets rows from {@code rows} on (crash recovery); the space is reused by later appends. */
+    public void truncate(int rows) {
+        if (rows >= count) return;
+        count = rows;
+        header.putInt(OFF_COUNT, count);
+    }
+
+    /** Copies row {@code idx} into {@code dst}. */
+    public void read(int idx, float[] dst) {
+        segments.get(idx / rowsPerSegment).get((idx % rowsPerSegment) * dim, dst, 0, dim);
+    }
+
+    /**
+     * Copies rows {@code [from, from+n)} into {@code dst} back to back (row-major), one bulk
+     * copy per segment touched; the exact scan runs its SIMD dot products on this block.
+     */
+    public void readRows(int from, int n, float[] dst) {
+        int row = from, off = 0, end = from + n;
+        while (row < end) {
+            int seg = row / rowsPerSegment;
+            int inSeg = Math.min(end, (seg + 1) * rowsPerSegment) - row;
+            segments.get(seg).get((row % rowsPerSegment) * dim, dst, off, inSeg * dim);
+            row += inSeg;
+            off += inSeg * dim;
+        }
+    }
+
+    /** Dot product of row {@code idx} with {@code q}, read straight from the mapping. */
+    public float dot(int idx, float[] q) {
+        FloatBuffer seg = segments.get(idx / rowsPerSegment);
+        int base = (idx % rowsPerSegment) * dim;
+        float s = 0f;
+        for (int i = 0; i < dim; i++) s += seg.get(base + i) * q[i];
+        return s;
+    }
+
+    /** Flushes dirty pages of the header and all segments to disk. */
+    public void force() {
+        for (MappedByteBuffer mb : maps) mb.force();
+        header.force();
+    }
+
+    private void ensureSegments(int rows) throws IOException {
+        long rowBytes = (long) dim * Float.BYTES;
+        while ((long) segments.size() * rowsPerSegment < rows) {
+            long pos = HEADER_BYTES + (long) segments.size() * rowsPerSegment * rowBytes;
+            MappedByteBuffer mb = ch.map(FileChannel.MapMode.READ_WRITE, pos, rowsPerSegment * rowBytes);
+            mb.order(ByteOrder.LITTLE_ENDIAN);
+            maps.add(mb);
+            segments.add(mb.asFloatBuffer());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        maps.clear();
+        segments.clear();
+        ch.close();
+    }
+}
@@ -0,0 +1,406 @@
+package com.example.RAG_chatbot.store;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The live index as a series of generations under one directory: {@code gen-000001/},
+ * {@code gen-000002/} ... each a complete {@link MappedVectorStore}, plus a {@code CURRENT}
+ * file naming the one that serves queries. Each generation also owns the in-memory
+ * {@link Bm25Index} over its documents, so the vector and lexical sides are swapped together.
+ *
+ * A re-ingest {@link #stage stages} the next generation next to the current one (empty, or
+ * seeded with a copy of its files so an incremental run only re-embeds what changed) and {@link #publish publishes} it when it is complete: {@code CURRENT} is replaced by
+ * an atomic rename and the in-memory pointer is swapped, so a search sees either the old or the
+ * new generation, never a mix; {@link #withCurrent} gives a hybrid search both indexes of one
+ * generation. Every operation holds a reference on the generation it started
+ * on; the retired generation is closed and its directory deleted when the last one is released.
+ *
+ * On open, an index written before generations existed (files directly in the directory) is
+ * moved into {@code gen-000001}, and directories of interrupted builds are removed.
+ */
+public class GenerationalVectorStore implements VectorStore, Closeable {
+
+    static final String CURRENT_FILE = "CURRENT";
+    private static final String PREFIX = "gen-";
+    private static final int COPY_BATCH = 1024;
+    static final double COMPACT_GARBAGE = 0.25;
+
+    // Pre-generation layout; the manifest belongs to the GitLab ingest but lived in the same folder
+    private static final List<String> LEGACY_FILES = List.of(
+            MappedVectorStore.VECTORS_FILE, MappedVectorStore.DOCUMENTS_FILE, MappedVectorStore.DELETED_FILE,
+            MetadataBitmapIndex.FILE, HnswIndex.GRAPH_FILE, "codes.int8", "codes.bits", "ingest-manifest.json");
+
+    private final EmbeddingModel embeddingModel;
+    private final Path root;
+    private final IndexOptions indexOptions;
+    private final AtomicReference<Generation> current = new AtomicReference<>();
+    private long lastId;                // guarded by this
+    private Generation staging;         // guarded by this
+
+    public GenerationalVectorStore(EmbeddingModel embeddingModel, Path root, IndexOptions indexOptions)
+            throws IOException {
+        this.embeddingModel = embeddingModel;
+        this.root = root;
+        this.indexOptions = indexOptions;
+        Files.createDirectories(root);
+        migrateLegacyLayout();
+
+        String live = readCurrent();
+        try (Stream<Path> dirs = Files.list(root)) {
+            for (Path dir : dirs.filter(GenerationalVectorStore::isGenerationDir).toList()) {
+                long id = idOf(dir);
+                lastId = Math.max(lastId, id);
+                if (!dir.getFileName().toString().equals(live)) {
+                    System.out.printf("[VectorStore] removing stale generation %s%n", dir.getFileName());
+                    deleteRecursively(dir);
+                }
+            }
+        }
+        if (live != null && Files.isDirectory(root.resolve(live))) {
+            Path dir = root.resolve(live);
+            MappedVectorStore opened = new MappedVectorStore(embeddingModel, dir, indexOptions);
+            current.set(new Generation(idOf(dir), opened, lexicalOf(opened)));
+        }
+        System.out.printf("[VectorStore] generations in %s: current=%s%n", root, live == null ? "-" : live);
+    }
+
+    /** One index generation: vector store plus BM25 index over the same documents. */
+    public static final class Generation {
+
+        private final long id;
+        private final MappedVectorStore store;
+        private final Bm25Index lexical;
+        private final AtomicInteger refs = new AtomicInteger(1);    // 1 = owner (current or staging)
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean retired;
+
+        private Generation(long id, MappedVectorStore store, Bm25Index lexical) {
+            this.id = id;
+            this.store = store;
+            this.lexical = lexical;
+        }
+
+        public long id() {
+            return id;
+        }
+
+        public MappedVectorStore store() {
+            return store;
+        }
+
+        /** BM25 index of this generation; whoever fills {@link #store()} keeps it in step. */
+        public Bm25Index lexical() {
+            return lexical;
+        }
+
+        boolean retain() {
+            for (int r = refs.get(); r > 0; r = refs.get()) {
+                if (refs.compareAndSet(r, r + 1)) return true;
+            }
+            return false;
+        }
+
+        void release() {
+            if (refs.decrementAndGet() == 0) dispose();
+        }
+
+        /** Drops the owner reference; with {@code retire} the directory goes too once unused. */
+        private void drop(boolean retire) {
+            this.retired = retire;
+            if (released.compareAndSet(false, true)) release();
+        }
+
+        private void dispose() {
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.out.printf("[VectorStore] closing generation %d failed: %s%n", id, e.getMessage());
+            }
+            if (retired) {
+                try {
+                    deleteRecursively(store.dir());
+                    System.out.printf("[VectorStore] generation %d released and deleted%n", id);
+                } catch (IOException e) {
+                    // bir sonraki açılışta stale olarak silinir
+                    System.out.printf("[VectorStore] deleting %s failed: %s%n", store.dir(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /** The generation serving queries, or null before the first one is published. */
+    public Generation current() {
+        return current.get();
+    }
+
+    /** True once a generation exists (opened from disk or published). */
+    public boolean ready() {
+        return current.get() != null;
+    }
+
+    public int size() {
+        Integer n = read(MappedVectorStore::size);
+        return n == null ? 0 : n;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Streams every live document of the current generation, see {@link MappedVectorStore#forEachDocument}. */
+    public void forEachDocument(Consumer<Document> consumer) {
+        read(s -> {
+            s.forEachDocument(consumer);
+            return null;
+        });
+    }
+
+    /**
+     * Opens the next generation in a new directory. With {@code seedFromCurrent} it starts as a
+     * copy of the current generation, without embedding calls: normally its files are copied as
+     * they are (vectors, documents, tombstones, HNSW graph, filter bitmaps); once more than a
+     * quarter of the rows are tombstoned ({@link #COMPACT_GARBAGE}), the live rows are re-appended instead
+     * so deleted and replaced chunks do not pile up across generations. The BM25 index is built
+     * over the copy. Only one generation can be staged at a time.
+     */
+    public Generation stage(boolean seedFromCurrent) throws IOException {
+        Generation from = seedFromCurrent ? acquire() : null;
+        try {
+            boolean compact = from != null && from.store.garbageRatio() > COMPACT_GARBAGE;
+            long t0 = System.nanoTime();
+            Generation g;
+            synchronized (this) {
+                if (staging != null) throw new IllegalStateException("generation " + staging.id + " is already being built");
+                long id = ++lastId;
+                Path dir = root.resolve(name(id));
+                deleteRecursively(dir);
+                try {
+                    if (from != null && !compact) from.store.copyTo(dir);
+                    g = new Generation(id, new MappedVectorStore(embeddingModel, dir, indexOptions), new Bm25Index());
+                } catch (IOException | RuntimeException e) {
+                    deleteRecursively(dir);
+                    throw e;
+                }
+                staging = g;
+            }
+            if (from == null) return g;
+            try {
+                if (compact) copyRows(from.store, g.store);
+                g.lexical.addAllFrom(g.store::forEachDocument);
+                System.out.printf("[VectorStore] generation %d seeded from %d (%s): %d docs in %d ms%n",
+                        g.id, from.id, compact ? "compacted" : "file copy", g.store.size(),
+                        (System.nanoTime() - t0) / 1_000_000);
+                return g;
+            } catch (RuntimeException e) {
+                discard(g);
+                throw e;
+            }
+        } finally {
+            if (from != null) from.release();
+        }
+    }
+
+    /** Re-appends the live rows of {@code from}; tombstoned rows stay behind. */
+    private static void copyRows(MappedVectorStore from, MappedVectorStore to) {
+        List<Document> docs = new ArrayList<>(COPY_BATCH);
+        List<float[]> vectors = new ArrayList<>(COPY_BATCH);
+        from.forEachEmbedded((d, v) -> {
+            docs.add(d);
+            vectors.add(v);
+            if (docs.size() == COPY_BATCH) {
+                to.addEmbedded(docs, vectors);
+                docs.clear();
+                vectors.clear();
+            }
+        });
+        to.addEmbedded(docs, vectors);
+    }
+
+    /**
+     * Makes the staged generation current: flushes it, points {@code CURRENT} at it and swaps it
+     * in; vector store and BM25 index change in that one step. The previous generation is closed and deleted once its in-flight operations finish.
+     */
+    public void publish(Generation g) throws IOException {
+        synchronized (this) {
+            if (staging != g) throw new IllegalStateException("generation " + g.id + " is not staged");
+            staging = null;
+        }
+        g.store.flush();
+        Path tmp = root.resolve(CURRENT_FILE + ".tmp");
+        Files.writeString(tmp, name(g.id), StandardCharsets.UTF_8);
+        Files.move(tmp, root.resolve(CURRENT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Generation old = current.getAndSet(g);
+        System.out.printf("[VectorStore] generation %d is live (%d docs)%s%n", g.id, g.store.size(),
+                old == null ? "" : ", retiring " + old.id);
+        if (old != null) old.drop(true);
+    }
+
+    /** Abandons a staged generation (failed or empty run) and deletes its directory. */
+    public void discard(Generation g) {
+        synchronized (this) {
+            if (staging == g) staging = null;
+        }
+        g.drop(true);
+    }
+
+    // ---- VectorStore: always the current generation ----
+
+    @Override
+    public void add(List<Document> documents) {
+        Generation g = acquire();
+        if (g == null) throw new IllegalStateException("No index generation yet in " + root);
+        try {
+            g.store.add(documents);
+            g.lexical.addAll(documents);
+        } finally {
+            g.release();
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        withCurrent((s, lexical) -> {
+            s.delete(idList);
+            lexical.remove(idList);
+            return null;
+        });
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        withCurrent((s, lexical) -> {
+            List<String> ids = s.idsMatching(filterExpression);
+            s.delete(ids);
+            lexical.remove(ids);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        List<Document> hits = read(s -> s.similaritySearch(request));
+        return hits == null ? List.of() : hits;
+    }
+
+    @Override
+    public void close() throws IOException {
+        Generation g;
+        synchronized (this) {
+            g = staging;
+            staging = null;
+        }
+        if (g != null) g.drop(true);        // yarım kalmış build
+        Generation live = current.getAndSet(null);
+        if (live != null) live.drop(false);
+    }
+
+    /** The current generation with a reference held, or null; pair with {@link Generation#release}. */
+    Generation acquire() {
+        while (true) {
+            Generation g = current.get();
+            // retain yalnızca emekliye ayrılmış nesilde başarısız olur; o zaman current zaten değişmiştir
+            if (g == null || g.retain()) return g;
+        }
+    }
+
+    /**
+     * Runs {@code op} on the vector store and BM25 index of one generation, holding a reference
+     * until it returns: a hybrid search never pairs one generation's vectors with another's
+     * lexical index, even if a publish happens meanwhile. Null before the first generation.
+     */
+    public <T> T withCurrent(BiFunction<MappedVectorStore, Bm25Index, T> op) {
+        Generation g = acquire();
+        if (g == null) return null;
+        try {
+            return op.apply(g.store, g.lexical);
+        } finally {
+            g.release();
+        }
+    }
+
+    private <T> T read(Function<MappedVectorStore, T> op) {
+        Generation g = acquire();
+        if (g == null) return null;
+        try {
+            return op.apply(g.store);
+        } finally {
+            g.release();
+        }
+    }
+
+    private String readCurrent() throws IOException {
+        Path file = root.resolve(CURRENT_FILE);
+        if (!Files.exists(file)) return null;
+        String name = Files.readString(file, StandardCharsets.UTF_8).trim();
+        return name.isEmpty() ? null : name;
+    }
+
+    /** Index files lying directly in the directory become generation 1. */
+    private void migrateLegacyLayout() throws IOException {
+        if (Files.exists(root.resolve(CURRENT_FILE))
+                || !Files.exists(root.resolve(MappedVectorStore.DOCUMENTS_FILE))) return;
+        Path dir = root.resolve(name(1));
+        Files.createDirectories(dir);
+        for (String f : LEGACY_FILES) {
+            Path src = root.resolve(f);
+            if (Files.exists(src)) Files.move(src, dir.resolve(f), StandardCopyOption.REPLACE_EXISTING);
+        }
+        Files.writeString(root.resolve(CURRENT_FILE), name(1), StandardCharsets.UTF_8);
+        System.out.printf("[VectorStore] moved the existing index in %s to %s%n", root, dir.getFileName());
+    }
+
+    private static Bm25Index lexicalOf(MappedVectorStore store) {
+        Bm25Index bm25 = new Bm25Index();
+        if (store.isEmpty()) return bm25;
+        long t0 = System.nanoTime();
+        bm25.addAllFrom(store::forEachDocument);
+        System.out.printf("[BM25] rebuilt from %s: %d docs in %d ms%n",
+                store.dir().getFileName(), bm25.size(), (System.nanoTime() - t0) / 1_000_000);
+        return bm25;
+    }
+
+    static String name(long id) {
+        return String.format("%s%06d", PREFIX, id);
+    }
+
+    private static boolean isGenerationDir(Path p) {
+        String n = p.getFileName().toString();
+        return Files.isDirectory(p) && n.startsWith(PREFIX) && n.length() > PREFIX.length()
+                && n.substring(PREFIX.length()).chars().allMatch(Character::isDigit);
+    }
+
+    private static long idOf(Path dir) {
+        return Long.parseLong(dir.getFileName().toString().substring(PREFIX.length()));
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path p : paths.sorted(Comparator.reverseOrder()).toList()) Files.delete(p);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
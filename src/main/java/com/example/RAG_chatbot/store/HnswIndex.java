@@ -0,0 +1,398 @@
+package com.example.RAG_chatbot.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical Navigable Small World graph (Malkov &amp; Yashunin) over the rows of a
+ * {@link FloatMatrixFile}. Vectors are not copied: distances are read from the mapping.
+ *
+ * Adjacency lists are {@code int[]} with the count in slot 0. Deleted or filtered rows
+ * stay in the graph as waypoints and are dropped when results are collected. The graph
+ * is saved as {@code hnsw.graph} next to the matrix; rows appended after the last save
+ * are inserted again on open.
+ */
+final class HnswIndex implements VectorIndex {
+
+    static final String GRAPH_FILE = "hnsw.graph";
+    private static final int MAGIC = 0x484E5357;   // "HNSW"
+
+    private final FloatMatrixFile vectors;
+    private final int m;
+    private final int m0;
+    private final int efConstruction;
+    private final int efSearch;
+    private final double levelMult;
+    private final SplittableRandom rnd = new SplittableRandom(42);
+    // Searches run on virtual threads (one per request), so a ThreadLocal would allocate a fresh
+    // set per query; a small shared pool, capped at the CPU count, keeps the reuse
+    private static final int VISITED_POOL_MAX = Runtime.getRuntime().availableProcessors();
+    private final ConcurrentLinkedQueue<Visited> visitedPool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger visitedPooled = new AtomicInteger();
+
+    private int[][][] links = new int[1024][][];   // links[row][level] = {count, n1, n2, ...}
+    private int size;
+    private int entry = -1;
+    private int maxLevel = -1;
+
+    private HnswIndex(FloatMatrixFile vectors, int m, int efConstruction, int efSearch) {
+        this.vectors = vectors;
+        this.m = Math.max(2, m);
+        this.m0 = 2 * this.m;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.efSearch = Math.max(1, efSearch);
+        this.levelMult = 1.0 / Math.log(this.m);
+    }
+
+    static HnswIndex open(FloatMatrixFile vectors, int m, int efConstruction, int efSearch) throws IOException {
+        HnswIndex h = new HnswIndex(vectors, m, efConstruction, efSearch);
+        Path file = graphFile(vectors);
+        if (Files.exists(file) && !h.load(file)) {
+            System.out.printf("[HNSW] %s does not match the vectors; rebuilding%n", file);
+        }
+        int n = vectors.count();
+        if (h.size < n) {
+            long t0 = System.nanoTime();
+            int from = h.size;
+            for (int row = from; row < n; row++) h.added(row);
+            System.out.printf("[HNSW] inserted %d rows in %d ms (M=%d efC=%d)%n",
+                    n - from, (System.nanoTime() - t0) / 1_000_000, h.m, h.efConstruction);
+        }
+        return h;
+    }
+
+    static Path graphFile(FloatMatrixFile vectors) {
+        return vectors.file().resolveSibling(GRAPH_FILE);
+    }
+
+    @Override
+    public void added(int row) {
+        if (row != size) throw new IllegalStateException("HNSW rows must be added in order: " + row + " != " + size);
+        float[] v = new float[vectors.dim()];
+        vectors.read(row, v);
+
+        int level = (int) (-Math.log(1.0 - rnd.nextDouble()) * levelMult);
+        int[][] node = new int[level + 1][];
+        for (int l = 0; l <= level; l++) node[l] = new int[1 + (l == 0 ? m0 : m)];
+        if (row == links.length) links = Arrays.copyOf(links, row * 2);
+        links[row] = node;
+        size++;
+
+        if (entry < 0) {
+            entry = row;
+            maxLevel = level;
+            return;
+        }
+
+        int ep = entry;
+        for (int l = maxLevel; l > level; l--) ep = greedy(v, ep, l);
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            TopK w = searchLayer(v, ep, efConstruction, l);
+            float[] scores = new float[w.size()];
+            int[] cands = w.drainDescending(scores);
+            ep = cands[0];
+            int[] chosen = selectNeighbors(cands, scores, m);
+            for (int nb : chosen) {
+                if (nb == row) continue;
+                link(row, nb, l);
+                link(nb, row, l);
+            }
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entry = row;
+        }
+    }
+
+    @Override
+    public void search(float[] query, TopK top, float threshold, IntPredicate accept) {
+        if (entry < 0) return;
+        int ep = entry;
+        for (int l = maxLevel; l > 0; l--) ep = greedy(query, ep, l);
+        TopK w = searchLayer(query, ep, Math.max(efSearch, top.capacity()), 0);
+        float[] scores = new float[w.size()];
+        int[] rows = w.drainDescending(scores);
+        for (int i = 0; i < rows.length; i++) {
+            if (scores[i] < threshold) break;
+            if (top.isFull() && scores[i] <= top.minScore()) break;
+            if (accept.test(rows[i])) top.offer(rows[i], scores[i]);
+        }
+    }
+
+    /** Searches with an explicit ef (recall/latency reports). */
+    void search(float[] query, TopK top, int ef) {
+        if (entry < 0) return;
+        int ep = entry;
+        for (int l = maxLevel; l > 0; l--) ep = greedy(query, ep, l);
+        top.merge(searchLayer(query, ep, Math.max(ef, 1), 0));
+    }
+
+    @Override
+    public String describe() {
+        return String.format("hnsw(M=%d, efC=%d, efS=%d, nodes=%d, levels=%d)",
+                m, efConstruction, efSearch, size, maxLevel + 1);
+    }
+
+    // ---- graph search ----
+
+    private int greedy(float[] q, int ep, int level) {
+        float best = vectors.dot(ep, q);
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+            int[] nb = links[ep][level];
+            for (int i = 1; i <= nb[0]; i++) {
+                float s = vectors.dot(nb[i], q);
+                if (s > best) {
+                    best = s;
+                    ep = nb[i];
+                    moved = true;
+                }
+            }
+        }
+        return ep;
+    }
+
+    private TopK searchLayer(float[] q, int ep, int ef, int level) {
+        Visited vis = borrowVisited();
+        try {
+            vis.reset(size);
+            MaxHeap cand = new MaxHeap(ef * 2);
+            TopK w = new TopK(ef);
+
+            float s0 = vectors.dot(ep, q);
+            vis.mark(ep);
+            cand.push(ep, s0);
+            w.offer(ep, s0);
+            while (!cand.isEmpty()) {
+                float cs = cand.topScore();
+                int c = cand.pop();
+                if (w.isFull() && cs < w.minScore()) break;
+                int[] nb = links[c][level];
+                for (int i = 1; i <= nb[0]; i++) {
+                    int e = nb[i];
+                    if (!vis.mark(e)) continue;
+                    float es = vectors.dot(e, q);
+                    if (!w.isFull() || es > w.minScore()) {
+                        cand.push(e, es);
+                        w.offer(e, es);
+                    }
+                }
+            }
+            return w;
+        } finally {
+            releaseVisited(vis);
+        }
+    }
+
+    private Visited borrowVisited() {
+        Visited v = visitedPool.poll();
+        if (v == null) return new Visited();
+        visitedPooled.decrementAndGet();
+        return v;
+    }
+
+    private void releaseVisited(Visited v) {
+        if (visitedPooled.incrementAndGet() <= VISITED_POOL_MAX) visitedPool.offer(v);
+        else visitedPooled.decrementAndGet();
+    }
+
+    /**
+     * Neighbour selection heuristic (paper, alg. 4): keep a candidate only if it is closer
+     * to the base than to every neighbour already kept, then top up with the best pruned ones.
+     * {@code cands} must be ordered best-first.
+     */
+    private int[] selectNeighbors(int[] cands, float[] scores, int max) {
+        if (cands.length <= max) return cands;
+        int[] out = new int[max];
+        int n = 0;
+        List<float[]> keptVecs = new ArrayList<>(max);
+        boolean[] taken = new boolean[cands.length];
+        for (int i = 0; i < cands.length && n < max; i++) {
+            boolean good = true;
+            for (float[] kv : keptVecs) {
+                if (vectors.dot(cands[i], kv) > scores[i]) {
+                    good = false;
+                    break;
+                }
+            }
+            if (good) {
+                float[] v = new float[vectors.dim()];
+                vectors.read(cands[i], v);
+                keptVecs.add(v);
+                out[n++] = cands[i];
+                taken[i] = true;
+            }
+        }
+        for (int i = 0; i < cands.length && n < max; i++) {
+            if (!taken[i]) out[n++] = cands[i];
+        }
+        return out;
+    }
+
+    /** Adds {@code to} to the adjacency of {@code from}, pruning with the heuristic when full. */
+    private void link(int from, int to, int level) {
+        int[] nb = links[from][level];
+        int cap = nb.length - 1;
+        for (int i = 1; i <= nb[0]; i++) if (nb[i] == to) return;
+        if (nb[0] < cap) {
+            nb[++nb[0]] = to;
+            return;
+        }
+        float[] base = new float[vectors.dim()];
+        vectors.read(from, base);
+        TopK all = new TopK(cap + 1);
+        for (int i = 1; i <= nb[0]; i++) all.offer(nb[i], vectors.dot(nb[i], base));
+        all.offer(to, vectors.dot(to, base));
+        float[] scores = new float[all.size()];
+        int[] cands = all.drainDescending(scores);
+        int[] keep = selectNeighbors(cands, scores, cap);
+        nb[0] = keep.length;
+        System.arraycopy(keep, 0, nb, 1, keep.length);
+    }
+
+    // ---- persistence ----
+
+    @Override
+    public void save() throws IOException {
+        Path file = graphFile(vectors);
+        Path tmp = file.resolveSibling(GRAPH_FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+            out.writeInt(m);
+            out.writeInt(entry);
+            out.writeInt(maxLevel);
+            for (int row = 0; row < size; row++) {
+                int[][] node = links[row];
+                out.writeByte(node.length);
+                for (int[] nb : node) {
+                    out.writeShort(nb[0]);
+                    for (int i = 1; i <= nb[0]; i++) out.writeInt(nb[i]);
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private boolean load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) return false;
+            int n = in.readInt();
+            if (in.readInt() != m || n > vectors.count()) return false;
+            int ep = in.readInt();
+            int top = in.readInt();
+            int[][][] loaded = new int[Math.max(1024, n)][][];
+            for (int row = 0; row < n; row++) {
+                int levels = in.readUnsignedByte();
+                int[][] node = new int[levels][];
+                for (int l = 0; l < levels; l++) {
+                    int[] nb = new int[1 + (l == 0 ? m0 : m)];
+                    nb[0] = in.readUnsignedShort();
+                    for (int i = 1; i <= nb[0]; i++) nb[i] = in.readInt();
+                    node[l] = nb;
+                }
+                loaded[row] = node;
+            }
+            links = loaded;
+            size = n;
+            entry = ep;
+            maxLevel = top;
+            return true;
+        }
+    }
+
+    // ---- small primitive helpers ----
+
+    /** Epoch-stamped visited set; pooled (see {@link #borrowVisited}) so searches do not allocate it. */
+    private static final class Visited {
+        private int[] marks = new int[0];
+        private int epoch;
+
+        void reset(int n) {
+            if (marks.length < n) marks = new int[Math.max(n, marks.length * 2)];
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        /** Returns true the first time {@code i} is seen in this epoch. */
+        boolean mark(int i) {
+            if (marks[i] == epoch) return false;
+            marks[i] = epoch;
+            return true;
+        }
+    }
+
+    /** Growable max-heap keyed by score. */
+    private static final class MaxHeap {
+        private int[] ids;
+        private float[] scores;
+        private int size;
+
+        MaxHeap(int cap) {
+            ids = new int[Math.max(4, cap)];
+            scores = new float[ids.length];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        float topScore() {
+            return scores[0];
+        }
+
+        void push(int id, float s) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int p = (i - 1) >>> 1;
+                if (scores[p] >= s) break;
+                ids[i] = ids[p];
+                scores[i] = scores[p];
+                i = p;
+            }
+            ids[i] = id;
+            scores[i] = s;
+        }
+
+        int pop() {
+            int top = ids[0];
+            int id = ids[--size];
+            float s = scores[size];
+            int i = 0;
+            while (true) {
+                int l = 2 * i + 1;
+                if (l >= size) break;
+                int c = (l + 1 < size && scores[l + 1] > scores[l]) ? l + 1 : l;
+                if (scores[c] <= s) break;
+                ids[i] = ids[c];
+                scores[i] = scores[c];
+                i = c;
+            }
+            ids[i] = id;
+            scores[i] = s;
+            return top;
+        }
+    }
+}
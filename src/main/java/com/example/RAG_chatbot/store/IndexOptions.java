@@ -0,0 +1,56 @@
+package com.example.RAG_chatbot.store;
+
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+/**
+ * Which {@link VectorIndex} a {@link MappedVectorStore} builds over its matrix.
+ *
+ * @param type           exact | hnsw | int8 | binary
+ * @param m              HNSW max links per node on upper layers (layer 0 gets 2*m)
+ * @param efConstruction HNSW candidate list size while inserting
+ * @param efSearch       HNSW candidate list size while querying (raised to topK if lower)
+ * @param rescoreFactor  int8/binary: candidates kept per result for float32 rescoring
+ * @param filterScanLimit a metadata filter matching at most this many rows is answered by scoring
+ *                        just those rows, bypassing an approximate index (exact always does)
+ * @param scanThreads    exact: ForkJoin workers for a full scan (0 = all cores, 1 = caller only)
+ */
+public record IndexOptions(String type, int m, int efConstruction, int efSearch, int rescoreFactor,
+                           int filterScanLimit, int scanThreads) {
+
+    public static IndexOptions exact() {
+        return of("exact");
+    }
+
+    public static IndexOptions of(String type) {
+        return new IndexOptions(type, 16, 200, 64, 4, 20_000, 0);
+    }
+
+    public static IndexOptions from(Environment env) {
+        return new IndexOptions(
+                env.getProperty("app.vectorstore.index", "exact").trim().toLowerCase(Locale.ROOT),
+                Integer.parseInt(env.getProperty("app.vectorstore.hnsw.m", "16")),
+                Integer.parseInt(env.getProperty("app.vectorstore.hnsw.efConstruction", "200")),
+                Integer.parseInt(env.getProperty("app.vectorstore.hnsw.efSearch", "64")),
+                Integer.parseInt(env.getProperty("app.vectorstore.quantization.rescoreFactor", "4")),
+                Integer.parseInt(env.getProperty("app.vectorstore.filter.scanLimit", "20000")),
+                Integer.parseInt(env.getProperty("app.vectorstore.exact.threads", "0")));
+    }
+
+    VectorIndex create(FloatMatrixFile vectors) {
+        try {
+            return switch (type) {
+                case "exact" -> new ExactScanIndex(vectors, scanThreads);
+                case "hnsw" -> HnswIndex.open(vectors, m, efConstruction, efSearch);
+                case "int8" -> QuantizedIndex.open(vectors, QuantizedIndex.Mode.INT8, rescoreFactor);
+                case "binary" -> QuantizedIndex.open(vectors, QuantizedIndex.Mode.BINARY, rescoreFactor);
+                default -> throw new IllegalArgumentException("Unknown app.vectorstore.index: " + type);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException("Index '" + type + "' could not be opened", e);
+        }
+    }
+}
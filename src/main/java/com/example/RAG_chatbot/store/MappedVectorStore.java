@@ -0,0 +1,427 @@
+package com.example.RAG_chatbot.store;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.stream.Stream;
+
+/**
+ * Persistent {@link VectorStore} backed by a memory-mapped float matrix.
+ *
+ * <ul>
+ *   <li>{@code vectors.f32}   – unit-normalized embeddings, one row per document</li>
+ *   <li>{@code documents.bin} – id/text/metadata records aligned with the rows</li>
+ *   <li>{@code deleted.bin}   – tombstoned row numbers</li>
+ * </ul>
+ * Opening only scans record headers, so startup cost is independent of the
+ * embedding model. {@link #add} appends; deleting or re-adding an id tombstones
+ * the old row. Scores are cosine similarity, like {@code SimpleVectorStore}.
+ *
+ * Search goes through a pluggable {@link VectorIndex} (exact scan or HNSW, see
+ * {@link IndexOptions}); the index never sees deletes, they are filtered at collection time.
+ * Metadata filters are first resolved to a row set by {@link MetadataBitmapIndex}; a small set
+ * is scored directly, so a narrow filter scans only its matching rows.
+ */
+public class MappedVectorStore implements VectorStore, Closeable {
+
+    static final String VECTORS_FILE = "vectors.f32";
+    static final String DOCUMENTS_FILE = "documents.bin";
+    static final String DELETED_FILE = "deleted.bin";
+
+    private final EmbeddingModel embeddingModel;
+    private final Path dir;
+    private final IndexOptions indexOptions;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final DocumentLog docs;
+    private final FileChannel tombstones;
+    private final Map<String, Integer> rowById = new HashMap<>();
+    private final BitSet deleted = new BitSet();
+    private FloatMatrixFile vectors;   // created on first add when the dimension is known
+    private VectorIndex index;
+    private final MetadataBitmapIndex metadata;
+
+    public MappedVectorStore(EmbeddingModel embeddingModel, Path dir) throws IOException {
+        this(embeddingModel, dir, IndexOptions.exact());
+    }
+
+    public MappedVectorStore(EmbeddingModel embeddingModel, Path dir, IndexOptions indexOptions) throws IOException {
+        this.embeddingModel = embeddingModel;
+        this.dir = dir;
+        this.indexOptions = indexOptions;
+        Files.createDirectories(dir);
+
+        long t0 = System.nanoTime();
+        this.docs = new DocumentLog(dir.resolve(DOCUMENTS_FILE), new ObjectMapper());
+        this.docs.load((id, row) -> {
+            Integer prev = rowById.put(id, row);
+            if (prev != null) deleted.set(prev);
+        });
+        this.vectors = FloatMatrixFile.openExisting(dir.resolve(VECTORS_FILE));
+
+        // Rows are only valid if both files have them (doc is written before its vector)
+        int rows = vectors == null ? 0 : Math.min(vectors.count(), docs.count());
+        if (docs.count() > rows) {
+            docs.truncate(rows);
+            rowById.values().removeIf(r -> r >= rows);
+        }
+        if (vectors != null) vectors.truncate(rows);
+
+        Path tomb = dir.resolve(DELETED_FILE);
+        if (Files.exists(tomb)) {
+            ByteBuffer b = ByteBuffer.wrap(Files.readAllBytes(tomb));
+            while (b.remaining() >= Integer.BYTES) deleted.set(b.getInt());
+        }
+        rowById.values().removeIf(deleted::get);
+        this.tombstones = FileChannel.open(tomb, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (vectors != null) index = indexOptions.create(vectors);
+        this.metadata = openMetadataIndex(rows);
+
+        System.out.printf("[VectorStore] dir=%s rows=%d live=%d dim=%s index=%s filters=%s loaded in %d ms%n",
+                dir, rows, rowById.size(), vectors == null ? "-" : vectors.dim(),
+                index == null ? indexOptions.type() : index.describe(), metadata.describe(),
+                (System.nanoTime() - t0) / 1_000_000);
+    }
+
+    /** Number of live (non-deleted) documents. */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    /** Share of stored rows that are tombstoned (deleted or replaced); 0 for an empty store. */
+    double garbageRatio() {
+        lock.readLock().lock();
+        try {
+            int rows = docs.count();
+            return rows == 0 ? 0 : 1 - (double) rowById.size() / rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Flushes and copies every file of this store into {@code target}. Writers are held off
+     * meanwhile, searches are not, and the copy opens as the same store (tombstoned rows and
+     * built indexes included). Other files in the directory, such as an ingest manifest, are
+     * copied as well.
+     */
+    void copyTo(Path target) throws IOException {
+        lock.readLock().lock();
+        try {
+            flushFiles();
+            Files.createDirectories(target);
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path f : files.filter(Files::isRegularFile).toList()) {
+                    if (f.getFileName().toString().endsWith(".tmp")) continue;
+                    Files.copy(f, target.resolve(f.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void add(List<Document> documents) {
+        if (documents == null || documents.isEmpty()) return;
+        // Embed outside the lock: this is the slow part and must not block searches
+        List<String> texts = documents.stream().map(d -> d.getText() == null ? "" : d.getText()).toList();
+        addEmbedded(documents, embeddingModel.embed(texts));
+    }
+
+    /**
+     * Appends documents whose embeddings were computed elsewhere (e.g. a session snapshot),
+     * without calling the embedding model. {@code embeddings} is aligned with {@code documents}.
+     */
+    public void addEmbedded(List<Document> documents, List<float[]> embeddings) {
+        if (documents.size() != embeddings.size()) {
+            throw new IllegalArgumentException(documents.size() + " documents but " + embeddings.size() + " embeddings");
+        }
+        lock.writeLock().lock();
+        try {
+            // Tüm batch önce doğrulanır: yanlış boyutlu bir vektör documents.bin'i vectors.f32'nin
+            // önüne geçirir (sonraki her satır yanlış vektöre düşer), eski satırı da silinmiş bırakırdı
+            int dim = vectors != null ? vectors.dim() : embeddings.isEmpty() ? 0 : embeddings.get(0).length;
+            for (int i = 0; i < embeddings.size(); i++) {
+                float[] e = embeddings.get(i);
+                if (e == null || e.length != dim || dim == 0) {
+                    throw new IllegalArgumentException("Embedding " + i + " of document " + documents.get(i).getId()
+                            + " has dimension " + (e == null ? "null" : e.length) + ", store " + dir + " expects " + dim);
+                }
+            }
+            for (int i = 0; i < documents.size(); i++) {
+                Document d = documents.get(i);
+                float[] v = normalize(embeddings.get(i));
+                if (vectors == null) {
+                    vectors = FloatMatrixFile.create(dir.resolve(VECTORS_FILE), v.length);
+                    index = indexOptions.create(vectors);
+                }
+
+                Integer prev = rowById.get(d.getId());
+                if (prev != null) tombstone(prev);
+
+                int row = docs.append(d.getId(), d.getText(), d.getMetadata());
+                vectors.append(v);
+                index.added(row);
+                metadata.added(row, d.getMetadata());
+                rowById.put(d.getId(), row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Vector store append failed in " + dir, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(List<String> idList) {
+        lock.writeLock().lock();
+        try {
+            for (String id : idList) {
+                Integer row = rowById.remove(id);
+                if (row != null) tombstone(row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Vector store delete failed in " + dir, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(Filter.Expression filterExpression) {
+        delete(idsMatching(filterExpression));
+    }
+
+    /** Ids of the live documents matching {@code filterExpression}. */
+    List<String> idsMatching(Filter.Expression filterExpression) {
+        List<String> ids = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            MetadataBitmapIndex.Selection sel = metadata.select(filterExpression);
+            if (sel.rows() != null) {
+                for (PeekableIntIterator it = sel.rows().getIntIterator(); it.hasNext(); ) {
+                    int row = it.next();
+                    if (deleted.get(row)) continue;
+                    DocumentLog.Record r = docs.read(row);
+                    if (sel.exact() || MetadataFilters.matches(filterExpression, r.metadata())) ids.add(r.id());
+                }
+            } else {
+                for (int row : rowById.values()) {
+                    DocumentLog.Record r = docs.read(row);
+                    if (MetadataFilters.matches(filterExpression, r.metadata())) ids.add(r.id());
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Document> similaritySearch(SearchRequest request) {
+        float[] q = normalize(embeddingModel.embed(request.getQuery()));
+        float threshold = (float) request.getSimilarityThreshold();
+        Filter.Expression filter = request.hasFilterExpression() ? request.getFilterExpression() : null;
+
+        lock.readLock().lock();
+        try {
+            if (index == null) return List.of();
+            TopK top = new TopK(request.getTopK());
+            // bitmap'ler filtreyi tam karşılıyorsa satır metadata'sı hiç okunmaz
+            MetadataBitmapIndex.Selection sel = metadata.select(filter);
+            IntPredicate accept = filter == null || sel.exact()
+                    ? row -> !deleted.get(row)
+                    : row -> !deleted.get(row) && MetadataFilters.matches(filter, readUnchecked(row).metadata());
+            RoaringBitmap rows = sel.rows();
+            if (rows != null && (index instanceof ExactScanIndex || rows.getCardinality() <= indexOptions.filterScanLimit())) {
+                ExactScanIndex.scanRows(vectors, rows.getIntIterator(), q, top, threshold, accept);
+            } else {
+                index.search(q, top, threshold, rows == null ? accept : row -> rows.contains(row) && accept.test(row));
+                if (filter != null && !top.isFull() && !(index instanceof ExactScanIndex)) {
+                    // HNSW/quantized aday listesi (ef) seçici bir filtrede topK'yı dolduramayabilir:
+                    // eşleşen satırlar (bitmap yoksa tüm satırlar) tam taranır, sonuç sessizce eksik kalmaz
+                    top = new TopK(request.getTopK());
+                    RoaringBitmap candidates = rows != null ? rows : RoaringBitmap.bitmapOfRange(0, vectors.count());
+                    ExactScanIndex.scanRows(vectors, candidates.getIntIterator(), q, top, threshold, accept);
+                }
+            }
+            return toDocuments(top);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Streams every live document (without embedding) in row order, e.g. to rebuild side indexes. */
+    public void forEachDocument(Consumer<Document> consumer) {
+        lock.readLock().lock();
+        try {
+            int[] rows = rowById.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+            for (int row : rows) {
+                DocumentLog.Record r = docs.read(row);
+                consumer.accept(new Document(r.id(), r.text(), r.metadata()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Like {@link #forEachDocument} but also hands over each row's (unit-normalized) embedding. */
+    public void forEachEmbedded(BiConsumer<Document, float[]> consumer) {
+        lock.readLock().lock();
+        try {
+            if (vectors == null) return;
+            int[] rows = rowById.values().stream().mapToInt(Integer::intValue).sorted().toArray();
+            for (int row : rows) {
+                DocumentLog.Record r = docs.read(row);
+                float[] v = new float[vectors.dim()];
+                vectors.read(row, v);
+                consumer.accept(new Document(r.id(), r.text(), r.metadata()), v);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Embedding width, or 0 while the store is still empty. */
+    public int dim() {
+        lock.readLock().lock();
+        try {
+            return vectors == null ? 0 : vectors.dim();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Flushes mapped pages and the document log to disk. */
+    public void flush() throws IOException {
+        lock.writeLock().lock();
+        try {
+            flushFiles();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Caller holds a lock that keeps writers out. */
+    private void flushFiles() throws IOException {
+        if (vectors != null) vectors.force();
+        if (index != null) index.save();
+        metadata.save(dir.resolve(MetadataBitmapIndex.FILE));
+        docs.force();
+        tombstones.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                index.save();
+                index.close();
+            }
+            metadata.save(dir.resolve(MetadataBitmapIndex.FILE));
+            if (vectors != null) vectors.close();
+            docs.close();
+            tombstones.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<Document> toDocuments(TopK top) throws IOException {
+        float[] scores = new float[top.size()];
+        int[] rows = top.drainDescending(scores);
+        List<Document> out = new ArrayList<>(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            DocumentLog.Record r = docs.read(rows[i]);
+            Map<String, Object> meta = r.metadata();
+            meta.put("distance", 1.0 - scores[i]);
+            out.add(Document.builder()
+                    .id(r.id())
+                    .text(r.text())
+                    .metadata(meta)
+                    .score((double) scores[i])
+                    .build());
+        }
+        return out;
+    }
+
+    /** Loads the saved bitmaps and indexes the rows appended since they were written. */
+    private MetadataBitmapIndex openMetadataIndex(int rows) throws IOException {
+        MetadataBitmapIndex idx = MetadataBitmapIndex.load(dir.resolve(MetadataBitmapIndex.FILE), rows);
+        if (idx == null) idx = new MetadataBitmapIndex();
+        for (int row = idx.size(); row < rows; row++) idx.added(row, docs.read(row).metadata());
+        return idx;
+    }
+
+    private DocumentLog.Record readUnchecked(int row) {
+        try {
+            return docs.read(row);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void tombstone(int row) throws IOException {
+        deleted.set(row);
+        ByteBuffer b = ByteBuffer.allocate(Integer.BYTES).putInt(row).flip();
+        while (b.hasRemaining()) tombstones.write(b);
+    }
+
+    static float[] normalize(float[] v) {
+        double n = 0;
+        for (float x : v) n += x * x;
+        if (n == 0) return v.clone();
+        float inv = (float) (1.0 / Math.sqrt(n));
+        float[] out = new float[v.length];
+        for (int i = 0; i < v.length; i++) out[i] = v[i] * inv;
+        return out;
+    }
+}
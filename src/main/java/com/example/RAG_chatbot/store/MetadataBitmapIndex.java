@@ -0,0 +1,237 @@
+package com.example.RAG_chatbot.store;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Compressed bitmap (Roaring) posting lists over a few low-cardinality metadata keys:
+ * key -> value -> rows carrying that value. A {@link Filter.Expression} is turned into a row
+ * set before any vector is scored, so a narrow filter scans a small subset of the matrix.
+ *
+ * Values are sorted per key, so a string range (a path prefix {@code p} is {@code repo_path >= p
+ * && repo_path < p + U+FFFF}) is a union of neighbouring bitmaps. Rows are indexed whether or
+ * not they are deleted later; the store masks tombstones when collecting. Saved as
+ * {@code metadata.idx} next to the matrix; rows appended after the last save are indexed again
+ * on open. Callers serialize {@link #added} against {@link #select} (the store's lock).
+ */
+final class MetadataBitmapIndex {
+
+    static final String FILE = "metadata.idx";
+    private static final int MAGIC = 0x4D424958;   // "MBIX"
+
+    /** Keys that get bitmaps; other keys in a filter fall back to reading the row's metadata. */
+    static final List<String> KEYS = List.of("source", "repo_path", "section_id", "fm:title", "fm:tags");
+
+    /**
+     * Rows matching (a superset of) an expression. {@code rows == null} means "not narrowed",
+     * i.e. every row; {@code exact} means no per-row metadata check is needed.
+     */
+    record Selection(RoaringBitmap rows, boolean exact) {
+        static final Selection UNKNOWN = new Selection(null, false);
+    }
+
+    private final Map<String, TreeMap<String, RoaringBitmap>> postings = new HashMap<>();
+    private int size;
+
+    MetadataBitmapIndex() {
+        for (String k : KEYS) postings.put(k, new TreeMap<>());
+    }
+
+    /** Number of rows indexed (rows are added in order). */
+    int size() {
+        return size;
+    }
+
+    void added(int row, Map<String, Object> metadata) {
+        if (row != size) throw new IllegalStateException("Metadata rows must be added in order: " + row + " != " + size);
+        for (String key : KEYS) {
+            for (String v : MetadataFilters.values(key, metadata.get(key))) {
+                postings.get(key).computeIfAbsent(v, x -> new RoaringBitmap()).add(row);
+            }
+        }
+        size++;
+    }
+
+    /** Bitmap pre-filter for {@code expr}, mirroring {@link MetadataFilters#matches}. */
+    Selection select(Filter.Expression expr) {
+        if (expr == null) return Selection.UNKNOWN;
+        return switch (expr.type()) {
+            case AND -> {
+                Selection between = between(expr);
+                yield between != null ? between : and(operand(expr.left()), operand(expr.right()));
+            }
+            case OR -> or(operand(expr.left()), operand(expr.right()));
+            case NOT -> not(operand(expr.left()));
+            case EQ, IN -> in(expr);
+            case NE, NIN -> not(in(expr));
+            case GT, GTE, LT, LTE -> range(expr);
+        };
+    }
+
+    private Selection operand(Filter.Operand op) {
+        if (op instanceof Filter.Expression e) return select(e);
+        if (op instanceof Filter.Group g) return select(g.content());
+        return Selection.UNKNOWN;
+    }
+
+    private static Selection and(Selection a, Selection b) {
+        if (a.rows() == null) return new Selection(b.rows(), false);
+        if (b.rows() == null) return new Selection(a.rows(), false);
+        return new Selection(RoaringBitmap.and(a.rows(), b.rows()), a.exact() && b.exact());
+    }
+
+    private static Selection or(Selection a, Selection b) {
+        if (a.rows() == null || b.rows() == null) return Selection.UNKNOWN;
+        return new Selection(RoaringBitmap.or(a.rows(), b.rows()), a.exact() && b.exact());
+    }
+
+    /** Complement is only safe for an exact set; a superset's complement would lose rows. */
+    private Selection not(Selection s) {
+        if (!s.exact()) return Selection.UNKNOWN;
+        return new Selection(RoaringBitmap.flip(s.rows(), 0L, size), true);
+    }
+
+    private Selection in(Filter.Expression expr) {
+        TreeMap<String, RoaringBitmap> values = values(expr);
+        if (values == null) return Selection.UNKNOWN;
+        Object literal = ((Filter.Value) expr.right()).value();
+        Collection<?> wanted = literal instanceof Collection<?> c ? c : List.of(literal);
+        List<RoaringBitmap> hits = new ArrayList<>(wanted.size());
+        for (Object w : wanted) {
+            // sayısal/boolean literal'ler MetadataFilters'ta string olarak karşılaştırılmaz
+            if (!(w instanceof String s)) return Selection.UNKNOWN;
+            RoaringBitmap b = values.get(s);
+            if (b != null) hits.add(b);
+        }
+        return new Selection(union(hits), true);
+    }
+
+    private Selection range(Filter.Expression expr) {
+        TreeMap<String, RoaringBitmap> values = values(expr);
+        String key = ((Filter.Key) expr.left()).key();
+        if (values == null || MetadataFilters.MULTI_VALUED.contains(key)
+                || !(((Filter.Value) expr.right()).value() instanceof String bound)) {
+            return Selection.UNKNOWN;
+        }
+        NavigableMap<String, RoaringBitmap> part = switch (expr.type()) {
+            case GT -> values.tailMap(bound, false);
+            case GTE -> values.tailMap(bound, true);
+            case LT -> values.headMap(bound, false);
+            default -> values.headMap(bound, true);
+        };
+        return new Selection(union(part.values()), true);
+    }
+
+    /**
+     * {@code k >= lo && k < hi} on one key as a single sub-map: resolving each bound alone would
+     * union nearly every value of the key (e.g. every path) twice.
+     */
+    private Selection between(Filter.Expression and) {
+        if (!(and.left() instanceof Filter.Expression a) || !(and.right() instanceof Filter.Expression b)) return null;
+        Filter.Expression lo = isLower(a) ? a : isLower(b) ? b : null;
+        Filter.Expression hi = isUpper(a) ? a : isUpper(b) ? b : null;
+        if (lo == null || hi == null || lo == hi) return null;
+        String key = ((Filter.Key) lo.left()).key();
+        TreeMap<String, RoaringBitmap> values = postings.get(key);
+        if (values == null || MetadataFilters.MULTI_VALUED.contains(key)
+                || !key.equals(((Filter.Key) hi.left()).key())
+                || !(((Filter.Value) lo.right()).value() instanceof String from)
+                || !(((Filter.Value) hi.right()).value() instanceof String to)) {
+            return null;
+        }
+        if (from.compareTo(to) > 0) return new Selection(new RoaringBitmap(), true);
+        return new Selection(union(values.subMap(from, lo.type() == Filter.ExpressionType.GTE,
+                to, hi.type() == Filter.ExpressionType.LTE).values()), true);
+    }
+
+    private static boolean isLower(Filter.Expression e) {
+        return (e.type() == Filter.ExpressionType.GT || e.type() == Filter.ExpressionType.GTE)
+                && e.left() instanceof Filter.Key && e.right() instanceof Filter.Value;
+    }
+
+    private static boolean isUpper(Filter.Expression e) {
+        return (e.type() == Filter.ExpressionType.LT || e.type() == Filter.ExpressionType.LTE)
+                && e.left() instanceof Filter.Key && e.right() instanceof Filter.Value;
+    }
+
+    private TreeMap<String, RoaringBitmap> values(Filter.Expression expr) {
+        if (!(expr.left() instanceof Filter.Key k) || !(expr.right() instanceof Filter.Value)) return null;
+        return postings.get(k.key());
+    }
+
+    private static RoaringBitmap union(Collection<RoaringBitmap> bitmaps) {
+        if (bitmaps.isEmpty()) return new RoaringBitmap();
+        return FastAggregation.or(bitmaps.iterator());
+    }
+
+    void save(Path file) throws IOException {
+        Path tmp = file.resolveSibling(FILE + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+            out.writeInt(KEYS.size());
+            for (String key : KEYS) {
+                TreeMap<String, RoaringBitmap> values = postings.get(key);
+                out.writeUTF(key);
+                out.writeInt(values.size());
+                for (Map.Entry<String, RoaringBitmap> e : values.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    e.getValue().runOptimize();
+                    e.getValue().serialize(out);
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Loads a saved index, or returns null if it is missing, for other keys, or ahead of {@code rows}. */
+    static MetadataBitmapIndex load(Path file, int rows) throws IOException {
+        if (!Files.exists(file)) return null;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) return null;
+            int n = in.readInt();
+            if (n > rows || in.readInt() != KEYS.size()) return null;
+            MetadataBitmapIndex idx = new MetadataBitmapIndex();
+            for (String key : KEYS) {
+                if (!key.equals(in.readUTF())) return null;
+                TreeMap<String, RoaringBitmap> values = idx.postings.get(key);
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    String value = in.readUTF();
+                    RoaringBitmap b = new RoaringBitmap();
+                    b.deserialize(in);
+                    values.put(value, b);
+                }
+            }
+            idx.size = n;
+            return idx;
+        }
+    }
+
+    /** Distinct values and serialized size, for the open log line. */
+    String describe() {
+        int distinct = postings.values().stream().mapToInt(Map::size).sum();
+        long bytes = postings.values().stream().flatMap(m -> m.values().stream())
+                .mapToLong(RoaringBitmap::serializedSizeInBytes).sum();
+        return distinct + " values/" + (bytes / 1024) + " KiB";
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.RAG_chatbot.store;
+
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Evaluates a Spring AI {@link Filter.Expression} against a document's metadata map,
+ * so portable filter strings ("repo_path == 'x' && page > 2") work on our own stores.
+ *
+ * Keys in {@link #MULTI_VALUED} hold a list (front matter {@code tags: [crew, ops]} is stored
+ * as the string "[crew, ops]"); {@code ==}, {@code !=}, {@code in} and {@code nin} compare
+ * against each element, so {@code fm:tags == 'crew'} matches.
+ */
+public final class MetadataFilters {
+
+    public static final Set<String> MULTI_VALUED = Set.of("fm:tags");
+
+    private MetadataFilters() {}
+
+    public static boolean matches(Filter.Expression expr, Map<String, Object> meta) {
+        if (expr == null) return true;
+        return switch (expr.type()) {
+            case AND -> test(expr.left(), meta) && test(expr.right(), meta);
+            case OR -> test(expr.left(), meta) || test(expr.right(), meta);
+            case NOT -> !test(expr.left(), meta);
+            case EQ -> multiValued(expr) ? in(expr, meta) : cmp(expr, meta, c -> c == 0);
+            case NE -> !(multiValued(expr) ? in(expr, meta) : cmp(expr, meta, c -> c == 0));
+            case GT -> cmp(expr, meta, c -> c > 0);
+            case GTE -> cmp(expr, meta, c -> c >= 0);
+            case LT -> cmp(expr, meta, c -> c < 0);
+            case LTE -> cmp(expr, meta, c -> c <= 0);
+            case IN -> in(expr, meta);
+            case NIN -> !in(expr, meta);
+        };
+    }
+
+    private static boolean test(Filter.Operand op, Map<String, Object> meta) {
+        if (op instanceof Filter.Expression e) return matches(e, meta);
+        if (op instanceof Filter.Group g) return matches(g.content(), meta);
+        throw new IllegalArgumentException("Unsupported filter operand: " + op);
+    }
+
+    /** Compares metadata value vs literal; values that cannot be compared never match. */
+    private static boolean cmp(Filter.Expression expr, Map<String, Object> meta, IntPredicate ok) {
+        Object actual = meta.get(((Filter.Key) expr.left()).key());
+        Object expected = ((Filter.Value) expr.right()).value();
+        if (actual == null || expected == null) {
+            return Objects.equals(actual, expected) && ok.test(0);
+        }
+        if (expected instanceof Number n) {
+            Double a = asDouble(actual);
+            return a != null && ok.test(Double.compare(a, n.doubleValue()));
+        }
+        if (expected instanceof Boolean b) {
+            return Boolean.parseBoolean(String.valueOf(actual)) == b && ok.test(0);
+        }
+        return ok.test(String.valueOf(actual).compareTo(String.valueOf(expected)));
+    }
+
+    private static boolean in(Filter.Expression expr, Map<String, Object> meta) {
+        String key = ((Filter.Key) expr.left()).key();
+        Object actual = meta.get(key);
+        if (actual == null) return false;
+        Object expected = ((Filter.Value) expr.right()).value();
+        Collection<?> wanted = expected instanceof Collection<?> c ? c : List.of(String.valueOf(expected));
+        for (String a : values(key, actual)) {
+            for (Object v : wanted) {
+                if (a.equals(String.valueOf(v))) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean multiValued(Filter.Expression expr) {
+        return expr.left() instanceof Filter.Key k && MULTI_VALUED.contains(k.key());
+    }
+
+    /**
+     * The value(s) a metadata entry is matched (and bitmap-indexed) by: one string, or for
+     * {@link #MULTI_VALUED} keys the trimmed, unquoted elements of a list or "[a, b]" string.
+     */
+    public static List<String> values(String key, Object raw) {
+        if (raw == null) return List.of();
+        if (!MULTI_VALUED.contains(key)) return List.of(String.valueOf(raw));
+        List<String> out = new ArrayList<>();
+        if (raw instanceof Collection<?> c) {
+            for (Object o : c) if (o != null) out.add(String.valueOf(o).trim());
+            return out;
+        }
+        String s = String.valueOf(raw).trim();
+        if (s.startsWith("[") && s.endsWith("]")) s = s.substring(1, s.length() - 1);
+        for (String part : s.split(",")) {
+            String v = part.trim().replaceAll("^['\"]|['\"]$", "");
+            if (!v.isEmpty()) out.add(v);
+        }
+        return out;
+    }
+
+    private static Double asDouble(Object o) {
+        if (o instanceof Number n) return n.doubleValue();
+        try {
+            return Double.parseDouble(String.valueOf(o));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
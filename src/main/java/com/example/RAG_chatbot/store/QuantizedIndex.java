@@ -0,0 +1,191 @@
+package com.example.RAG_chatbot.store;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Two-stage search over compact codes with exact rescoring.
+ *
+ * <ul>
+ *   <li>{@code INT8}: per-row absmax scalar quantization, {@code dim} bytes + one float scale
+ *       per row (~4x smaller than float32).</li>
+ *   <li>{@code BINARY}: one sign bit per dimension packed in longs, compared by Hamming
+ *       distance (32x smaller).</li>
+ * </ul>
+ * Stage one scans only the codes and keeps {@code topK * rescoreFactor} candidates; stage
+ * two rescores those with the full-precision rows from the mapped file. The float matrix is
+ * therefore touched for a handful of rows per query and can stay paged out; the hot working
+ * set is the code arrays. Codes are saved next to the matrix and extended on open.
+ */
+final class QuantizedIndex implements VectorIndex {
+
+    enum Mode { INT8, BINARY }
+
+    private static final int MAGIC = 0x51554E54;   // "QUNT"
+
+    private final FloatMatrixFile vectors;
+    private final Mode mode;
+    private final int rescoreFactor;
+    private final int dim;
+    private final int words;          // longs per row in BINARY mode
+
+    private byte[] int8 = new byte[0];
+    private float[] scales = new float[0];
+    private long[] bits = new long[0];
+    private int size;
+
+    private QuantizedIndex(FloatMatrixFile vectors, Mode mode, int rescoreFactor) {
+        this.vectors = vectors;
+        this.mode = mode;
+        this.rescoreFactor = Math.max(1, rescoreFactor);
+        this.dim = vectors.dim();
+        this.words = (dim + 63) >>> 6;
+    }
+
+    static QuantizedIndex open(FloatMatrixFile vectors, Mode mode, int rescoreFactor) throws IOException {
+        QuantizedIndex q = new QuantizedIndex(vectors, mode, rescoreFactor);
+        Path file = q.codesFile();
+        if (Files.exists(file) && !q.load(file)) {
+            System.out.printf("[Quantized] %s does not match the vectors; re-encoding%n", file);
+        }
+        int n = vectors.count();
+        if (q.size < n) {
+            long t0 = System.nanoTime();
+            int from = q.size;
+            for (int row = from; row < n; row++) q.added(row);
+            System.out.printf("[Quantized] encoded %d rows as %s in %d ms%n",
+                    n - from, mode, (System.nanoTime() - t0) / 1_000_000);
+        }
+        return q;
+    }
+
+    @Override
+    public void added(int row) {
+        if (row != size) throw new IllegalStateException("rows must be added in order: " + row + " != " + size);
+        float[] v = new float[dim];
+        vectors.read(row, v);
+        ensureCapacity(row + 1);
+        if (mode == Mode.INT8) {
+            scales[row] = encodeInt8(v, int8, row * dim);
+        } else {
+            encodeBits(v, bits, row * words);
+        }
+        size++;
+    }
+
+    @Override
+    public void search(float[] query, TopK top, float threshold, IntPredicate accept) {
+        TopK cand = new TopK(top.capacity() * rescoreFactor);
+        if (mode == Mode.INT8) {
+            byte[] q8 = new byte[dim];
+            float qScale = encodeInt8(query, q8, 0);
+            for (int row = 0; row < size; row++) {
+                int base = row * dim, acc = 0;
+                for (int d = 0; d < dim; d++) acc += int8[base + d] * q8[d];
+                cand.offer(row, acc * scales[row] * qScale);
+            }
+        } else {
+            long[] qb = new long[words];
+            encodeBits(query, qb, 0);
+            for (int row = 0; row < size; row++) {
+                int base = row * words, ham = 0;
+                for (int w = 0; w < words; w++) ham += Long.bitCount(bits[base + w] ^ qb[w]);
+                cand.offer(row, -ham);
+            }
+        }
+        // rescoring with float32 rows; the accept check (deletes, filters) runs only here
+        int[] rows = cand.drainDescending(null);
+        for (int row : rows) {
+            float s = vectors.dot(row, query);
+            if (s < threshold || (top.isFull() && s <= top.minScore())) continue;
+            if (accept.test(row)) top.offer(row, s);
+        }
+    }
+
+    @Override
+    public String describe() {
+        long bytes = mode == Mode.INT8 ? (long) size * (dim + Float.BYTES) : (long) size * words * Long.BYTES;
+        return String.format("%s(rescore=%dx, rows=%d, codes=%d KB vs float32=%d KB)",
+                mode.name().toLowerCase(), rescoreFactor, size, bytes >> 10, ((long) size * dim * Float.BYTES) >> 10);
+    }
+
+    /** Writes absmax-scaled codes for {@code v} at {@code off}; returns the dequantization scale. */
+    private float encodeInt8(float[] v, byte[] out, int off) {
+        float max = 0f;
+        for (float x : v) max = Math.max(max, Math.abs(x));
+        if (max == 0f) return 0f;
+        float f = 127f / max;
+        for (int d = 0; d < dim; d++) out[off + d] = (byte) Math.round(v[d] * f);
+        return max / 127f;
+    }
+
+    private void encodeBits(float[] v, long[] out, int off) {
+        for (int d = 0; d < dim; d++) {
+            if (v[d] > 0f) out[off + (d >>> 6)] |= 1L << (d & 63);
+        }
+    }
+
+    private void ensureCapacity(int rows) {
+        if (mode == Mode.INT8) {
+            if ((long) rows * dim > int8.length) {
+                int cap = Math.max(rows, Math.max(1024, scales.length * 2));
+                int8 = Arrays.copyOf(int8, Math.toIntExact((long) cap * dim));
+                scales = Arrays.copyOf(scales, cap);
+            }
+        } else if ((long) rows * words > bits.length) {
+            int cap = Math.max(rows, Math.max(1024, (bits.length / words) * 2));
+            bits = Arrays.copyOf(bits, Math.toIntExact((long) cap * words));
+        }
+    }
+
+    // ---- persistence ----
+
+    private Path codesFile() {
+        return vectors.file().resolveSibling(mode == Mode.INT8 ? "codes.int8" : "codes.bits");
+    }
+
+    @Override
+    public void save() throws IOException {
+        Path file = codesFile();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(size);
+            out.writeInt(dim);
+            if (mode == Mode.INT8) {
+                out.write(int8, 0, size * dim);
+                for (int i = 0; i < size; i++) out.writeFloat(scales[i]);
+            } else {
+                for (int i = 0; i < size * words; i++) out.writeLong(bits[i]);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private boolean load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) return false;
+            int n = in.readInt();
+            if (in.readInt() != dim || n > vectors.count()) return false;
+            ensureCapacity(n);
+            if (mode == Mode.INT8) {
+                in.readFully(int8, 0, n * dim);
+                for (int i = 0; i < n; i++) scales[i] = in.readFloat();
+            } else {
+                for (int i = 0; i < n * words; i++) bits[i] = in.readLong();
+            }
+            size = n;
+            return true;
+        }
+    }
+}
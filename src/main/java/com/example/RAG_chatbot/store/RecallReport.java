@@ -0,0 +1,118 @@
+package com.example.RAG_chatbot.store;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Recall@k vs latency of the HNSW graph against the exact scan, over an existing
+ * {@code vectors.f32}. Queries are stored rows with a little gaussian noise added,
+ * so they land near (not on) real chunks.
+ *
+ * <pre>
+ * java -cp app.jar -Dloader.main=com.example.RAG_chatbot.store.RecallReport \
+ *      org.springframework.boot.loader.launch.PropertiesLauncher vector_index 200 5 16,32,64,128,256
+ * </pre>
+ */
+public final class RecallReport {
+
+    private RecallReport() {}
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "vector_index");
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int k = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int[] efs = Arrays.stream((args.length > 3 ? args[3] : "16,32,64,128,256").split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+
+        FloatMatrixFile vectors = FloatMatrixFile.openExisting(dir.resolve(MappedVectorStore.VECTORS_FILE));
+        if (vectors == null) {
+            System.out.println("No vectors in " + dir);
+            return;
+        }
+        try (vectors) {
+            HnswIndex hnsw = HnswIndex.open(vectors, 16, 200, 64);
+            System.out.print(run(vectors, hnsw, queries, k, efs, 0.05f, 7));
+        }
+    }
+
+    /** Runs the report and returns it as a printable table. */
+    static String run(FloatMatrixFile vectors, HnswIndex hnsw, int queries, int k, int[] efs,
+                      float noise, long seed) {
+        float[][] qs = sampleQueries(vectors, queries, noise, seed);
+
+        // ground truth + exact latency
+        ExactScanIndex exact = new ExactScanIndex(vectors);
+        int[][] truth = new int[qs.length][];
+        long[] exactNs = new long[qs.length];
+        for (int i = 0; i < qs.length; i++) {
+            TopK top = new TopK(k);
+            long t0 = System.nanoTime();
+            exact.search(qs[i], top, Float.NEGATIVE_INFINITY, r -> true);
+            exactNs[i] = System.nanoTime() - t0;
+            truth[i] = top.drainDescending(null);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("rows=%d dim=%d queries=%d k=%d %s%n",
+                vectors.count(), vectors.dim(), qs.length, k, hnsw.describe()));
+        sb.append(String.format("%-8s %9s %10s %10s %9s%n", "method", "recall@k", "mean(us)", "p99(us)", "speedup"));
+        double exactMean = mean(exactNs);
+        sb.append(String.format("%-8s %9.4f %10.1f %10.1f %9s%n", "exact", 1.0, exactMean / 1e3, p99(exactNs) / 1e3, "1.0x"));
+
+        for (int ef : efs) {
+            long[] ns = new long[qs.length];
+            int found = 0, total = 0;
+            for (int i = 0; i < qs.length; i++) {
+                TopK top = new TopK(k);
+                long t0 = System.nanoTime();
+                hnsw.search(qs[i], top, Math.max(ef, k));
+                ns[i] = System.nanoTime() - t0;
+                int[] got = top.drainDescending(null);
+                total += truth[i].length;
+                for (int t : truth[i]) {
+                    for (int g : got) {
+                        if (g == t) {
+                            found++;
+                            break;
+                        }
+                    }
+                }
+            }
+            double m = mean(ns);
+            sb.append(String.format("%-8s %9.4f %10.1f %10.1f %8.1fx%n", "ef=" + ef,
+                    total == 0 ? 1.0 : (double) found / total, m / 1e3, p99(ns) / 1e3, exactMean / m));
+        }
+        return sb.toString();
+    }
+
+    private static float[][] sampleQueries(FloatMatrixFile vectors, int queries, float noise, long seed) {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int n = vectors.count();
+        float[][] qs = new float[Math.min(queries, n)][vectors.dim()];
+        for (float[] q : qs) {
+            vectors.read(rnd.nextInt(n), q);
+            for (int d = 0; d < q.length; d++) q[d] += (float) (gaussian(rnd) * noise);
+            float[] norm = MappedVectorStore.normalize(q);
+            System.arraycopy(norm, 0, q, 0, q.length);
+        }
+        return qs;
+    }
+
+    private static double gaussian(SplittableRandom rnd) {
+        double u = 1.0 - rnd.nextDouble(), v = rnd.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    private static double mean(long[] ns) {
+        return Arrays.stream(ns).average().orElse(0);
+    }
+
+    private static double p99(long[] ns) {
+        long[] s = ns.clone();
+        Arrays.sort(s);
+        return s.length == 0 ? 0 : s[Math.min(s.length - 1, (int) Math.ceil(s.length * 0.99) - 1)];
+    }
+}
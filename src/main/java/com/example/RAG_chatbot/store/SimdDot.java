@@ -0,0 +1,39 @@
+package com.example.RAG_chatbot.store;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API dot product with the widest species the CPU offers (AVX2: 8, AVX-512: 16 lanes).
+ * Only reached through {@link VectorMath}, which checks that the incubator module is present.
+ */
+final class SimdDot {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    private SimdDot() {}
+
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    static float dot(float[] a, int aOff, float[] b, int len) {
+        int step = SPECIES.length();
+        int bound = SPECIES.loopBound(len);
+        FloatVector acc0 = FloatVector.zero(SPECIES);
+        FloatVector acc1 = FloatVector.zero(SPECIES);
+        int i = 0;
+        // iki akümülatör: fma gecikmesini gizler (384 boyut = 24 ya da 48 adım)
+        for (; i + step < bound; i += 2 * step) {
+            acc0 = FloatVector.fromArray(SPECIES, a, aOff + i).fma(FloatVector.fromArray(SPECIES, b, i), acc0);
+            acc1 = FloatVector.fromArray(SPECIES, a, aOff + i + step).fma(FloatVector.fromArray(SPECIES, b, i + step), acc1);
+        }
+        for (; i < bound; i += step) {
+            acc0 = FloatVector.fromArray(SPECIES, a, aOff + i).fma(FloatVector.fromArray(SPECIES, b, i), acc0);
+        }
+        float s = acc0.add(acc1).reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) s += a[aOff + i] * b[i];
+        return s;
+    }
+}
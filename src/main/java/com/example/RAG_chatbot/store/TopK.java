@@ -0,0 +1,97 @@
+package com.example.RAG_chatbot.store;
+
+/**
+ * Bounded min-heap of (row, score) pairs on primitive arrays; keeps the k best scores.
+ * Not thread-safe: one instance per search (or per worker).
+ */
+public final class TopK {
+
+    private final int k;
+    private final int[] rows;
+    private final float[] scores;
+    private int size;
+
+    public TopK(int k) {
+        this.k = Math.max(1, k);
+        this.rows = new int[this.k];
+        this.scores = new float[this.k];
+    }
+
+    public int capacity() {
+        return k;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == k;
+    }
+
+    /** Score a candidate must beat to enter a full heap. */
+    public float minScore() {
+        return size == 0 ? Float.NEGATIVE_INFINITY : scores[0];
+    }
+
+    /** Offers a candidate; returns true if it was kept. */
+    public boolean offer(int row, float score) {
+        if (size < k) {
+            rows[size] = row;
+            scores[size] = score;
+            siftUp(size++);
+            return true;
+        }
+        if (score <= scores[0]) return false;
+        rows[0] = row;
+        scores[0] = score;
+        siftDown(0);
+        return true;
+    }
+
+    /** Merges another heap into this one. */
+    public TopK merge(TopK other) {
+        for (int i = 0; i < other.size; i++) offer(other.rows[i], other.scores[i]);
+        return this;
+    }
+
+    /** Rows ordered best-first; {@code outScores} (may be null) receives matching scores. */
+    public int[] drainDescending(float[] outScores) {
+        int n = size;
+        int[] out = new int[n];
+        for (int i = n - 1; i >= 0; i--) {
+            out[i] = rows[0];
+            if (outScores != null) outScores[i] = scores[0];
+            size--;
+            rows[0] = rows[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+        return out;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (scores[p] <= scores[i]) break;
+            swap(i, p);
+            i = p;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int l = 2 * i + 1, r = l + 1, m = i;
+            if (l < size && scores[l] < scores[m]) m = l;
+            if (r < size && scores[r] < scores[m]) m = r;
+            if (m == i) return;
+            swap(i, m);
+            i = m;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int tr = rows[a]; rows[a] = rows[b]; rows[b] = tr;
+        float ts = scores[a]; scores[a] = scores[b]; scores[b] = ts;
+    }
+}
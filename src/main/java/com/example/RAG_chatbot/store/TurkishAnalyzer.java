@@ -0,0 +1,118 @@
+package com.example.RAG_chatbot.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tokenizer for the lexical (BM25) index; documents and queries go through the same steps.
+ *
+ * <ol>
+ *   <li>Split on anything that is not a letter, digit or {@code _}.</li>
+ *   <li>Lowercase the Turkish way ({@code I→ı}, {@code İ→i}) and fold Turkish letters to
+ *       ASCII ({@code ç ğ ı ö ş ü → c g i o s u}), so "sipariş" matches "siparis" and "ID"
+ *       matches "id" regardless of keyboard or locale.</li>
+ *   <li>Identifiers ({@code orderCreatedEvent}, {@code order_id}, {@code v2Api}) keep their
+ *       full folded form as one term and are also split into their parts.</li>
+ *   <li>Plain words longer than {@value #PREFIX} letters are cut to their first
+ *       {@value #PREFIX} letters. This is the usual fixed-prefix stemmer for Turkish: it maps
+ *       "siparişler", "siparişin" and "siparişte" to the same term without a suffix lexicon.</li>
+ *   <li>A short Turkish/English stop-word list is dropped.</li>
+ * </ol>
+ */
+public final class TurkishAnalyzer {
+
+    static final int PREFIX = 5;
+
+    private static final Set<String> STOP = Set.of(
+            // tr
+            "ve", "ile", "bir", "bu", "su", "o", "da", "de", "ki", "mi", "mu", "icin", "gibi", "daha",
+            "cok", "ne", "nasil", "neden", "hangi", "olan", "olarak", "veya", "ya", "ama", "en", "her",
+            // en
+            "a", "an", "the", "of", "to", "in", "on", "for", "and", "or", "is", "are", "be", "it",
+            "this", "that", "with", "as", "by", "at", "what", "how", "which", "do", "does");
+
+    private TurkishAnalyzer() {}
+
+    public static List<String> analyze(CharSequence text) {
+        List<String> out = new ArrayList<>();
+        int n = text.length(), i = 0;
+        while (i < n) {
+            while (i < n && !isTokenChar(text.charAt(i))) i++;
+            int start = i;
+            while (i < n && isTokenChar(text.charAt(i))) i++;
+            if (i > start) emit(text, start, i, out);
+        }
+        return out;
+    }
+
+    private static void emit(CharSequence text, int start, int end, List<String> out) {
+        boolean identifier = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '_' || Character.isDigit(c)
+                    || (i > start && Character.isUpperCase(c) && Character.isLowerCase(text.charAt(i - 1)))) {
+                identifier = true;
+                break;
+            }
+        }
+        if (!identifier) {
+            addWord(fold(text, start, end), out);
+            return;
+        }
+        String full = fold(text, start, end);
+        if (full.length() > 1) out.add(full);
+        // parts: split at '_', letter/digit changes and lower→Upper transitions
+        int p = start;
+        for (int i = start + 1; i <= end; i++) {
+            boolean boundary = i == end
+                    || text.charAt(i) == '_'
+                    || text.charAt(i - 1) == '_'
+                    || Character.isDigit(text.charAt(i)) != Character.isDigit(text.charAt(i - 1))
+                    || (Character.isUpperCase(text.charAt(i)) && Character.isLowerCase(text.charAt(i - 1)));
+            if (boundary) {
+                if (text.charAt(p) != '_') {
+                    String part = fold(text, p, i);
+                    if (!part.equals(full)) addWord(part, out);
+                }
+                p = i;
+            }
+        }
+    }
+
+    private static void addWord(String w, List<String> out) {
+        if (w.isEmpty() || STOP.contains(w)) return;
+        if (w.length() == 1 && !Character.isDigit(w.charAt(0))) return;
+        if (w.length() > PREFIX && isLetters(w)) w = w.substring(0, PREFIX);
+        out.add(w);
+    }
+
+    private static String fold(CharSequence text, int start, int end) {
+        StringBuilder sb = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case 'I', 'İ', 'ı', 'î', 'Î' -> sb.append('i');
+                case 'Ç', 'ç' -> sb.append('c');
+                case 'Ğ', 'ğ' -> sb.append('g');
+                case 'Ö', 'ö' -> sb.append('o');
+                case 'Ş', 'ş' -> sb.append('s');
+                case 'Ü', 'ü', 'û', 'Û' -> sb.append('u');
+                case 'â', 'Â' -> sb.append('a');
+                default -> sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean isLetters(String w) {
+        for (int i = 0; i < w.length(); i++) {
+            if (!Character.isLetter(w.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static boolean isTokenChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.RAG_chatbot.store;
+
+import java.io.IOException;
+import java.util.function.IntPredicate;
+
+/**
+ * Search structure over the rows of a {@link FloatMatrixFile}. Rows are unit vectors,
+ * so the score is a dot product (= cosine similarity).
+ *
+ * The owning store serializes calls to {@link #added} and {@link #save} (write lock);
+ * {@link #search} may run concurrently with other searches.
+ */
+public interface VectorIndex {
+
+    /** Notifies the index that {@code row} was appended to the matrix. */
+    void added(int row);
+
+    /**
+     * Offers the best rows for {@code query} into {@code top}. Rows scoring below
+     * {@code threshold} or rejected by {@code accept} (deleted, filtered) are skipped;
+     * {@code accept} may be expensive, so it is checked last.
+     */
+    void search(float[] query, TopK top, float threshold, IntPredicate accept);
+
+    /** Persists any derived structure next to the matrix file. */
+    default void save() throws IOException {}
+
+    /** Releases worker threads or other resources; the store calls it once, on close. */
+    default void close() {}
+
+    /** Short description for logs. */
+    String describe();
+}
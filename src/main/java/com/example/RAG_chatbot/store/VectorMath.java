@@ -0,0 +1,48 @@
+package com.example.RAG_chatbot.store;
+
+/**
+ * Dot products for the exact scan. Uses {@code jdk.incubator.vector} (see {@link SimdDot}) when
+ * the JVM was started with {@code --add-modules jdk.incubator.vector}; otherwise, or with
+ * {@code -Drag.simd=false}, a scalar loop. The SIMD class is only loaded after the module check,
+ * so a JVM without the module never touches it.
+ */
+final class VectorMath {
+
+    /** True when dot products run on the Vector API. */
+    static final boolean SIMD = simdAvailable();
+
+    private VectorMath() {}
+
+    /** {@code a[aOff .. aOff+len) · b[0 .. len)}. */
+    static float dot(float[] a, int aOff, float[] b, int len) {
+        return SIMD ? SimdDot.dot(a, aOff, b, len) : dotScalar(a, aOff, b, len);
+    }
+
+    static float dotScalar(float[] a, int aOff, float[] b, int len) {
+        float s0 = 0f, s1 = 0f, s2 = 0f, s3 = 0f;
+        int i = 0;
+        for (; i + 3 < len; i += 4) {
+            s0 += a[aOff + i] * b[i];
+            s1 += a[aOff + i + 1] * b[i + 1];
+            s2 += a[aOff + i + 2] * b[i + 2];
+            s3 += a[aOff + i + 3] * b[i + 3];
+        }
+        for (; i < len; i++) s0 += a[aOff + i] * b[i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** Short description for logs. */
+    static String describe() {
+        return SIMD ? "simd(" + SimdDot.lanes() + "x f32)" : "scalar";
+    }
+
+    private static boolean simdAvailable() {
+        if (!Boolean.parseBoolean(System.getProperty("rag.simd", "true"))) return false;
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return false;
+        try {
+            return SimdDot.lanes() > 1;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.RAG_chatbot.web;
+
+import com.example.RAG_chatbot.ingest.IndexRefresher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping(value = "/api/admin", produces = MediaType.APPLICATION_JSON_VALUE)
+public class AdminController {
+
+    private final IndexRefresher refresher;
+
+    public AdminController(IndexRefresher refresher) {
+        this.refresher = refresher;
+    }
+
+    /** Arka planda yeni index generation'ı başlatır: 202, zaten sürüyorsa 409, ingest profili yoksa 404. */
+    @PostMapping("/reindex")
+    public ResponseEntity<Map<String, Object>> reindex() {
+        if (!refresher.hasSources()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of(
+                    "error", "no ingest profile is active"));
+        }
+        if (!refresher.trigger("admin")) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(refresher.status());
+        }
+        return ResponseEntity.accepted().body(refresher.status());
+    }
+
+    @GetMapping("/reindex")
+    public Map<String, Object> status() {
+        return refresher.status();
+    }
+}
@@ -1,11 +1,26 @@
 package com.example.RAG_chatbot.web;
 
+import com.example.RAG_chatbot.core.ChatFilters;
+import com.example.RAG_chatbot.core.LlmOverloadedException;
 import com.example.RAG_chatbot.core.RagService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import reactor.core.Disposable;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping(value = "/api/chat", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -13,21 +28,192 @@ import java.util.Map;
 public class ChatController {
 
     private final RagService rag;
+    private final long streamTimeoutMs;
+    private final int batchMaxQuestions;
+    private final long batchTimeoutMs;
+    private final ObjectMapper mapper;
 
-    public ChatController(RagService rag) {
+    public ChatController(RagService rag, @Value("${app.chat.stream.timeoutMs:300000}") long streamTimeoutMs,
+                          @Value("${app.chat.batch.maxQuestions:500}") int batchMaxQuestions,
+                          @Value("${app.chat.batch.timeoutMs:3600000}") long batchTimeoutMs,
+                          ObjectMapper mapper) {
         this.rag = rag;
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.batchMaxQuestions = batchMaxQuestions;
+        this.batchTimeoutMs = batchTimeoutMs;
+        this.mapper = mapper;
     }
 
+    /**
+     * {"message": "...", "filters": {"path": "river-x/events/**", "tag": "crew"}}; filters
+     * isteğe bağlı, alanları için bkz. {@link ChatFilters}.
+     */
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Map<String, Object>> chat(@RequestBody Map<String, String> body) {
-        String q = body.getOrDefault("message", "").trim();
+    public ResponseEntity<Map<String, Object>> chat(@RequestBody Map<String, Object> body) {
+        String q = message(body);
         if (q.isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of(
                     "error", "message is required"
             ));
         }
+        Filter.Expression filter;
+        try {
+            filter = ChatFilters.parse(body.get("filters"));
+        } catch (IllegalArgumentException e) {
+            // bilinmeyen alan, desteklenmeyen glob vb.
+            return ResponseEntity.badRequest().body(Map.of("error", String.valueOf(e.getMessage())));
+        }
         // Artık cevap + kullanılan chunk’lar geri dönüyor
-        Map<String, Object> payload = rag.answerWithDebug(q);
+        Map<String, Object> payload = rag.answerWithDebug(q, filter);
         return ResponseEntity.ok(payload);
     }
+
+    /**
+     * SSE: önce "chunks" (usedChunks), sonra her parça için "token" ({"t": ...}),
+     * en sonda "done" (ttftMs, totalMs, tokens) ya da "error" event'i.
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> stream(@RequestBody Map<String, Object> body) {
+        String q = message(body);
+        Filter.Expression filter;
+        try {
+            filter = ChatFilters.parse(body.get("filters"));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (q.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        long started = System.nanoTime();
+        RagService.StreamingAnswer answer;
+        try {
+            answer = rag.streamAnswer(q, filter);
+        } catch (LlmOverloadedException e) {
+            // SSE başlamadan reddedilir: gövdesiz 429/503 + Retry-After
+            return ResponseEntity.status(e.status())
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.retryAfterSeconds()))
+                    .build();
+        }
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        AtomicInteger count = new AtomicInteger();
+
+        try {
+            emitter.send(SseEmitter.event().name("chunks").data(Map.of("usedChunks", answer.usedChunks())));
+        } catch (IOException e) {
+            answer.discard();
+            emitter.completeWithError(e);
+            return ResponseEntity.ok(emitter);
+        }
+
+        Disposable sub = answer.tokens().subscribe(
+                token -> {
+                    count.incrementAndGet();
+                    try {
+                        emitter.send(SseEmitter.event().name("token").data(Map.of("t", token)));
+                    } catch (IOException e) {
+                        throw new IllegalStateException("client disconnected", e);
+                    }
+                },
+                err -> {
+                    System.out.printf("[Chat] stream error: %s%n", err.getMessage());
+                    try {
+                        emitter.send(SseEmitter.event().name("error").data(Map.of("error", String.valueOf(err.getMessage()))));
+                    } catch (IOException ignore) {
+                        // bağlantı zaten kapanmış
+                    }
+                    emitter.complete();
+                },
+                () -> {
+                    long totalMs = (System.nanoTime() - started) / 1_000_000;
+                    System.out.printf("[Chat] stream done ttft=%d ms total=%d ms tokens=%d%n",
+                            answer.ttftMs(), totalMs, count.get());
+                    try {
+                        emitter.send(SseEmitter.event().name("done").data(Map.of(
+                                "ttftMs", answer.ttftMs(), "totalMs", totalMs, "tokens", count.get())));
+                    } catch (IOException ignore) {
+                        // bağlantı zaten kapanmış
+                    }
+                    emitter.complete();
+                });
+
+        // İstemci koparsa LLM akışını da iptal et
+        emitter.onCompletion(sub::dispose);
+        emitter.onTimeout(sub::dispose);
+        emitter.onError(e -> sub.dispose());
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * NDJSON: {"questions": ["...", ...], "filters": {...}}; her cevap bittiği anda bir satır
+     * ({"index", "question", "answer", "usedChunks", "context", "ms"} ya da "error"), en sonda
+     * {"done": true, ...} özet satırı. Ayrıntılar için bkz. {@link RagService#answerBatch}.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> batch(@RequestBody Map<String, Object> body) {
+        List<String> questions = new ArrayList<>();
+        if (body.get("questions") instanceof List<?> list) {
+            for (Object q : list) {
+                String s = q == null ? "" : String.valueOf(q).trim();
+                if (!s.isEmpty()) questions.add(s);
+            }
+        }
+        Filter.Expression filter;
+        String error = null;
+        try {
+            filter = ChatFilters.parse(body.get("filters"));
+        } catch (IllegalArgumentException e) {
+            filter = null;
+            error = String.valueOf(e.getMessage());
+        }
+        if (questions.isEmpty()) {
+            error = "questions must be a non-empty list";
+        } else if (questions.size() > batchMaxQuestions) {
+            error = "at most " + batchMaxQuestions + " questions per batch";
+        }
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchTimeoutMs);
+        if (error != null) {
+            send(emitter, Map.of("error", error));
+            emitter.complete();
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+        }
+
+        Filter.Expression f = filter;
+        Thread.ofVirtual().name("chat-batch").start(() -> {
+            try {
+                Map<String, Object> summary = new LinkedHashMap<>();
+                summary.put("done", true);
+                summary.putAll(rag.answerBatch(questions, f, line -> send(emitter, line)));
+                send(emitter, summary);
+                emitter.complete();
+            } catch (RuntimeException e) {
+                // istemci koptu ya da emitter zaman aşımına uğradı: kalan sorular başlatılmadı
+                System.out.printf("[Chat] batch aborted: %s%n", e.getMessage());
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+
+    private void send(ResponseBodyEmitter emitter, Map<String, Object> line) {
+        try {
+            emitter.send(mapper.writeValueAsString(line) + "\n", MediaType.TEXT_PLAIN);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String message(Map<String, Object> body) {
+        Object m = body.get("message");
+        return m == null ? "" : String.valueOf(m).trim();
+    }
+
+    /** LLM bulkhead dolu: 429 (kuyruk dolu) veya 503 (bekleme süresi aşıldı), ikisi de Retry-After ile. */
+    @ExceptionHandler(LlmOverloadedException.class)
+    public ResponseEntity<Map<String, Object>> overloaded(LlmOverloadedException e) {
+        return ResponseEntity.status(e.status())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.retryAfterSeconds()))
+                .body(Map.of("error", e.getMessage(), "retryAfterSeconds", e.retryAfterSeconds()));
+    }
 }
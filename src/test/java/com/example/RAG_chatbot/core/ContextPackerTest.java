@@ -0,0 +1,89 @@
+package com.example.RAG_chatbot.core;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextPackerTest {
+
+    private static final String FILE = "Sipariş kaydı id, durum ve tutar alanlarını taşır. "
+            + "Durum alanı NEW, PAID veya SHIPPED olabilir. Tutar kuruş cinsinden tutulur. "
+            + "İade edilen siparişler ayrı bir kayıt açar ve ilk siparişe bağlanır.";
+
+    private static Document chunk(String path, int index, int start, int end) {
+        return doc(path, index, start, FILE.substring(start, end));
+    }
+
+    private static Document doc(String path, int index, Integer offset, String text) {
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("source", "gitlab://x/wiki@main");
+        meta.put("repo_path", path);
+        meta.put("chunk_index", String.valueOf(index));
+        if (offset != null) {
+            meta.put("offset", String.valueOf(offset));
+            meta.put("length", String.valueOf(text.length()));
+        }
+        return new Document("d" + path + index, text, meta);
+    }
+
+    @Test
+    void overlappingAndAdjacentHitsOfOneFileBecomeOnePassage() {
+        ContextPacker packer = new ContextPacker(2048, 16, 0.8);
+        // rank sırası belge sırası değil; 0 ile 1 örtüşüyor, 2 bir boşlukla bitişik
+        List<Document> hits = List.of(
+                chunk("docs/order.md", 1, 52, 126),
+                chunk("docs/order.md", 0, 0, 60),
+                chunk("docs/order.md", 2, 127, FILE.length()));
+
+        ContextPacker.Packed packed = packer.pack(hits);
+
+        assertEquals(1, packed.passages().size());
+        ContextPacker.Passage p = packed.passages().get(0);
+        assertEquals(List.of("0", "1", "2"), p.chunks());
+        assertEquals(ContextPacker.collapse(FILE), p.text());
+        assertEquals(2, packed.stats().merged());
+        assertTrue(packed.stats().tokensSaved() > 0, packed.stats().toString());
+    }
+
+    @Test
+    void nearDuplicateInAnotherFileIsDroppedAndDistantHitsStaySeparate() {
+        ContextPacker packer = new ContextPacker(2048, 16, 0.8);
+        List<Document> hits = List.of(
+                chunk("docs/order.md", 0, 0, 126),
+                doc("docs/copy-of-order.md", 4, 900, "  " + FILE.substring(0, 126).replace(". ", ".\n")),
+                doc("docs/payment.md", 7, null, "Ödeme servisi PAID olayını yayınlar."),
+                chunk("docs/order.md", 9, 127, FILE.length()).mutate().metadata("offset", "5000").build());
+
+        ContextPacker.Packed packed = packer.pack(hits);
+
+        assertEquals(1, packed.stats().duplicates());
+        assertEquals(List.of("0", "7", "9"), packed.passages().stream().map(p -> p.chunks().get(0)).toList());
+        assertEquals(0, packed.stats().merged());
+    }
+
+    @Test
+    void budgetCutsTheFirstPassageThatDoesNotFitBetweenWords() {
+        StringBuilder longText = new StringBuilder();
+        while (longText.length() < 4000) longText.append("alan").append(longText.length()).append(' ');
+        ContextPacker packer = new ContextPacker(400, 16, 0.8);
+        List<Document> hits = List.of(
+                doc("a.md", 0, 0, FILE),
+                doc("b.md", 0, 0, longText.toString()),
+                doc("c.md", 0, 0, "Hiç sığmayacak son pasaj."));
+
+        ContextPacker.Packed packed = packer.pack(hits);
+
+        assertEquals(2, packed.passages().size());
+        assertEquals(1, packed.stats().truncated());
+        assertEquals(1, packed.stats().dropped());
+        assertTrue(packed.stats().tokensOut() <= 400, packed.stats().toString());
+        String cut = packed.passages().get(1).text();
+        assertTrue(longText.toString().startsWith(cut + " "), cut);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.RAG_chatbot.core;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InFlightAnswersTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final InFlightAnswers inFlight = new InFlightAnswers(registry);
+
+    private double coalesced(String mode) {
+        return registry.get("rag.chat.coalesced").tag("mode", mode).counter().count();
+    }
+
+    @Test
+    void concurrentIdenticalQuestionsShareOneComputation() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
+        List<Future<Map<String, Object>>> results = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            String q = i % 2 == 0 ? "Sipariş alanları?" : "  sipariş   alanları? ";
+            results.add(pool.submit(() -> inFlight.answer(q, () -> {
+                runs.incrementAndGet();
+                await(release);
+                return Map.of("answer", "id, durum, tutar");
+            })));
+        }
+        while (coalesced("blocking") < 19) Thread.sleep(1);
+        release.countDown();
+        Map<String, Object> first = results.get(0).get();
+        for (Future<Map<String, Object>> f : results) assertSame(first, f.get());
+        pool.close();
+        assertEquals(1, runs.get());
+
+        // bittikten sonra gelen istek yeniden hesaplar
+        inFlight.answer("sipariş alanları?", () -> {
+            runs.incrementAndGet();
+            return Map.of();
+        });
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void followersReceiveTheLeadersFailure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Thread leader = Thread.ofVirtual().start(() -> assertThrows(LlmOverloadedException.class,
+                () -> inFlight.answer("q", () -> {
+                    await(release);
+                    throw new LlmOverloadedException(429, 3, "LLM queue is full");
+                })));
+        while (registry.get("rag.chat.inflight").gauge().value() < 1) Thread.sleep(1);
+        Thread follower = Thread.ofVirtual().start(() -> {
+            LlmOverloadedException e = assertThrows(LlmOverloadedException.class, () -> inFlight.answer("Q", Map::of));
+            assertEquals(3, e.retryAfterSeconds());
+        });
+        while (coalesced("blocking") < 1) Thread.sleep(1);
+        release.countDown();
+        leader.join();
+        follower.join();
+    }
+
+    @Test
+    void streamingViewsShareOneUpstreamAndLateJoinersGetEarlierTokens() {
+        AtomicInteger upstreams = new AtomicInteger();
+        AtomicBoolean released = new AtomicBoolean();
+        Sinks.Many<String> llm = Sinks.many().unicast().onBackpressureBuffer();
+        RagService.StreamingAnswer source = new RagService.StreamingAnswer(List.of(),
+                Flux.defer(() -> {
+                    upstreams.incrementAndGet();
+                    return llm.asFlux();
+                }).doFinally(s -> released.set(true)),
+                new AtomicLong(-1), () -> released.set(true));
+
+        RagService.StreamingAnswer a = inFlight.stream("soru", () -> source);
+        RagService.StreamingAnswer b = inFlight.stream("SORU", () -> { throw new AssertionError("must join"); });
+        assertEquals(1, coalesced("stream"));
+
+        List<String> seenA = new ArrayList<>();
+        a.tokens().subscribe(seenA::add);
+        llm.tryEmitNext("Sipariş ");
+        llm.tryEmitNext("kaydı ");
+        List<String> seenB = new ArrayList<>();
+        b.tokens().subscribe(seenB::add);
+        llm.tryEmitNext("üç alan taşır.");
+        llm.tryEmitComplete();
+
+        assertEquals(1, upstreams.get());
+        assertEquals(List.of("Sipariş ", "kaydı ", "üç alan taşır."), seenA);
+        assertEquals(seenA, seenB);
+        assertTrue(released.get());
+        assertEquals(0, registry.get("rag.chat.inflight").gauge().value());
+    }
+
+    @Test
+    void discardingEveryUnsubscribedViewReleasesTheSlot() {
+        AtomicBoolean released = new AtomicBoolean();
+        RagService.StreamingAnswer source = new RagService.StreamingAnswer(List.of(),
+                Flux.just("x").delayElements(Duration.ofMillis(1)), new AtomicLong(-1), () -> released.set(true));
+        RagService.StreamingAnswer a = inFlight.stream("q", () -> source);
+        RagService.StreamingAnswer b = inFlight.stream("q", () -> source);
+        a.discard();
+        a.discard();
+        assertEquals(false, released.get());
+        b.discard();
+        assertTrue(released.get());
+        assertEquals(0, registry.get("rag.chat.inflight").gauge().value());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
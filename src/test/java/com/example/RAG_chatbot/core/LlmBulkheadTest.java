@@ -0,0 +1,49 @@
+package com.example.RAG_chatbot.core;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LlmBulkheadTest {
+
+    @Test
+    void rejectsAtOnceWhenQueueIsFullAndAfterTimeoutOtherwise() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        LlmBulkhead bulkhead = new LlmBulkhead(1, 1, 300, registry);
+
+        LlmBulkhead.Permit held = bulkhead.acquire();
+        AtomicReference<Throwable> waiter = new AtomicReference<>();
+        Thread t = Thread.ofVirtual().start(() -> {
+            try (LlmBulkhead.Permit p = bulkhead.acquire()) {
+                waiter.set(null);
+            } catch (Throwable e) {
+                waiter.set(e);
+            }
+        });
+        while (bulkhead.waiting() == 0) Thread.onSpinWait();
+        assertEquals(1, registry.get("rag.llm.bulkhead.queue").gauge().value());
+
+        long t0 = System.nanoTime();
+        LlmOverloadedException full = assertThrows(LlmOverloadedException.class, bulkhead::acquire);
+        assertEquals(429, full.status());
+        assertTrue(full.retryAfterSeconds() >= 1);
+        assertTrue(System.nanoTime() - t0 < 200_000_000L, "queue-full rejection must not wait");
+
+        t.join();
+        LlmOverloadedException timedOut = (LlmOverloadedException) waiter.get();
+        assertEquals(503, timedOut.status());
+
+        held.close();
+        held.close();                                  // ikinci close slotu iki kez bırakmaz
+        assertEquals("ok", bulkhead.call(() -> "ok"));
+
+        assertEquals(1, registry.get("rag.llm.bulkhead.rejected").tag("reason", "queue_full").counter().count());
+        assertEquals(1, registry.get("rag.llm.bulkhead.rejected").tag("reason", "timeout").counter().count());
+        assertEquals(0, bulkhead.active());
+    }
+}
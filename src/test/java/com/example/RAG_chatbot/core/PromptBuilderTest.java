@@ -0,0 +1,48 @@
+package com.example.RAG_chatbot.core;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PromptBuilderTest {
+
+    @Test
+    void promptListsPassagesThenCitationsInOrder() {
+        List<ContextPacker.Passage> passages = List.of(
+                new ContextPacker.Passage("gitlab://x/wiki@main", List.of("1", "2"), "Sipariş kaydı id taşır.", 6, 0),
+                new ContextPacker.Passage("pdf://guide.pdf", List.of("0"), "Durum NEW olabilir.", 5, 1));
+
+        assertEquals("QUESTION:\nSipariş hangi alanları taşır?\n\nCONTEXT:\n"
+                        + "- Sipariş kaydı id taşır.\n- Durum NEW olabilir.\n\n"
+                        + "[source: gitlab://x/wiki@main chunk:1,2] [source: pdf://guide.pdf chunk:0]",
+                PromptBuilder.prompt("Sipariş hangi alanları taşır?", passages));
+    }
+
+    @Test
+    void usedChunksFillsDefaultsAndCollapsesThePreview() {
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("source", "gitlab://x/wiki@main");
+        meta.put("offset", 52);
+        meta.put("retrieved_by", "bm25");
+        Document withMeta = new Document("a", "Sipariş\n\n  kaydı " + "x".repeat(300), meta);
+        Document bare = new Document("b", "kısa", new HashMap<>());
+
+        List<Map<String, Object>> used = PromptBuilder.usedChunks(List.of(withMeta, bare));
+
+        assertEquals(List.of("source", "page", "chunk", "offset", "length", "preview", "retrievedBy"),
+                List.copyOf(used.get(0).keySet()));
+        assertEquals("52", used.get(0).get("offset"));
+        assertEquals("bm25", used.get(0).get("retrievedBy"));
+        assertEquals(160, ((String) used.get(0).get("preview")).length());
+        assertEquals("Sipariş kaydı x", ((String) used.get(0).get("preview")).substring(0, 15));
+        assertEquals("?", used.get(1).get("chunk"));
+        assertEquals("", used.get(1).get("source"));
+        assertEquals("vector", used.get(1).get("retrievedBy"));
+        assertEquals("kısa", used.get(1).get("preview"));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.RAG_chatbot.core;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.embedding.EmbeddingModel;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueryEmbeddingCacheTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    private QueryEmbeddingCache cache(int max, Path file, String model) {
+        return new QueryEmbeddingCache(max, 60_000, file, model, new SimpleMeterRegistry(), clock::get);
+    }
+
+    @Test
+    void repeatedQueriesSkipTheModelButDocumentBatchesDoNot() {
+        SemanticAnswerCacheTest.WordsModel model = new SemanticAnswerCacheTest.WordsModel();
+        QueryEmbeddingCache cache = cache(100, null, "m");
+        EmbeddingModel wrapped = cache.wrap(model);
+
+        float[] first = wrapped.embed("Order model fields?");
+        assertArrayEquals(first, wrapped.embed("  order MODEL   fields? "));
+        assertEquals(1, model.calls.get());
+
+        wrapped.embed(List.of("doc one", "doc two"));
+        assertEquals(2, model.calls.get());
+        assertEquals(1, cache.size());
+        assertEquals(0.5, cache.hitRatio(), 1e-9);
+
+        clock.addAndGet(61_000);
+        wrapped.embed("order model fields?");
+        assertEquals(3, model.calls.get(), "expired entry must be recomputed");
+    }
+
+    @Test
+    void preloadEmbedsOnlyTheMissingQueriesInOneCall() {
+        QueryEmbeddingCache cache = cache(100, null, "m");
+        cache.get("cached", q -> new float[]{1, 1});
+        List<List<String>> batches = new ArrayList<>();
+
+        int embedded = cache.preload(List.of("Cached", "a", " A ", "b"), texts -> {
+            batches.add(texts);
+            return texts.stream().map(t -> new float[]{t.length(), 0}).toList();
+        });
+        assertEquals(2, embedded);
+        assertEquals(List.of(List.of("a", "b")), batches);
+
+        assertArrayEquals(new float[]{1, 0}, cache.get("a", q -> new float[]{9, 9}));
+        assertArrayEquals(new float[]{1, 1}, cache.get("cached", q -> new float[]{9, 9}));
+        assertEquals(0, cache.preload(List.of("a", "b"), texts -> List.of()));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAndPersists(@TempDir Path dir) {
+        Path file = dir.resolve("q.bin");
+        QueryEmbeddingCache cache = cache(2, file, "m");
+        cache.get("a", q -> new float[]{1, 0});
+        cache.get("b", q -> new float[]{0, 1});
+        cache.get("a", q -> new float[]{9, 9});        // hit, "b" becomes LRU
+        cache.get("c", q -> new float[]{1, 1});
+        assertEquals(2, cache.size());
+        cache.save();
+
+        QueryEmbeddingCache reloaded = cache(2, file, "m");
+        assertArrayEquals(new float[]{1, 0}, reloaded.get("a", q -> new float[]{7, 7}));
+        assertArrayEquals(new float[]{5, 5}, reloaded.get("b", q -> new float[]{5, 5}));
+
+        assertEquals(0, cache(2, file, "other-model").size());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.RAG_chatbot.core;
+
+import com.example.RAG_chatbot.store.Bm25Index;
+import com.example.RAG_chatbot.store.IndexOptions;
+import com.example.RAG_chatbot.store.MappedVectorStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.document.Document;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RagServiceBatchTest {
+
+    /** Answers after a short pause and records how many calls overlapped. */
+    static final class SlowChatModel implements ChatModel {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            calls.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(40);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            return new ChatResponse(List.of(new Generation(new AssistantMessage("answer " + calls.get()))));
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    private final SemanticAnswerCacheTest.WordsModel embeddings = new SemanticAnswerCacheTest.WordsModel();
+    private final SlowChatModel chat = new SlowChatModel();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final QueryEmbeddingCache queryCache =
+            new QueryEmbeddingCache(100, 0, null, "m", registry, System::currentTimeMillis);
+    private final Bm25Index bm25 = new Bm25Index();
+    private MappedVectorStore store;
+
+    @BeforeEach
+    void open() throws Exception {
+        // store sorguları da query cache üzerinden embed eder (uygulamadaki gibi)
+        store = new MappedVectorStore(queryCache.wrap(embeddings), dir.resolve("index"), IndexOptions.exact());
+        List<Document> docs = List.of(
+                new Document("deck", "The deck crew paints the hull", Map.of("source", "deck.md")),
+                new Document("galley", "The galley crew bakes bread", Map.of("source", "galley.md")),
+                new Document("bridge", "The bridge crew plots the route", Map.of("source", "bridge.md")));
+        store.add(docs);
+        bm25.addAll(docs);
+    }
+
+    @AfterEach
+    void close() throws Exception {
+        store.close();
+    }
+
+    private RagService service(int concurrency) {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("app.chat.batch.concurrency", String.valueOf(concurrency))
+                .withProperty("app.chat.batch.retrievalParallelism", "8");
+        SemanticAnswerCache cache = new SemanticAnswerCache(embeddings, false, 10, 0, 0.05f, registry, System::currentTimeMillis);
+        return new RagService(ChatClient.builder(chat), store, registry, cache,
+                bm25, env, new RagMetrics(registry), new RetrievalLog(0.0, 100, 10),
+                new LlmBulkhead(8, 16, 5_000, registry), embeddings, queryCache);
+    }
+
+    @Test
+    void repeatedQuestionsAreAnsweredOnceAndFannedOutToEveryIndex() {
+        RagService rag = service(2);
+        int embedCalls = embeddings.calls.get();
+        List<Map<String, Object>> lines = Collections.synchronizedList(new ArrayList<>());
+
+        Map<String, Object> summary = rag.answerBatch(List.of(
+                "Who paints the hull?", "  who PAINTS the   hull? ", "Who bakes bread?", "Who paints the hull?"),
+                null, lines::add);
+
+        assertEquals(2, chat.calls.get());
+        assertEquals(embedCalls + 1, embeddings.calls.get(), "distinct questions are embedded in one call");
+        assertEquals(4, summary.get("questions"));
+        assertEquals(2, summary.get("distinct"));
+        assertEquals(Set.of(0, 1, 2, 3), lines.stream().map(l -> (Integer) l.get("index")).collect(Collectors.toSet()));
+        Set<Object> hullAnswers = lines.stream().filter(l -> (Integer) l.get("index") != 2)
+                .map(l -> l.get("answer")).collect(Collectors.toSet());
+        assertEquals(1, hullAnswers.size());
+        assertEquals("  who PAINTS the   hull? ", lines.stream().filter(l -> l.get("index").equals(1))
+                .findFirst().orElseThrow().get("question"));
+    }
+
+    @Test
+    void generationsStayWithinTheBatchConcurrency() {
+        RagService rag = service(2);
+        List<String> questions = IntStream.range(0, 6).mapToObj(i -> "Which crew paints hull number " + i + "?").toList();
+        Set<Integer> answered = Collections.synchronizedSet(new TreeSet<>());
+
+        rag.answerBatch(questions, null, l -> answered.add((Integer) l.get("index")));
+
+        assertEquals(6, chat.calls.get());
+        assertEquals(6, answered.size());
+        assertTrue(chat.maxInFlight.get() <= 2, "max in flight " + chat.maxInFlight.get());
+    }
+
+    @Test
+    void failingConsumerAbortsThePendingQuestions() {
+        RagService rag = service(1);
+        List<String> questions = IntStream.range(0, 6).mapToObj(i -> "Which crew bakes bread number " + i + "?").toList();
+        IllegalStateException gone = new IllegalStateException("client gone");
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> rag.answerBatch(questions, null, l -> {
+                    throw gone;
+                }));
+
+        assertSame(gone, thrown);
+        // ilk cevap yazılamayınca en fazla o sırada başlamış bir generation daha biter
+        assertTrue(chat.calls.get() <= 2, "generations after abort: " + chat.calls.get());
+    }
+}
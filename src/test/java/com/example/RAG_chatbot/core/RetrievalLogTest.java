@@ -0,0 +1,50 @@
+package com.example.RAG_chatbot.core;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class RetrievalLogTest {
+
+    @Test
+    void eventBecomesOneJsonLineWithStagesAndShortPreviews() throws Exception {
+        RetrievalLog log = new RetrievalLog(1.0, 20, 16);
+        Map<RagMetrics.Stage, Long> stages = new EnumMap<>(RagMetrics.Stage.class);
+        stages.put(RagMetrics.Stage.VECTOR_SEARCH, 12_345_678L);
+        stages.put(RagMetrics.Stage.GENERATION, 2_000_000_000L);
+        Document hit = Document.builder().id("a").text("Sipariş   kaydı\n\nid, durum ve tutar alanlarını taşır.")
+                .metadata(Map.of("source", "gitlab://x", "repo_path", "docs/order.md", "chunk_index", "3",
+                        "retrieved_by", "bm25"))
+                .score(0.82).build();
+
+        String line = log.toJson(new RetrievalLog.Event(1L, "sipariş alanları?", List.of(hit), stages,
+                new ContextPacker.Stats(1, 1, 0, 0, 0, 0, 14, 12)));
+        log.close();
+
+        assertFalse(line.contains("\n"));
+        JsonNode json = new ObjectMapper().readTree(line);
+        assertEquals(12.35, json.path("stagesMs").path("vector_search").asDouble(), 1e-9);
+        assertEquals(2000.0, json.path("stagesMs").path("generation").asDouble(), 1e-9);
+        JsonNode h = json.path("hits").get(0);
+        assertEquals("docs/order.md", h.path("path").asText());
+        assertEquals("bm25", h.path("retrievedBy").asText());
+        assertEquals("Sipariş kaydı id, du", h.path("preview").asText());
+        assertEquals(2, json.path("context").path("tokensSaved").asInt());
+    }
+
+    @Test
+    void unsampledRequestsAreNeverQueued() throws Exception {
+        RetrievalLog log = new RetrievalLog(0.0, 20, 1);
+        for (int i = 0; i < 1000; i++) log.submit("q", List.of(), Map.of(), null);
+        log.close();
+        assertEquals(0, log.dropped());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.RAG_chatbot.core;
+
+import com.example.RAG_chatbot.ingest.IngestCompletedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SemanticAnswerCacheTest {
+
+    /** Bag-of-words hashing: questions sharing most words land close together. */
+    static class WordsModel implements EmbeddingModel {
+        final AtomicInteger calls = new AtomicInteger();
+        final List<String> embedded = new CopyOnWriteArrayList<>();
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            calls.incrementAndGet();
+            List<String> texts = request.getInstructions();
+            embedded.addAll(texts);
+            return new EmbeddingResponse(texts.stream()
+                    .map(t -> new Embedding(vector(t), texts.indexOf(t))).toList());
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return vector(document.getText());
+        }
+
+        static float[] vector(String text) {
+            float[] v = new float[256];
+            for (String tok : text.toLowerCase().split("\\W+")) {
+                if (!tok.isEmpty()) v[Math.floorMod(tok.hashCode(), v.length)] += 1f;
+            }
+            return v;
+        }
+    }
+
+    private final WordsModel model = new WordsModel();
+    private final AtomicLong clock = new AtomicLong(1_000);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SemanticAnswerCache cache =
+            new SemanticAnswerCache(model, true, 3, 60_000, 0.2f, registry, clock::get);
+
+    private void answer(String q, String source) {
+        SemanticAnswerCache.Lookup l = cache.lookup(q);
+        assertFalse(l.hit(), q);
+        cache.put(l, Map.of("answer", "A:" + q), source == null ? Set.of() : Set.of(source));
+    }
+
+    @Test
+    void exactAndNearQuestionsHitDifferentOnesMiss() {
+        answer("What fields does the River X order model have?", "models/order.md");
+
+        int before = model.calls.get();
+        assertTrue(cache.lookup("  what fields does the river x ORDER model have? ").hit());
+        assertEquals(before, model.calls.get(), "exact hit must not embed");
+
+        assertTrue(cache.lookup("Which fields does the River X order model have?").hit());
+        assertFalse(cache.lookup("How do I deploy the billing service?").hit());
+
+        assertEquals(1, registry.get("rag.answer.cache").tag("result", "hit").counter().count());
+        assertEquals(1, registry.get("rag.answer.cache").tag("result", "semantic_hit").counter().count());
+        assertEquals(2, registry.get("rag.answer.cache").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void embedsTheOriginalQuestionNotTheNormalizedKey() {
+        cache.lookup("  Where is the  OrderService configured? ");
+        assertEquals(List.of("  Where is the  OrderService configured? "), model.embedded);
+    }
+
+    @Test
+    void evictsByTtlAndSize() {
+        answer("alpha question one", "a.md");
+        clock.addAndGet(61_000);
+        assertFalse(cache.lookup("alpha question one").hit(), "expired");
+
+        answer("q one apple", "a.md");
+        answer("q two banana", "b.md");
+        answer("q three cherry", "c.md");
+        assertTrue(cache.lookup("q one apple").hit());      // touch: "q two" is now the LRU
+        answer("q four durian", "d.md");
+        assertEquals(3, cache.size());
+        assertFalse(cache.lookup("q two banana").hit());
+    }
+
+    @Test
+    void ingestInvalidatesBySource() {
+        answer("order model fields", "models/order.md");
+        answer("customer model fields", "models/customer.md");
+        answer("nothing matched here", null);
+
+        cache.onIngest(IngestCompletedEvent.of(Set.of("models/order.md")));
+        assertEquals(1, cache.size());
+        assertTrue(cache.lookup("customer model fields").hit());
+
+        cache.onIngest(IngestCompletedEvent.all());
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.RAG_chatbot.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChunkArchiveTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private static Map<String, Object> record(int i) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("g_index", i);
+        m.put("text", "Sipariş modeli alanları, bölüm " + i + " ".repeat(200) + "tekrar ".repeat(100));
+        m.put("metadata", Map.of("repo_path", "docs/file" + (i % 7) + ".md"));
+        return m;
+    }
+
+    @Test
+    void rollsSegmentsCompressesAndReadsBackById(@TempDir Path dir) throws Exception {
+        try (ChunkArchive.Writer w = ChunkArchive.openWriter(dir, mapper, 1 << 16, true)) {
+            for (int i = 0; i < 500; i++) w.append("id-" + i, record(i));
+            w.close();
+            assertThat(w.records()).isEqualTo(500);
+            assertThat(w.segments()).isGreaterThan(1);
+            assertThat(w.storedBytes()).isLessThan(w.rawBytes() / 2);
+        }
+        assertThat(Files.exists(ChunkArchive.segment(dir, 1))).isTrue();
+
+        try (ChunkArchive.Reader r = ChunkArchive.openReader(dir, mapper)) {
+            assertThat(r.size()).isEqualTo(500);
+            assertThat(r.ids().get(0)).isEqualTo("id-0");
+            assertThat(r.read("id-321").get("text")).isEqualTo(record(321).get("text"));
+            assertThat(r.read("missing")).isNull();
+
+            List<Object> order = new ArrayList<>();
+            r.forEach((id, m) -> order.add(m.get("g_index")));
+            assertThat(order).hasSize(500).startsWith(0, 1, 2).endsWith(499);
+        }
+    }
+
+    @Test
+    void uncompressedArchiveStoresRawJson(@TempDir Path dir) throws Exception {
+        ChunkArchive.Writer w = ChunkArchive.openWriter(dir, mapper, 64 << 20, false);
+        w.append("a", record(1));
+        w.close();
+        assertThat(w.storedBytes()).isEqualTo(w.rawBytes());
+
+        try (ChunkArchive.Reader r = ChunkArchive.openReader(dir, mapper)) {
+            assertThat(r.readRaw("a")).isEqualTo(mapper.writeValueAsBytes(record(1)));
+        }
+    }
+
+    @Test
+    void truncatedCompressedRecordFailsInsteadOfSpinning(@TempDir Path dir) throws Exception {
+        ChunkArchive.Writer w = ChunkArchive.openWriter(dir, mapper, 64 << 20, true);
+        w.append("a", record(1));
+        w.close();
+        assertThat(w.storedBytes()).isLessThan(w.rawBytes());
+
+        // stored length yarıya indirilir: inflater girdisi biter, çıktı eksik kalır
+        try (FileChannel ch = FileChannel.open(ChunkArchive.segment(dir, 0), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) (w.storedBytes() / 2)), 1 + Integer.BYTES);
+        }
+        try (ChunkArchive.Reader r = ChunkArchive.openReader(dir, mapper)) {
+            assertThatThrownBy(() -> r.readRaw("a")).isInstanceOf(IOException.class)
+                    .hasMessageContaining("corrupt record a");
+        }
+    }
+}
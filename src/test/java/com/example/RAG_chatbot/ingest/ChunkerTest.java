@@ -0,0 +1,99 @@
+package com.example.RAG_chatbot.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChunkerTest {
+
+    @Test
+    void carriesHeadingPathsAndMergesSmallSections() {
+        String md = """
+                ---
+                title: Uçuş
+                ---
+                # Veri Modelleri
+
+                ## Sipariş
+                Sipariş kaydı id, durum ve tutar alanlarını taşır.
+
+                ### Durumlar
+                Yeni, onaylı ve iptal.
+
+                ## Uçuş Planı
+                """ + "Plan satırı uzun bir açıklama içerir. ".repeat(40) + """
+
+                # Olaylar
+                Olaylar kuyruğa yazılır.
+                """;
+        List<Chunker.Chunk> chunks = new Chunker(120, 40).chunk(md);
+
+        assertThat(chunks.get(0).text()).startsWith("# Veri Modelleri").doesNotContain("title:");
+        // küçük "Sipariş" ve "Durumlar" bölümleri tek chunk'ta; breadcrumb ilk gövdeye göre
+        assertThat(chunks.get(0).breadcrumbs()).isEqualTo("Veri Modelleri > Sipariş");
+        assertThat(chunks.get(0).text()).contains("### Durumlar");
+        assertThat(chunks).anySatisfy(c -> assertThat(c.breadcrumbs()).isEqualTo("Veri Modelleri > Uçuş Planı"));
+        // sığan son bölüm önceki chunk'a paketlenir
+        assertThat(chunks.get(chunks.size() - 1).text()).endsWith("# Olaylar\nOlaylar kuyruğa yazılır.");
+
+        for (Chunker.Chunk c : chunks) {
+            assertThat(c.tokens()).isLessThanOrEqualTo(120);
+            assertThat(c.tokens()).isEqualTo(Chunker.estimateTokens(md, c.start(), c.end()));
+            assertThat(c.view().toString()).isEqualTo(c.text());
+            // cümle ortasından kesilmez
+            assertThat(c.text()).matches("(?s).*[.\\p{L}]$");
+        }
+    }
+
+    @Test
+    void cutsOversizedSentencesBetweenWords() {
+        String text = "kelime ".repeat(500).trim();
+        List<Chunker.Chunk> chunks = new Chunker(100, 0).chunk(text);
+        assertThat(chunks).hasSizeGreaterThan(1);
+        for (Chunker.Chunk c : chunks) {
+            assertThat(c.tokens()).isLessThanOrEqualTo(100);
+            assertThat(c.text()).startsWith("kelime").endsWith("kelime");
+        }
+    }
+
+    /** Chunk count and boundaries against the old fixed 2000/200 char windows; timing is in ChunkerBenchmark. */
+    @Test
+    void producesFewerChunksThanCharWindowsOnLargeInput() {
+        StringBuilder sb = new StringBuilder();
+        int modules = 400;
+        for (int i = 0; i < modules; i++) {
+            sb.append("# Modül ").append(i).append("\n\n## Alanlar\n")
+                    .append("Sipariş kaydı id, durum ve tutar alanlarını taşır. ".repeat(1 + i % 5)).append("\n\n")
+                    .append("## Olaylar\n").append("OrderCreated olayı kuyruğa yazılır.\n\n");
+        }
+        String text = sb.toString();
+        List<Chunker.Chunk> chunks = new Chunker(768, 384).chunk(text);
+
+        assertThat(chunks.size()).isLessThan(legacyChunks(text));
+        int prevEnd = 0;
+        for (Chunker.Chunk c : chunks) {
+            assertThat(c.start()).isGreaterThanOrEqualTo(prevEnd);                 // sıralı, örtüşmesiz
+            assertThat(c.tokens()).isBetween(1, 768);
+            assertThat(c.text()).startsWith("#");                                // başlık sınırında kesilir
+            assertThat(c.breadcrumbs()).startsWith("Modül ");
+            prevEnd = c.end();
+        }
+        // hiçbir modül kaybolmaz
+        assertThat(chunks.stream().mapToLong(c -> c.text().lines().filter(l -> l.startsWith("# Modül ")).count()).sum())
+                .isEqualTo(modules);
+    }
+
+    /** The pre-rewrite loop: 2000-char windows, 200 overlap; only the window count matters here. */
+    private static int legacyChunks(String text) {
+        int start = 0, n = 0;
+        while (start < text.length()) {
+            int end = Math.min(text.length(), start + 2000);
+            n++;
+            if (end == text.length()) break;
+            start = Math.max(0, end - 200);
+        }
+        return n;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.RAG_chatbot.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.ai.vectorstore.filter.Filter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmbeddingPipelineTest {
+
+    @Test
+    void batchesBoundsConcurrencyAndRetries() throws Exception {
+        RecordingStore store = new RecordingStore();
+        EmbeddingPipeline pipeline = new EmbeddingPipeline(store, 10, 2, 2, 1);
+        for (int i = 0; i < 95; i++) pipeline.submit(new Document("chunk " + i));
+        EmbeddingPipeline.Stats stats = pipeline.finish();
+
+        assertThat(store.batchSizes).hasSize(10).allMatch(n -> n <= 10);
+        assertThat(stats.stored()).isEqualTo(95);
+        assertThat(stats.retries()).isEqualTo(1);
+        assertThat(stats.failedDocs()).isZero();
+        assertThat(store.maxConcurrent.get()).isLessThanOrEqualTo(2);
+    }
+
+    /** Fails the very first call once, records batch sizes and peak concurrency. */
+    private static final class RecordingStore implements VectorStore {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public void add(List<Document> documents) {
+            int now = active.incrementAndGet();
+            maxConcurrent.accumulateAndGet(now, Math::max);
+            try {
+                if (calls.incrementAndGet() == 1) throw new IllegalStateException("ollama busy");
+                Thread.sleep(5);
+                batchSizes.add(documents.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void delete(List<String> idList) {}
+
+        @Override
+        public void delete(Filter.Expression filterExpression) {}
+
+        @Override
+        public List<Document> similaritySearch(SearchRequest request) {
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.RAG_chatbot.ingest;
+
+import com.example.RAG_chatbot.ingest.gitlab.GitLabClient;
+import com.example.RAG_chatbot.store.Bm25Index;
+import com.example.RAG_chatbot.store.IndexOptions;
+import com.example.RAG_chatbot.store.MappedVectorStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.core.env.Environment;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GitLabIngestRunnerTest {
+
+    /** In-memory repo: the tree is built from {@code files}, blob sha = content hash. */
+    static final class FakeGitLab extends GitLabClient {
+        final Map<String, byte[]> files = new TreeMap<>();
+        final List<String> fetched = new CopyOnWriteArrayList<>();
+
+        FakeGitLab(Environment env) {
+            super(env, WebClient.builder());
+        }
+
+        void put(String path, String text) {
+            files.put(path, text.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public Mono<List<TreeItem>> listRepoTree() {
+            return Mono.just(files.entrySet().stream()
+                    .map(e -> new TreeItem(DigestUtils.md5DigestAsHex(e.getValue()), e.getKey(), "blob", e.getKey(), "100644"))
+                    .toList());
+        }
+
+        @Override
+        public Flux<RawFile> fetchAll(List<String> paths, Map<String, String> pathToSha) {
+            fetched.addAll(paths);
+            return Flux.fromIterable(paths).map(p -> new RawFile(p, pathToSha.get(p), files.get(p)));
+        }
+    }
+
+    /** {@link SessionSnapshotTest.LettersModel} that fails every batch mentioning "poison" while {@code poisoned}. */
+    static final class PoisonModel implements EmbeddingModel {
+        final SessionSnapshotTest.LettersModel letters = new SessionSnapshotTest.LettersModel();
+        volatile boolean poisoned = true;
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            if (poisoned && request.getInstructions().stream().anyMatch(t -> t.contains("poison"))) {
+                throw new IllegalStateException("embedding failed");
+            }
+            return letters.call(request);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+    }
+
+    @Test
+    void secondRunAppliesOnlyTheDifferences(@TempDir Path dir) throws Exception {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("app.ingest.gitlab.projectPath", "crew/wiki")
+                .withProperty("app.ingest.gitlab.include", "**/*.md")
+                .withProperty("app.ingest.gitlab.maxBytesPerFile", "400")
+                .withProperty("app.ingest.chunk.maxTokens", "24")
+                .withProperty("app.ingest.chunk.minTokens", "4")
+                // batch başına tek chunk: başarısız batch yalnızca kendi dosyasını etkiler
+                .withProperty("app.ingest.embed.batchSize", "1")
+                .withProperty("app.ingest.embed.maxRetries", "0")
+                .withProperty("app.ingest.embed.retryBackoffMs", "1")
+                .withProperty("app.ingest.snapshot.enabled", "false")
+                .withProperty("app.snapshot.baseDir", dir.resolve("out").toString());
+        FakeGitLab gitlab = new FakeGitLab(env);
+        gitlab.put("keep.md", "# Keep\n\nThe keep page stays the same in every run.\n");
+        gitlab.put("change.md", "# Deck\n\nThe deck crew paints the hull every spring and checks the lines.\n\n"
+                + "# Galley\n\nThe galley crew bakes bread every morning before the watch changes.\n");
+        gitlab.put("gone.md", "# Gone\n\nThe gone page is removed from the repo later.\n");
+        gitlab.put("empty.md", "# Empty\n\nThe empty page is cleared later.\n");
+        gitlab.put("big.md", "# Big\n\nThe big page grows past the size limit later.\n");
+        gitlab.put("poison.md", "# Poison\n\nThe poison page cannot be embedded at first.\n");
+
+        PoisonModel model = new PoisonModel();
+        Bm25Index bm25 = new Bm25Index();
+        GitLabIngestRunner runner = new GitLabIngestRunner(gitlab, new TextNormalizer(), env, new PdfTextExtractor(env));
+        try (MappedVectorStore store = new MappedVectorStore(model, dir.resolve("index"), IndexOptions.exact())) {
+            assertThat(runner.ingest(store, bm25)).isNotNull();
+
+            Map<String, List<String>> first = chunksByPath(store);
+            assertThat(first).containsOnlyKeys("keep.md", "change.md", "gone.md", "empty.md", "big.md");
+            assertThat(first.get("change.md")).hasSizeGreaterThan(1);
+            assertThat(bm25.size()).isEqualTo(store.size());
+            // batch'i başarısız olan dosya manifest'e girmez; sonraki çalıştırmada yeniden çekilir
+            assertThat(manifest(store).paths()).doesNotContain("poison.md")
+                    .contains("keep.md", "change.md", "gone.md", "empty.md", "big.md");
+
+            gitlab.files.remove("gone.md");
+            gitlab.put("empty.md", "");
+            gitlab.put("big.md", "# Big\n\n" + "The big page is now far too long. ".repeat(20));
+            gitlab.put("change.md", "# Deck\n\nThe deck crew now only checks the lines.\n");
+            gitlab.put("new.md", "# New\n\nThe new page joins in the second run.\n");
+            model.poisoned = false;
+            gitlab.fetched.clear();
+            int embeddedBefore = model.letters.texts.get();
+
+            IngestCompletedEvent change = runner.ingest(store, bm25);
+
+            assertThat(gitlab.fetched).containsExactlyInAnyOrder("change.md", "empty.md", "big.md", "poison.md", "new.md");
+            assertThat(change.sources()).containsExactlyInAnyOrder(
+                    "change.md", "empty.md", "big.md", "poison.md", "new.md", "gone.md");
+            Map<String, List<String>> second = chunksByPath(store);
+            assertThat(second).containsOnlyKeys("keep.md", "change.md", "poison.md", "new.md");
+            assertThat(second.get("keep.md")).isEqualTo(first.get("keep.md"));
+            // değişen dosya tek chunk'a indi: eski id'lerden fazlası silinmiş olmalı
+            assertThat(second.get("change.md")).hasSize(1);
+            assertThat(first.get("change.md")).containsAll(second.get("change.md"));
+            assertThat(model.letters.texts.get() - embeddedBefore).isEqualTo(3);   // change, poison, new
+            assertThat(bm25.size()).isEqualTo(store.size());
+            assertThat(bm25.search("gone removed", 5)).isEmpty();
+            assertThat(bm25.search("galley bread", 5)).isEmpty();
+            IngestManifest after = manifest(store);
+            assertThat(after.paths()).containsExactlyInAnyOrder(
+                    "keep.md", "change.md", "poison.md", "new.md", "empty.md", "big.md");
+            // boş / çok büyük dosya chunk'sız kalır: aynı blob bir daha çekilmez
+            assertThat(after.get("empty.md").chunkIds()).isEmpty();
+            assertThat(after.get("big.md").chunkIds()).isEmpty();
+
+            // değişiklik yok: hiçbir şey çekilmez, session klasörü de açılmaz
+            gitlab.fetched.clear();
+            List<Path> sessions = sessions(dir.resolve("out"));
+            assertThat(runner.hasChanges(store)).isFalse();
+            assertThat(runner.ingest(store, bm25)).isNull();
+            assertThat(gitlab.fetched).isEmpty();
+            assertThat(sessions(dir.resolve("out"))).isEqualTo(sessions);
+        }
+    }
+
+    private static Map<String, List<String>> chunksByPath(MappedVectorStore store) {
+        Map<String, List<String>> byPath = new TreeMap<>();
+        store.forEachDocument(d -> byPath.computeIfAbsent(String.valueOf(d.getMetadata().get("repo_path")),
+                k -> new ArrayList<>()).add(d.getId()));
+        byPath.values().forEach(ids -> ids.sort(null));
+        return byPath;
+    }
+
+    private static IngestManifest manifest(MappedVectorStore store) throws Exception {
+        return IngestManifest.load(store.dir().resolve(GitLabIngestRunner.MANIFEST_FILE), new ObjectMapper());
+    }
+
+    private static List<Path> sessions(Path baseDir) throws Exception {
+        try (Stream<Path> list = Files.list(baseDir)) {
+            return list.sorted().toList();
+        }
+    }
+}
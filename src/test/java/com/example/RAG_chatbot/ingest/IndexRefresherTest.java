@@ -0,0 +1,125 @@
+package com.example.RAG_chatbot.ingest;
+
+import com.example.RAG_chatbot.store.Bm25Index;
+import com.example.RAG_chatbot.store.GenerationalVectorStore;
+import com.example.RAG_chatbot.store.IndexOptions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndexRefresherTest {
+
+    /** Adds one new document per run; {@code changed} is what its dry run reports. */
+    static final class CountingSource implements IngestSource {
+        volatile boolean changed = true;
+        final AtomicInteger runs = new AtomicInteger();
+
+        @Override
+        public boolean hasChanges(VectorStore current) {
+            return changed;
+        }
+
+        @Override
+        public IngestCompletedEvent ingest(VectorStore store, Bm25Index bm25) {
+            int n = runs.incrementAndGet();
+            List<Document> docs = List.of(new Document("d" + n, "crew roster " + n, Map.of("repo_path", "f" + n + ".md")));
+            store.add(docs);
+            bm25.addAll(docs);
+            return IngestCompletedEvent.all();
+        }
+
+        @Override
+        public boolean incremental() {
+            return true;
+        }
+    }
+
+    @Test
+    void runWithoutChangesBuildsNoGeneration(@TempDir Path dir) throws Exception {
+        CountingSource source = new CountingSource();
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("source", source);
+        List<Object> events = new ArrayList<>();
+        try (GenerationalVectorStore live = new GenerationalVectorStore(
+                new SessionSnapshotTest.LettersModel(), dir, IndexOptions.exact())) {
+            IndexRefresher refresher = new IndexRefresher(live, new Bm25Index(),
+                    beans.getBeanProvider(IngestSource.class), events::add, new MockEnvironment());
+            try {
+                runAndWait(refresher);
+                assertThat(refresher.status().get("lastRun")).asString().contains("result=published");
+                assertThat(live.current().lexical().size()).isEqualTo(1);
+
+                source.changed = false;
+                runAndWait(refresher);
+                assertThat(refresher.status().get("lastRun")).asString().contains("result=unchanged");
+                assertThat(source.runs.get()).isEqualTo(1);                  // ingest not even called
+                try (Stream<Path> files = Files.list(dir)) {
+                    assertThat(files.map(p -> p.getFileName().toString()))
+                            .containsExactlyInAnyOrder("CURRENT", "gen-000001");
+                }
+
+                source.changed = true;
+                runAndWait(refresher);
+                assertThat(live.current().id()).isEqualTo(2);               // no id burnt by the no-op run
+                assertThat(live.size()).isEqualTo(2);
+                assertThat(live.current().lexical().size()).isEqualTo(2);
+                assertThat(events).hasSize(2);
+            } finally {
+                refresher.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void fileIngestRebuildsOnlyWhenTheFileChanges(@TempDir Path dir) throws Exception {
+        Path wiki = dir.resolve("wiki.txt");
+        Files.writeString(wiki, "# Crew\n\nThe crew roster lists every sailor on board.\n");
+        MockEnvironment env = new MockEnvironment();
+        IngestRunner runner = new IngestRunner(new DefaultResourceLoader(), env, new TextNormalizer(),
+                new PdfTextExtractor(env));
+        ReflectionTestUtils.setField(runner, "ingestPath", wiki.toUri().toString());
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("source", runner);
+        try (GenerationalVectorStore live = new GenerationalVectorStore(
+                new SessionSnapshotTest.LettersModel(), dir.resolve("index"), IndexOptions.exact())) {
+            IndexRefresher refresher = new IndexRefresher(live, new Bm25Index(),
+                    beans.getBeanProvider(IngestSource.class), e -> {}, env);
+            try {
+                runAndWait(refresher);
+                assertThat(refresher.status().get("lastRun")).asString().contains("result=published");
+
+                runAndWait(refresher);
+                assertThat(refresher.status().get("lastRun")).asString().contains("result=unchanged");
+                assertThat(live.current().id()).isEqualTo(1);
+
+                Files.writeString(wiki, "# Crew\n\nThe crew roster lists every sailor and the cook.\n");
+                runAndWait(refresher);
+                assertThat(refresher.status().get("lastRun")).asString().contains("result=published");
+                assertThat(live.current().id()).isEqualTo(2);
+            } finally {
+                refresher.shutdown();
+            }
+        }
+    }
+
+    private static void runAndWait(IndexRefresher refresher) throws InterruptedException {
+        assertThat(refresher.trigger("test")).isTrue();
+        for (int i = 0; i < 500 && refresher.running(); i++) Thread.sleep(10);
+        assertThat(refresher.running()).isFalse();
+    }
+}
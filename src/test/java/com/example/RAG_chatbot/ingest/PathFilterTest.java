@@ -0,0 +1,114 @@
+package com.example.RAG_chatbot.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PathFilterTest {
+
+    private static final List<String> INCLUDE = List.of("**/*.md", "**/*.txt", "**/*.pdf", "**/*.html", "docs/**/api-?.json");
+    private static final List<String> EXCLUDE = List.of(".git/**", "**/node_modules/**", "**/build/**/*.html");
+
+    @Test
+    void globstarMatchesZeroOrMoreSegments() {
+        PathFilter f = PathFilter.compile("", INCLUDE, EXCLUDE);
+        assertThat(f.accepts("README.md")).isTrue();
+        assertThat(f.accepts("river-x/events/Crew-Events.MD")).isTrue();
+        assertThat(f.accepts("docs/api-1.json")).isTrue();
+        assertThat(f.accepts("docs/v2/internal/api-2.json")).isTrue();
+        assertThat(f.accepts("docs/api-12.json")).isFalse();
+        assertThat(f.accepts("src/Main.java")).isFalse();
+        assertThat(f.accepts("md")).isFalse();
+        assertThat(f.accepts("web/node_modules/pkg/readme.md")).isFalse();
+        assertThat(f.accepts(".git/info/exclude.txt")).isFalse();
+        assertThat(f.accepts("site/build/out/index.html")).isFalse();
+        assertThat(f.accepts("site/build/notes.md")).isTrue();
+    }
+
+    @Test
+    void prefixRuleBypassesIncludesButNotExcludes() {
+        PathFilter f = PathFilter.compile("river-x", INCLUDE, EXCLUDE);
+        assertThat(f.accepts("River-X.md")).isTrue();
+        assertThat(f.accepts("river-x/src/Main.java")).isTrue();
+        assertThat(f.accepts("river-x/node_modules/a.md")).isFalse();
+        assertThat(f.accepts("other/readme.md")).isFalse();
+        assertThat(PathFilter.compile("", List.of(), List.of()).accepts("anything/at/all")).isTrue();
+    }
+
+    /** 100k-path synthetic tree: the compiled trie agrees path by path with a correct glob regex; timing is in PathFilterBenchmark. */
+    @Test
+    void agreesWithCorrectGlobRegexOnLargeTrees() {
+        List<String> include = List.of("**/*.md", "**/*.txt", "**/*.pdf", "**/*.html");
+        List<String> exclude = List.of(".git/**", "**/node_modules/**");
+        List<String> tree = syntheticTree(100_000);
+        PathFilter filter = PathFilter.compile("", include, exclude);
+
+        List<Pattern> inc = include.stream().map(PathFilterTest::reference).toList();
+        List<Pattern> exc = exclude.stream().map(PathFilterTest::reference).toList();
+        int referenceHits = 0, legacyHits = 0;
+        for (String p : tree) {
+            boolean expected = exc.stream().noneMatch(x -> x.matcher(p).matches())
+                    && inc.stream().anyMatch(x -> x.matcher(p).matches());
+            assertThat(filter.accepts(p)).as(p).isEqualTo(expected);
+            if (expected) referenceHits++;
+            if (!legacyMatch(p, exclude, false) && legacyMatch(p, include, true)) legacyHits++;
+        }
+        // Eski çeviri "**/" içindeki "*"yı da değiştirdiği için en fazla bir klasör eşliyordu
+        assertThat(referenceHits).isPositive().isGreaterThan(legacyHits);
+    }
+
+    private static List<String> syntheticTree(int n) {
+        SplittableRandom rnd = new SplittableRandom(42);
+        String[] dirs = {"src", "docs", "river-x", "events", "data-models", "node_modules", "lib", "v2", ".git", "assets"};
+        String[] exts = {"md", "txt", "java", "pdf", "html", "json", "png", "MD"};
+        List<String> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            StringBuilder sb = new StringBuilder();
+            int depth = 1 + rnd.nextInt(6);
+            for (int d = 0; d < depth; d++) sb.append(dirs[rnd.nextInt(dirs.length)]).append('/');
+            sb.append("file-").append(i).append('.').append(exts[rnd.nextInt(exts.length)]);
+            out.add(sb.toString());
+        }
+        return out;
+    }
+
+    /** Correct glob -> regex: {@code **}/ = any number of directories, {@code *} and {@code ?} stay in a segment. */
+    private static Pattern reference(String glob) {
+        StringBuilder r = new StringBuilder("^");
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (glob.startsWith("**/", i)) {
+                r.append("(?:[^/]+/)*");
+                i += 2;
+            } else if (glob.startsWith("/**", i) && i + 3 == glob.length()) {
+                r.append("(?:/[^/]+)*");
+                i += 2;
+            } else if (c == '*') {
+                r.append("[^/]*");
+            } else if (c == '?') {
+                r.append("[^/]");
+            } else {
+                r.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(r.append('$').toString(), Pattern.CASE_INSENSITIVE);
+    }
+
+    /** The pre-rewrite GitLabIngestRunner.micromatch: one Pattern.compile per glob per path. */
+    private static boolean legacyMatch(String path, List<String> globs, boolean defaultIfEmpty) {
+        if (globs.isEmpty()) return defaultIfEmpty;
+        for (String g : globs) {
+            String r = "^" + g.trim().replace(".", "\\.")
+                    .replace("**/", "(.*/)?")
+                    .replace("**", ".*")
+                    .replace("*", "[^/]*") + "$";
+            if (Pattern.compile(r, Pattern.CASE_INSENSITIVE).matcher(path).matches()) return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.RAG_chatbot.ingest;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PdfTextExtractorTest {
+
+    private static byte[] pdf(int pages, int linesPerPage) throws Exception {
+        try (PDDocument doc = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int p = 1; p <= pages; p++) {
+                PDPage page = new PDPage();
+                doc.addPage(page);
+                try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                    cs.beginText();
+                    cs.setFont(PDType1Font.HELVETICA, 10);
+                    cs.setLeading(12);
+                    cs.newLineAtOffset(40, 750);
+                    cs.showText("Page " + p + " header");
+                    for (int l = 0; l < linesPerPage; l++) {
+                        cs.newLine();
+                        cs.showText("Order record " + p + "." + l + " carries id, status and amount fields.");
+                    }
+                    cs.endText();
+                }
+            }
+            doc.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    @Test
+    void handsPagesOverInOrderFromParallelWorkers() throws Exception {
+        byte[] bytes = pdf(24, 5);
+        PdfTextExtractor extractor = new PdfTextExtractor(4, 64L << 20, 3);
+        List<Integer> order = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        try {
+            PdfTextExtractor.Stats stats = extractor.extract(bytes, (page, text) -> {
+                order.add(page);
+                texts.add(text);
+            });
+            assertThat(stats.pages()).isEqualTo(24);
+            assertThat(stats.workers()).isEqualTo(4);
+        } finally {
+            extractor.close();
+        }
+        assertThat(order).containsExactlyElementsOf(java.util.stream.IntStream.rangeClosed(1, 24).boxed().toList());
+        for (int p = 1; p <= 24; p++) {
+            assertThat(texts.get(p - 1)).startsWith("Page " + p + " header")
+                    .contains("Order record " + p + ".4").doesNotContain("Page " + (p + 1) + " header");
+        }
+    }
+
+    @Test
+    void consumerFailureStopsWorkersAndPropagates() throws Exception {
+        byte[] bytes = pdf(16, 2);
+        PdfTextExtractor extractor = new PdfTextExtractor(2, 16L << 20, 2);
+        try {
+            assertThatThrownBy(() -> extractor.extract(bytes, (page, text) -> {
+                if (page == 3) throw new IllegalStateException("stop");
+            })).isInstanceOf(IllegalStateException.class);
+            // havuz serbest kaldı: ikinci çağrı normal tamamlanır
+            assertThat(extractor.extractText(bytes)).contains("Page 16 header");
+        } finally {
+            extractor.close();
+        }
+    }
+
+    /** Page-parallel extraction yields exactly the sequential text; throughput is in PdfExtractionBenchmark. */
+    @Test
+    void parallelTextEqualsSequentialText() throws Exception {
+        byte[] bytes = pdf(12, 6);
+        PdfTextExtractor sequential = new PdfTextExtractor(1, 64L << 20, 0);
+        PdfTextExtractor parallel = new PdfTextExtractor(3, 64L << 20, 2);
+        try {
+            String expected = sequential.extractText(bytes);
+            String actual = parallel.extractText(bytes);
+            assertThat(actual).isEqualTo(expected);
+            for (int p = 1; p < 12; p++) {
+                assertThat(actual.indexOf("Page " + p + " header")).isLessThan(actual.indexOf("Page " + (p + 1) + " header"));
+            }
+        } finally {
+            sequential.close();
+            parallel.close();
+        }
+    }
+}
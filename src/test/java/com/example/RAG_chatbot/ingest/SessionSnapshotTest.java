@@ -0,0 +1,103 @@
+package com.example.RAG_chatbot.ingest;
+
+import com.example.RAG_chatbot.store.Bm25Index;
+import com.example.RAG_chatbot.store.MappedVectorStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SessionSnapshotTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /** Letter-histogram embedder; counts how many texts it embedded. */
+    static final class LettersModel implements EmbeddingModel {
+        final AtomicInteger texts = new AtomicInteger();
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<Embedding> out = new ArrayList<>();
+            for (String t : request.getInstructions()) {
+                texts.incrementAndGet();
+                float[] v = new float[26];
+                for (char c : t.toLowerCase().toCharArray()) if (c >= 'a' && c <= 'z') v[c - 'a']++;
+                out.add(new Embedding(v, out.size()));
+            }
+            return new EmbeddingResponse(out);
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return embed(document.getText());
+        }
+    }
+
+    @Test
+    void rehydratesStoreAndBm25WithoutEmbeddingDocuments(@TempDir Path tmp) throws Exception {
+        LettersModel model = new LettersModel();
+        Path session = tmp.resolve("chunks_output/session_20260101_120000");
+        try (MappedVectorStore source = new MappedVectorStore(model, tmp.resolve("src"))) {
+            List<Document> docs = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                docs.add(new Document("d" + i, (i % 3 == 0 ? "crew roster " : "baggage tracking ") + i,
+                        Map.of("repo_path", "docs/f" + i + ".md")));
+            }
+            source.add(docs);
+            source.delete(List.of("d1"));
+            SessionSnapshot.Meta meta = SessionSnapshot.write(session, source, mapper, "m", "20260101_120000");
+            assertThat(meta.count()).isEqualTo(299);
+        }
+        Files.createDirectories(tmp.resolve("chunks_output/session_20250101_000000"));   // no snapshot
+        assertThat(SessionSnapshot.resolve(tmp.resolve("chunks_output"), "latest")).isEqualTo(session);
+
+        model.texts.set(0);
+        Bm25Index bm25 = new Bm25Index();
+        try (MappedVectorStore target = new MappedVectorStore(model, tmp.resolve("dst"))) {
+            SessionSnapshot.LoadStats stats = SessionSnapshot.load(session, target, mapper, 4, 32, bm25::addAll);
+
+            assertThat(stats.documents()).isEqualTo(299);
+            assertThat(model.texts.get()).isZero();
+            assertThat(target.size()).isEqualTo(299);
+            assertThat(bm25.size()).isEqualTo(299);
+            assertThat(bm25.search("crew roster", 3)).isNotEmpty();
+
+            List<Document> hits = target.similaritySearch(SearchRequest.builder()
+                    .query("crew roster").topK(1).build());
+            assertThat(hits.get(0).getText()).startsWith("crew roster");
+            assertThat(hits.get(0).getMetadata()).containsEntry("repo_path", "docs/f" + hits.get(0).getId().substring(1) + ".md");
+        }
+    }
+
+    @Test
+    void pruneKeepsOnlyTheNewestSessions(@TempDir Path tmp) throws Exception {
+        for (String name : List.of("session_20260101_000000", "session_20260102_000000",
+                "session_20260103_000000", "other")) {
+            Files.createDirectories(tmp.resolve(name).resolve("archive"));
+            Files.writeString(tmp.resolve(name).resolve("archive").resolve("seg-0"), "x");
+        }
+
+        List<Path> deleted = SessionSnapshot.prune(tmp, 2);
+
+        assertThat(deleted).containsExactly(tmp.resolve("session_20260101_000000"));
+        try (Stream<Path> left = Files.list(tmp)) {
+            assertThat(left.map(p -> p.getFileName().toString())).containsExactlyInAnyOrder(
+                    "session_20260102_000000", "session_20260103_000000", "other");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.RAG_chatbot.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextNormalizerTest {
+
+    private final TextNormalizer norm = new TextNormalizer();
+
+    @Test
+    void keepsLinesAndHeadingsButCollapsesNoise() {
+        String in = "\uFEFF\r\n  # Sipariş   Modeli \r\n\r\n\r\n\r\nAlan:\t\u0007 id\u200B \n   - madde 😀  \n\n\n";
+        assertThat(norm.normalizePlain(in)).isEqualTo("# Sipariş Modeli\n\nAlan: id\n- madde 😀");
+        assertThat(norm.normalizePlain((CharSequence) null)).isEmpty();
+        assertThat(norm.normalizePlain(" \n\t ".getBytes(StandardCharsets.UTF_8))).isEmpty();
+    }
+
+    @Test
+    void htmlKeepsBlocksAndTurnsHeadingsIntoMarkdown() {
+        String html = "<html><head><title>t</title><style>p{}</style></head><body>"
+                + "<h2>Uçuş  Planı</h2><p>Birinci <b>paragraf</b>.</p><p>İkinci<br>satır</p>"
+                + "<ul><li>bir</li><li>iki</li></ul><script>var x=1;</script><pre>a\n  b</pre></body></html>";
+        assertThat(norm.htmlToText(html.getBytes(StandardCharsets.UTF_8)))
+                .isEqualTo("## Uçuş Planı\n\nBirinci paragraf.\n\nİkinci\nsatır\n\n- bir\n- iki\n\na\nb");
+    }
+
+    @Test
+    void largeDocumentsCollapseNoiseAndKeepEveryHeading() {
+        StringBuilder md = new StringBuilder();
+        StringBuilder html = new StringBuilder("<html><body>");
+        int sections = 2000;
+        for (int i = 0; i < sections; i++) {
+            md.append("## Bölüm ").append(i).append("\r\n\r\n\r\n")
+                    .append("Sipariş\tmodeli   alanları:  id, durum,\u0007 tutar.  \r\n")
+                    .append("- madde ").append(i).append("   açıklama\r\n\r\n");
+            html.append("<h2>Bölüm ").append(i).append("</h2><p>Sipariş  modeli <b>alanları</b>: id, durum.</p>")
+                    .append("<ul><li>madde ").append(i).append("</li></ul>");
+        }
+        html.append("</body></html>");
+
+        String plain = norm.normalizePlain(md.toString());
+        String text = norm.htmlToText(html.toString().getBytes(StandardCharsets.UTF_8));
+        for (String out : new String[]{plain, text}) {
+            assertThat(out).doesNotContain("\r", "\t", "\u0007", "  ", "\n\n\n");
+            assertThat(out.lines().filter(l -> l.startsWith("## Bölüm ")).count()).isEqualTo(sections);
+            assertThat(out).startsWith("## Bölüm 0\n\n");
+        }
+        assertThat(text).endsWith("- madde " + (sections - 1));
+        assertThat(plain).contains("## Bölüm 7\n\nSipariş modeli alanları: id, durum, tutar.\n- madde 7 açıklama\n\n## Bölüm 8");
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.RAG_chatbot.ingest.gitlab;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GitLabClientTest {
+
+    private HttpServer server;
+    private ExecutorService pool;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger throttleOnce = new AtomicInteger(1);
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        pool = Executors.newFixedThreadPool(16);
+        server.setExecutor(pool);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+        pool.shutdownNow();
+    }
+
+    /** Stub GitLab: b.md only by blob, c.md nowhere, d.md throttled once, slow.*.md sleep. */
+    private void handle(HttpExchange ex) throws IOException {
+        int now = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(now, Math::max);
+        try {
+            String path = ex.getRequestURI().getRawPath();
+            if (path.contains("/files/slow")) sleep(80);
+            if (path.endsWith("/files/d.md/raw") && throttleOnce.getAndDecrement() > 0) {
+                ex.getResponseHeaders().add("Retry-After", "0");
+                send(ex, 429, "slow down");
+            } else if (path.contains("/files/b.md/") || path.contains("/files/c.md/") || path.endsWith("/blobs/sha-c/raw")) {
+                send(ex, 404, "{\"message\":\"404 File Not Found\"}");
+            } else if (path.endsWith("/blobs/sha-b/raw")) {
+                send(ex, 200, "blob b");
+            } else {
+                String name = path.replaceAll(".*/files/([^/]+)/raw", "$1");
+                send(ex, 200, "content " + name);
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static void send(HttpExchange ex, int status, String body) throws IOException {
+        byte[] b = body.getBytes(StandardCharsets.UTF_8);
+        ex.sendResponseHeaders(status, b.length);
+        ex.getResponseBody().write(b);
+        ex.close();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private GitLabClient client(int concurrency) {
+        MockEnvironment env = new MockEnvironment()
+                .withProperty("app.ingest.gitlab.host", "http://127.0.0.1:" + server.getAddress().getPort())
+                .withProperty("app.ingest.gitlab.projectId", "1")
+                .withProperty("app.ingest.gitlab.fetchConcurrency", String.valueOf(concurrency))
+                .withProperty("app.ingest.gitlab.retryBackoffMs", "10");
+        return new GitLabClient(env, WebClient.builder());
+    }
+
+    @Test
+    void fetchAllFallsBackToBlobSkipsFailuresAndRetriesThrottled() {
+        GitLabClient gitlab = client(4);
+        Map<String, String> shas = Map.of("a.md", "sha-a", "b.md", "sha-b", "c.md", "sha-c", "d.md", "sha-d");
+
+        List<GitLabClient.RawFile> files = gitlab.fetchAll(List.of("a.md", "b.md", "c.md", "d.md"), shas)
+                .collectList().block();
+
+        Map<String, String> got = files.stream().collect(Collectors.toMap(GitLabClient.RawFile::path,
+                f -> new String(f.bytes(), StandardCharsets.UTF_8)));
+        assertEquals(Map.of("a.md", "content a.md", "b.md", "blob b", "d.md", "content d.md"), got);
+        assertEquals(1, gitlab.throttledCount());
+    }
+
+    @Test
+    void fetchAllBoundsRequestsInFlight() {
+        GitLabClient gitlab = client(4);
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 16; i++) paths.add("slow" + i + ".md");
+
+        Set<String> got = gitlab.fetchAll(paths, Map.of()).map(GitLabClient.RawFile::path)
+                .collect(Collectors.toSet()).block();
+
+        assertEquals(Set.copyOf(paths), got);
+        assertTrue(maxInFlight.get() <= 4, "max in flight " + maxInFlight.get());
+        assertTrue(maxInFlight.get() > 1, "requests ran sequentially");
+    }
+
+    @Test
+    void gateSpreadsRemainingBudgetUntilReset() {
+        AtomicLong clock = new AtomicLong(1_000_000);
+        RateLimitGate gate = new RateLimitGate(100, 10_000, 4, clock::get);
+        HttpHeaders h = new HttpHeaders();
+        h.add("RateLimit-Remaining", "3");
+        h.add("RateLimit-Reset", String.valueOf((clock.get() + 8_000) / 1000));   // 8 s from now
+
+        gate.observe(200, h);
+        assertEquals(2_000, gate.spacingMs());
+        assertEquals(0, gate.reserve().toMillis());
+        assertEquals(2_000, gate.reserve().toMillis());
+
+        HttpHeaders throttled = new HttpHeaders();
+        throttled.add("Retry-After", "30");
+        assertTrue(gate.observe(429, throttled));
+        assertTrue(gate.reserve().toMillis() >= 30_000);
+    }
+}
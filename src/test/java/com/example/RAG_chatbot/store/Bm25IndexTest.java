@@ -0,0 +1,60 @@
+package com.example.RAG_chatbot.store;
+
+import com.example.RAG_chatbot.core.RankFusion;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.document.Document;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class Bm25IndexTest {
+
+    private static Document doc(String id, String text) {
+        return new Document(id, text, Map.of("source", id));
+    }
+
+    @Test
+    void analyzerFoldsTurkishAndSplitsIdentifiers() {
+        assertEquals(List.of("sipar", "durum"), TurkishAnalyzer.analyze("Siparişlerin DURUMU"));
+        assertEquals(List.of("sipar"), TurkishAnalyzer.analyze("SİPARİŞ"));
+        assertEquals(List.of("ordercreatedevent", "order", "creat", "event"),
+                TurkishAnalyzer.analyze("OrderCreatedEvent"));
+        assertEquals(List.of("customer_id", "custo", "id"), TurkishAnalyzer.analyze("customer_id"));
+        assertEquals(List.of("id"), TurkishAnalyzer.analyze("ID ve bir"));
+    }
+
+    @Test
+    void ranksExactIdentifiersAndHandlesReplaceAndDelete() {
+        Bm25Index bm25 = new Bm25Index();
+        bm25.addAll(List.of(
+                doc("a", "The order model has fields id, status and createdAt."),
+                doc("b", "OrderCreatedEvent is published when a new order is stored."),
+                doc("c", "Müşteri siparişleri günlük olarak raporlanır."),
+                doc("d", "Deployment runs on Kubernetes with two replicas.")));
+
+        assertEquals("b", bm25.search("OrderCreatedEvent payload", 3).get(0).getId());
+        assertEquals("c", bm25.search("siparis raporu", 3).get(0).getId());
+        assertTrue(bm25.search("kubernetes", 3).stream().allMatch(d -> d.getId().equals("d")));
+
+        bm25.addAll(List.of(doc("d", "Deployment uses docker compose.")));
+        assertTrue(bm25.search("kubernetes", 3).isEmpty());
+        bm25.remove(List.of("b"));
+        assertTrue(bm25.search("OrderCreatedEvent", 3).stream().noneMatch(d -> d.getId().equals("b")));
+        assertEquals(3, bm25.size());
+    }
+
+    @Test
+    void rrfPrefersDocumentsFoundByBothRetrievers() {
+        Map<String, List<Document>> rankings = new LinkedHashMap<>();
+        rankings.put("vector", List.of(doc("x", ""), doc("y", ""), doc("z", "")));
+        rankings.put("bm25", List.of(doc("w", ""), doc("z", "")));
+
+        List<Document> fused = RankFusion.rrf(60, 2, rankings);
+        assertEquals(List.of("z", "x"), fused.stream().map(Document::getId).toList());
+        assertEquals("vector+bm25", fused.get(0).getMetadata().get("retrieved_by"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.RAG_chatbot.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ExactScanIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void simdDotMatchesScalarIncludingTheTail() {
+        SplittableRandom rnd = new SplittableRandom(3);
+        for (int len : new int[]{1, 7, 16, 37, 384, 769}) {
+            float[] a = new float[len + 5], b = new float[len];
+            for (int i = 0; i < a.length; i++) a[i] = (float) rnd.nextGaussian();
+            for (int i = 0; i < len; i++) b[i] = (float) rnd.nextGaussian();
+            assertThat(VectorMath.dot(a, 5, b, len)).isCloseTo(VectorMath.dotScalar(a, 5, b, len), within(1e-3f));
+        }
+    }
+
+    @Test
+    void parallelBlockScanFindsTheSameRowsAsAPlainLoop() throws Exception {
+        int n = 2 * ExactScanIndex.LEAF_ROWS + 1234, dim = 37;     // several leaves, odd width
+        try (FloatMatrixFile vectors = FloatMatrixFile.create(dir.resolve("vectors.f32"), dim)) {
+            SplittableRandom rnd = new SplittableRandom(5);
+            float[] v = new float[dim];
+            for (int i = 0; i < n; i++) {
+                for (int d = 0; d < dim; d++) v[d] = (float) rnd.nextGaussian();
+                vectors.append(MappedVectorStore.normalize(v));
+            }
+            float[] q = new float[dim];
+            for (int d = 0; d < dim; d++) q[d] = (float) rnd.nextGaussian();
+            q = MappedVectorStore.normalize(q);
+            IntPredicate even = row -> row % 2 == 0;
+
+            TopK expected = new TopK(10);
+            float[] row = new float[dim];
+            for (int i = 0; i < n; i += 2) {
+                vectors.read(i, row);
+                expected.offer(i, VectorMath.dotScalar(row, 0, q, dim));
+            }
+            float[] expectedScores = new float[10];
+            int[] expectedRows = expected.drainDescending(expectedScores);
+
+            ExactScanIndex parallel = new ExactScanIndex(vectors, 4);
+            TopK top = new TopK(10);
+            parallel.search(q, top, -1f, even);
+            parallel.close();
+            float[] scores = new float[10];
+            assertThat(top.drainDescending(scores)).containsExactly(expectedRows);
+            for (int i = 0; i < 10; i++) assertThat(scores[i]).isCloseTo(expectedScores[i], within(1e-4f));
+
+            RoaringBitmap subset = RoaringBitmap.bitmapOf(expectedRows[3], expectedRows[7], 1);
+            TopK some = new TopK(10);
+            ExactScanIndex.scanRows(vectors, subset.getIntIterator(), q, some, -1f, even);
+            assertThat(some.drainDescending(null)).containsExactly(expectedRows[3], expectedRows[7]);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.RAG_chatbot.store;
+
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Deterministic bag-of-words hashing embedder; counts calls so tests can assert on them. */
+class FakeEmbeddingModel implements EmbeddingModel {
+
+    final AtomicInteger calls = new AtomicInteger();
+    private final int dim;
+
+    FakeEmbeddingModel(int dim) {
+        this.dim = dim;
+    }
+
+    @Override
+    public EmbeddingResponse call(EmbeddingRequest request) {
+        calls.incrementAndGet();
+        List<Embedding> out = new ArrayList<>();
+        List<String> texts = request.getInstructions();
+        for (int i = 0; i < texts.size(); i++) out.add(new Embedding(vector(texts.get(i)), i));
+        return new EmbeddingResponse(out);
+    }
+
+    @Override
+    public float[] embed(Document document) {
+        return embed(document.getText());
+    }
+
+    @Override
+    public int dimensions() {
+        return dim;
+    }
+
+    float[] vector(String text) {
+        float[] v = new float[dim];
+        for (String tok : text.toLowerCase(Locale.ROOT).split("\\W+")) {
+            if (!tok.isEmpty()) v[Math.floorMod(tok.hashCode(), dim)] += 1f;
+        }
+        return v;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.RAG_chatbot.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GenerationalVectorStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final FakeEmbeddingModel model = new FakeEmbeddingModel(32);
+
+    private static Document doc(String id, String text) {
+        return new Document(id, text, Map.of("source", id));
+    }
+
+    private static List<String> ids(List<Document> docs) {
+        return docs.stream().map(Document::getId).toList();
+    }
+
+    private static SearchRequest query(String q) {
+        return SearchRequest.builder().query(q).topK(5).similarityThreshold(0.1).build();
+    }
+
+    @Test
+    void publishSwapsGenerationsAndRetiresTheOldOneAfterItsLastReader() throws Exception {
+        try (GenerationalVectorStore live = new GenerationalVectorStore(model, dir, IndexOptions.exact())) {
+            assertThat(live.ready()).isFalse();
+            assertThat(live.similaritySearch(query("order"))).isEmpty();
+
+            GenerationalVectorStore.Generation first = live.stage(false);
+            List<Document> firstDocs = List.of(doc("a", "order model fields"), doc("b", "deployment on kubernetes"));
+            first.store().add(firstDocs);
+            first.lexical().addAll(firstDocs);
+            assertThat(live.similaritySearch(query("order model"))).isEmpty();     // not live yet
+            live.publish(first);
+            assertThat(live.ready()).isTrue();
+            assertThat(ids(live.similaritySearch(query("order model")))).contains("a");
+
+            int calls = model.calls.get();
+            GenerationalVectorStore.Generation second = live.stage(true);
+            assertThat(model.calls.get()).isEqualTo(calls);                      // seeded without embedding
+            assertThat(second.store().size()).isEqualTo(2);
+            assertThat(second.lexical().size()).isEqualTo(2);                   // BM25 built over the copy
+            assertThatThrownBy(() -> live.stage(false)).isInstanceOf(IllegalStateException.class);
+            second.store().delete(List.of("a"));
+            second.lexical().remove(List.of("a"));
+            List<Document> added = List.of(doc("c", "invoice payment order"));
+            second.store().add(added);
+            second.lexical().addAll(added);
+
+            GenerationalVectorStore.Generation reader = live.acquire();         // a search still on gen 1
+            live.publish(second);
+            assertThat(ids(live.similaritySearch(query("order model")))).doesNotContain("a").contains("c");
+            // vektör ve BM25 aynı generation'dan okunur
+            List<String> lexicalHits = live.withCurrent((s, lexical) -> ids(lexical.search("order", 5)));
+            assertThat(lexicalHits).containsExactly("c");
+            assertThat(ids(reader.lexical().search("order", 5))).containsExactly("a");
+            assertThat(Files.exists(first.store().dir())).isTrue();
+            reader.release();
+            assertThat(Files.exists(first.store().dir())).isFalse();
+            assertThat(Files.readString(dir.resolve(GenerationalVectorStore.CURRENT_FILE)))
+                    .isEqualTo(GenerationalVectorStore.name(second.id()));
+
+            GenerationalVectorStore.Generation failed = live.stage(false);
+            failed.store().add(List.of(doc("x", "half built")));
+            live.discard(failed);
+            assertThat(Files.exists(failed.store().dir())).isFalse();
+            assertThat(live.current().id()).isEqualTo(second.id());
+        }
+    }
+
+    @Test
+    void reopensTheCurrentGenerationAndMigratesALegacyIndex() throws Exception {
+        try (MappedVectorStore legacy = new MappedVectorStore(model, dir)) {
+            legacy.add(List.of(doc("a", "order model fields")));
+        }
+        Files.writeString(dir.resolve("ingest-manifest.json"), "{}");
+        Files.createDirectories(dir.resolve("gen-000007"));                  // interrupted build
+
+        long id;
+        try (GenerationalVectorStore live = new GenerationalVectorStore(model, dir, IndexOptions.exact())) {
+            assertThat(live.ready()).isTrue();
+            assertThat(live.size()).isEqualTo(1);
+            assertThat(live.current().lexical().size()).isEqualTo(1);           // rebuilt on open
+            assertThat(Files.exists(dir.resolve(MappedVectorStore.DOCUMENTS_FILE))).isFalse();
+            assertThat(Files.exists(live.current().store().dir().resolve("ingest-manifest.json"))).isTrue();
+            assertThat(Files.exists(dir.resolve("gen-000007"))).isFalse();
+
+            GenerationalVectorStore.Generation next = live.stage(true);
+            assertThat(next.id()).isEqualTo(8);
+            next.store().add(List.of(doc("b", "invoice payment")));
+            live.publish(next);
+            id = next.id();
+        }
+        try (GenerationalVectorStore reopened = new GenerationalVectorStore(model, dir, IndexOptions.exact())) {
+            assertThat(reopened.current().id()).isEqualTo(id);
+            assertThat(reopened.size()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void seedsByFileCopyAndCompactsOnceTombstonesPileUp() throws Exception {
+        try (GenerationalVectorStore live = new GenerationalVectorStore(model, dir, IndexOptions.exact())) {
+            GenerationalVectorStore.Generation first = live.stage(false);
+            first.store().add(List.of(doc("a", "order model fields"), doc("b", "deployment on kubernetes"),
+                    doc("c", "invoice payment order"), doc("d", "crew roster")));
+            first.store().delete(List.of("a"));                                  // 1/4 tombstoned: still copied
+            Files.writeString(first.store().dir().resolve("ingest-manifest.json"), "{}");
+            live.publish(first);
+
+            int calls = model.calls.get();
+            GenerationalVectorStore.Generation second = live.stage(true);
+            assertThat(model.calls.get()).isEqualTo(calls);
+            for (String f : List.of(MappedVectorStore.VECTORS_FILE, MappedVectorStore.DOCUMENTS_FILE,
+                    MappedVectorStore.DELETED_FILE)) {
+                assertThat(second.store().dir().resolve(f)).hasSameBinaryContentAs(first.store().dir().resolve(f));
+            }
+            assertThat(second.store().dir().resolve("ingest-manifest.json")).exists();
+            assertThat(second.store().size()).isEqualTo(3);
+            assertThat(second.store().garbageRatio()).isEqualTo(0.25);
+            second.store().delete(List.of("b"));
+            live.publish(second);
+
+            GenerationalVectorStore.Generation third = live.stage(true);        // 2/4 tombstoned: compacted
+            assertThat(model.calls.get()).isEqualTo(calls);
+            assertThat(third.store().size()).isEqualTo(2);
+            assertThat(third.store().garbageRatio()).isZero();
+            assertThat(third.lexical().size()).isEqualTo(2);
+            live.discard(third);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.RAG_chatbot.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void recallAgainstExactScanAndReload() throws Exception {
+        int n = 5000, dim = 48;
+        try (FloatMatrixFile vectors = FloatMatrixFile.create(dir.resolve("vectors.f32"), dim)) {
+            fillClustered(vectors, n, dim);
+            HnswIndex hnsw = HnswIndex.open(vectors, 16, 100, 64);
+
+            String report = RecallReport.run(vectors, hnsw, 200, 5, new int[]{64}, 0.05f, 7);
+            assertThat(recallAt(report, "ef=64")).isGreaterThan(0.9);
+
+            hnsw.save();
+            HnswIndex reloaded = HnswIndex.open(vectors, 16, 100, 64);
+            assertThat(reloaded.describe()).isEqualTo(hnsw.describe());
+            assertThat(recallAt(RecallReport.run(vectors, reloaded, 200, 5, new int[]{64}, 0.05f, 7), "ef=64"))
+                    .isEqualTo(recallAt(report, "ef=64"));
+        }
+    }
+
+    /** Gaussian blobs around random centres, closer to real embedding distributions than uniform noise. */
+    private static void fillClustered(FloatMatrixFile vectors, int n, int dim) throws Exception {
+        SplittableRandom rnd = new SplittableRandom(1);
+        float[][] centres = new float[40][dim];
+        for (float[] c : centres) for (int d = 0; d < dim; d++) c[d] = (float) (rnd.nextDouble() * 2 - 1);
+        float[] v = new float[dim];
+        for (int i = 0; i < n; i++) {
+            float[] c = centres[rnd.nextInt(centres.length)];
+            for (int d = 0; d < dim; d++) v[d] = c[d] + (float) ((rnd.nextDouble() - 0.5) * 0.6);
+            vectors.append(MappedVectorStore.normalize(v));
+        }
+    }
+
+    private static double recallAt(String report, String method) {
+        for (String line : report.split("\\R")) {
+            String[] cols = line.trim().split("\\s+");
+            if (cols[0].equals(method)) return Double.parseDouble(cols[1]);
+        }
+        throw new AssertionError("no row " + method + " in\n" + report);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.RAG_chatbot.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedVectorStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void reopensWithoutReembeddingAndHonoursDeletes() throws Exception {
+        FakeEmbeddingModel model = new FakeEmbeddingModel(64);
+        try (MappedVectorStore store = new MappedVectorStore(model, dir)) {
+            store.add(List.of(
+                    new Document("a", "crew roster event published", Map.of("repo_path", "river-x/events/crew-events.md")),
+                    new Document("b", "flight plan data model fields", Map.of("repo_path", "river-x/data-models/flight-plan.md")),
+                    new Document("c", "baggage tracking events", Map.of("repo_path", "river-x/events/baggage-events.md"))));
+            store.delete(List.of("c"));
+        }
+
+        int embedCalls = model.calls.get();
+        try (MappedVectorStore reopened = new MappedVectorStore(model, dir)) {
+            assertThat(reopened.size()).isEqualTo(2);
+            assertThat(model.calls.get()).isEqualTo(embedCalls);
+
+            List<Document> hits = reopened.similaritySearch(SearchRequest.builder()
+                    .query("crew roster").topK(5).similarityThreshold(0.1).build());
+            assertThat(hits).extracting(Document::getId).containsExactly("a");
+            assertThat(hits.get(0).getMetadata()).containsEntry("repo_path", "river-x/events/crew-events.md");
+            assertThat(hits.get(0).getScore()).isGreaterThan(0.5);
+        }
+    }
+
+    @Test
+    void readdingAnIdReplacesThePreviousRow() throws Exception {
+        try (MappedVectorStore store = new MappedVectorStore(new FakeEmbeddingModel(32), dir)) {
+            store.add(List.of(new Document("x", "old text", Map.of())));
+            store.add(List.of(new Document("x", "new text", Map.of())));
+
+            assertThat(store.size()).isEqualTo(1);
+            List<Document> hits = store.similaritySearch(SearchRequest.builder()
+                    .query("text").topK(5).similarityThreshold(0.0).build());
+            assertThat(hits).extracting(Document::getText).containsExactly("new text");
+        }
+    }
+
+    @Test
+    void wrongDimensionRejectsTheWholeBatchBeforeWriting() throws Exception {
+        try (MappedVectorStore store = new MappedVectorStore(new FakeEmbeddingModel(4), dir)) {
+            store.addEmbedded(List.of(new Document("x", "old text", Map.of())), List.of(new float[]{1, 0, 0, 0}));
+            assertThatThrownBy(() -> store.addEmbedded(
+                    List.of(new Document("x", "new text", Map.of()), new Document("y", "other", Map.of())),
+                    List.of(new float[]{0, 1, 0, 0}, new float[]{1, 1, 1})))
+                    .isInstanceOf(IllegalArgumentException.class);
+
+            store.addEmbedded(List.of(new Document("z", "later", Map.of())), List.of(new float[]{0, 0, 1, 0}));
+            assertThat(store.size()).isEqualTo(2);
+            List<Document> hits = store.similaritySearch(SearchRequest.builder()
+                    .query("unused").topK(5).similarityThreshold(0.0).build());
+            assertThat(hits).extracting(Document::getText).contains("old text", "later");
+        }
+    }
+
+    @Test
+    void metadataFiltersNarrowTheScanAndSurviveReopening() throws Exception {
+        FakeEmbeddingModel model = new FakeEmbeddingModel(64);
+        FilterExpressionBuilder b = new FilterExpressionBuilder();
+        SearchRequest crewEvents = SearchRequest.builder().query("events").topK(5).similarityThreshold(0.0)
+                .filterExpression(b.and(
+                        b.and(b.gte("repo_path", "river-x/events/"), b.lt("repo_path", "river-x/events/\uffff")),
+                        b.eq("fm:tags", "crew")).build())
+                .build();
+        try (MappedVectorStore store = new MappedVectorStore(model, dir)) {
+            store.add(List.of(
+                    new Document("a", "crew roster events", Map.of("repo_path", "river-x/events/crew-events.md", "fm:tags", "[crew, ops]")),
+                    new Document("b", "baggage events", Map.of("repo_path", "river-x/events/baggage-events.md", "fm:tags", "baggage")),
+                    new Document("c", "crew data model events", Map.of("repo_path", "river-x/data-models/crew.md", "fm:tags", "crew"))));
+            assertThat(store.similaritySearch(crewEvents)).extracting(Document::getId).containsExactly("a");
+        }
+
+        try (MappedVectorStore reopened = new MappedVectorStore(model, dir)) {
+            assertThat(reopened.similaritySearch(crewEvents)).extracting(Document::getId).containsExactly("a");
+            reopened.add(List.of(new Document("d", "crew shift events", Map.of("repo_path", "river-x/events/shifts.md", "fm:tags", "crew"))));
+        }
+
+        // kayıtlı bitmap'ler yoksa (ya da geride kaldıysa) document log'dan yeniden kurulur
+        Files.delete(dir.resolve(MetadataBitmapIndex.FILE));
+        try (MappedVectorStore rebuilt = new MappedVectorStore(model, dir)) {
+            assertThat(rebuilt.similaritySearch(crewEvents)).extracting(Document::getId).containsExactlyInAnyOrder("a", "d");
+        }
+    }
+
+    @Test
+    void selectiveFilterAboveTheScanLimitStillFillsTopKOnHnsw() throws Exception {
+        // 2000 satır, filtre %2.5'ini (50 satır) seçer; scanLimit altında olmadığı için HNSW yolu çalışır
+        IndexOptions hnsw = new IndexOptions("hnsw", 8, 32, 16, 4, 20, 1);
+        try (MappedVectorStore store = new MappedVectorStore(new FakeEmbeddingModel(32), dir, hnsw)) {
+            List<Document> docs = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                docs.add(new Document("d" + i, "order record " + i + (i % 7 == 0 ? " payment" : " shipping"),
+                        Map.of("source", "s" + (i % 40))));
+            }
+            store.add(docs);
+
+            FilterExpressionBuilder b = new FilterExpressionBuilder();
+            List<Document> hits = store.similaritySearch(SearchRequest.builder()
+                    .query("order payment").topK(10).similarityThreshold(0.0)
+                    .filterExpression(b.eq("source", "s3").build()).build());
+            assertThat(hits).hasSize(10);
+            assertThat(hits).allSatisfy(d -> assertThat(d.getMetadata().get("source")).isEqualTo("s3"));
+        }
+    }
+}
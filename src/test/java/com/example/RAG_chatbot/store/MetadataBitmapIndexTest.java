@@ -0,0 +1,78 @@
+package com.example.RAG_chatbot.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.ai.vectorstore.filter.Filter;
+import org.springframework.ai.vectorstore.filter.FilterExpressionBuilder;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetadataBitmapIndexTest {
+
+    @TempDir
+    Path dir;
+
+    private static final List<Map<String, Object>> ROWS = List.of(
+            Map.of("repo_path", "river-x/events/crew-events.md", "fm:tags", "[crew, ops]", "section_id", "s1", "page", 1),
+            Map.of("repo_path", "river-x/events/baggage-events.md", "fm:tags", "baggage", "section_id", "s2", "page", 2),
+            Map.of("repo_path", "river-x/data-models/crew.md", "fm:tags", "['crew']", "page", 3),
+            Map.of("repo_path", "river-x/events.md", "section_id", "s1"),
+            Map.of("source", "txt"));
+
+    private static final FilterExpressionBuilder B = new FilterExpressionBuilder();
+
+    private static MetadataBitmapIndex index() {
+        MetadataBitmapIndex idx = new MetadataBitmapIndex();
+        for (int row = 0; row < ROWS.size(); row++) idx.added(row, ROWS.get(row));
+        return idx;
+    }
+
+    private static RoaringBitmap expected(Filter.Expression e) {
+        RoaringBitmap out = new RoaringBitmap();
+        for (int row = 0; row < ROWS.size(); row++) {
+            if (MetadataFilters.matches(e, ROWS.get(row))) out.add(row);
+        }
+        return out;
+    }
+
+    @Test
+    void selectionsAgreeWithThePerRowFilter() {
+        MetadataBitmapIndex idx = index();
+        Filter.Expression events = B.and(B.gte("repo_path", "river-x/events/"), B.lt("repo_path", "river-x/events/\uffff")).build();
+        Filter.Expression crew = B.eq("fm:tags", "crew").build();
+        Filter.Expression notCrew = B.ne("fm:tags", "crew").build();
+        Filter.Expression sections = B.in("section_id", "s1", "s2").build();
+        Filter.Expression crewOnLaterPages = B.and(B.eq("fm:tags", "crew"), B.gt("page", 1)).build();
+        Filter.Expression unindexedOr = B.or(B.eq("section_id", "s1"), B.eq("page", 2)).build();
+
+        for (Filter.Expression e : List.of(events, crew, notCrew, sections, crewOnLaterPages, unindexedOr)) {
+            MetadataBitmapIndex.Selection sel = idx.select(e);
+            RoaringBitmap want = expected(e);
+            if (sel.exact()) assertThat(sel.rows()).as(e.toString()).isEqualTo(want);
+            else if (sel.rows() != null) assertThat(RoaringBitmap.andNot(want, sel.rows()).isEmpty()).as(e.toString()).isTrue();
+        }
+
+        assertThat(idx.select(events).rows().toArray()).containsExactly(0, 1);
+        assertThat(idx.select(crew).rows().toArray()).containsExactly(0, 2);
+        assertThat(idx.select(notCrew).exact()).isTrue();
+        assertThat(idx.select(crewOnLaterPages).exact()).isFalse();     // page is not indexed
+        assertThat(idx.select(crewOnLaterPages).rows().toArray()).containsExactly(0, 2);
+        assertThat(idx.select(unindexedOr).rows()).isNull();
+    }
+
+    @Test
+    void savedIndexLoadsOnlyForTheRowsItCovers() throws Exception {
+        Path file = dir.resolve(MetadataBitmapIndex.FILE);
+        index().save(file);
+
+        MetadataBitmapIndex loaded = MetadataBitmapIndex.load(file, ROWS.size());
+        assertThat(loaded.size()).isEqualTo(ROWS.size());
+        assertThat(loaded.select(B.eq("fm:tags", "ops").build()).rows().toArray()).containsExactly(0);
+        assertThat(MetadataBitmapIndex.load(file, ROWS.size() - 1)).isNull();
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.RAG_chatbot.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QuantizedIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rescoredTop5StaysCloseToExact() throws Exception {
+        int n = 4000, dim = 384;
+        try (FloatMatrixFile vectors = FloatMatrixFile.create(dir.resolve("vectors.f32"), dim)) {
+            SplittableRandom rnd = new SplittableRandom(3);
+            float[][] centres = new float[40][dim];
+            for (float[] c : centres) for (int d = 0; d < dim; d++) c[d] = (float) (rnd.nextDouble() * 2 - 1);
+            float[] v = new float[dim];
+            for (int i = 0; i < n; i++) {
+                float[] c = centres[rnd.nextInt(centres.length)];
+                for (int d = 0; d < dim; d++) v[d] = c[d] + (float) ((rnd.nextDouble() - 0.5) * 2.0);
+                vectors.append(MappedVectorStore.normalize(v));
+            }
+
+            ExactScanIndex exact = new ExactScanIndex(vectors);
+            QuantizedIndex int8 = QuantizedIndex.open(vectors, QuantizedIndex.Mode.INT8, 4);
+            QuantizedIndex binary = QuantizedIndex.open(vectors, QuantizedIndex.Mode.BINARY, 10);
+
+            double int8Overlap = overlap(vectors, exact, int8, rnd);
+            double binaryOverlap = overlap(vectors, exact, binary, rnd);
+            assertThat(int8Overlap).isGreaterThan(0.95);
+            assertThat(binaryOverlap).isGreaterThan(0.85);
+
+            int8.save();
+            QuantizedIndex reopened = QuantizedIndex.open(vectors, QuantizedIndex.Mode.INT8, 4);
+            assertThat(reopened.describe()).isEqualTo(int8.describe());
+        }
+    }
+
+    /** Mean fraction of the exact top-5 that the quantized index also returns. */
+    private static double overlap(FloatMatrixFile vectors, VectorIndex exact, VectorIndex approx, SplittableRandom rnd) {
+        int queries = 100, found = 0;
+        float[] q = new float[vectors.dim()];
+        for (int i = 0; i < queries; i++) {
+            vectors.read(rnd.nextInt(vectors.count()), q);
+            for (int d = 0; d < q.length; d++) q[d] += (float) ((rnd.nextDouble() - 0.5) * 0.1);
+            float[] qn = MappedVectorStore.normalize(q);
+
+            TopK a = new TopK(5), b = new TopK(5);
+            exact.search(qn, a, -1f, r -> true);
+            approx.search(qn, b, -1f, r -> true);
+            int[] want = a.drainDescending(null), got = b.drainDescending(null);
+            for (int w : want) if (Arrays.stream(got).anyMatch(g -> g == w)) found++;
+        }
+        return found / (queries * 5.0);
+    }
+}